@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import android.net.wifi.WifiSsid;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fakes shared by the benchmarks.
+ */
+class BenchmarkUtils {
+    // Time of the fixed clock, which all fake scans are seen at.
+    static final long NOW_MILLIS = 1_000_000_000L;
+    static final long MAX_SCAN_AGE_MILLIS = 15_000;
+    // Number of BSSIDs of each fake SSID, e.g. an AP with several bands or a mesh network.
+    static final int BSSIDS_PER_SSID = 5;
+
+    private static final String[] CAPABILITIES = {
+            "", "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]", "[RSN-SAE-CCMP][ESS]",
+            "[RSN-EAP/SHA1-CCMP][ESS]",
+    };
+    private static final int[] FREQUENCIES = {2412, 2437, 5180, 5500, 5955};
+
+    /**
+     * Returns the number of BSSIDs in range to run each benchmark with.
+     */
+    static Collection<Object[]> getNumBssidsParameters() {
+        return Arrays.asList(new Object[][] {{50}, {500}, {5_000}});
+    }
+
+    /**
+     * Returns a fixed Clock at {@link #NOW_MILLIS}.
+     */
+    static Clock buildFixedClock() {
+        return Clock.fixed(Instant.ofEpochMilli(NOW_MILLIS), ZoneOffset.UTC);
+    }
+
+    /**
+     * Builds scans of the given number of BSSIDs, grouped into SSIDs of {@link #BSSIDS_PER_SSID}
+     * BSSIDs with a mix of security types, bands and RSSIs.
+     */
+    static List<ScanResult> buildScanResults(int numBssids) {
+        final List<ScanResult> scanResults = new ArrayList<>(numBssids);
+        for (int i = 0; i < numBssids; i++) {
+            final int ssidIndex = i / BSSIDS_PER_SSID;
+            scanResults.add(buildScanResult("ssid" + ssidIndex, i,
+                    CAPABILITIES[ssidIndex % CAPABILITIES.length]));
+        }
+        return scanResults;
+    }
+
+    /**
+     * Builds scans of the given number of BSSIDs of a single open SSID.
+     */
+    static List<ScanResult> buildScanResultsForSsid(String ssid, int numBssids) {
+        final List<ScanResult> scanResults = new ArrayList<>(numBssids);
+        for (int i = 0; i < numBssids; i++) {
+            scanResults.add(buildScanResult(ssid, i, ""));
+        }
+        return scanResults;
+    }
+
+    /**
+     * Returns a fake WifiManager with Wi-Fi enabled and the given scans.
+     *
+     * The mock is stub-only, so it doesn't record its invocations. Otherwise the recording would
+     * be counted in the time and allocations of the benchmarks, and would grow with every
+     * iteration. WifiManager can't be subclassed without its hidden constructor and binder
+     * service, which every unstubbed method would call into.
+     */
+    static WifiManager buildFakeWifiManager(List<ScanResult> scanResults) {
+        final WifiManager wifiManager = mock(WifiManager.class, withSettings().stubOnly());
+        when(wifiManager.getWifiState()).thenReturn(WifiManager.WIFI_STATE_ENABLED);
+        when(wifiManager.getScanResults()).thenReturn(scanResults);
+        return wifiManager;
+    }
+
+    private static ScanResult buildScanResult(String ssid, int index, String capabilities) {
+        final ScanResult result = new ScanResult();
+        result.SSID = ssid;
+        result.setWifiSsid(WifiSsid.fromBytes(ssid.getBytes(StandardCharsets.UTF_8)));
+        result.BSSID = String.format("02:00:00:%02x:%02x:%02x",
+                (index >> 16) & 0xff, (index >> 8) & 0xff, index & 0xff);
+        result.capabilities = capabilities;
+        result.frequency = FREQUENCIES[index % FREQUENCIES.length];
+        result.level = -40 - (index % 50);
+        result.timestamp = NOW_MILLIS * 1000;
+        return result;
+    }
+}
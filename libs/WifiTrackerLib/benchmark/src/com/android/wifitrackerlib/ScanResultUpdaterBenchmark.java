@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.android.wifitrackerlib.BenchmarkUtils.MAX_SCAN_AGE_MILLIS;
+import static com.android.wifitrackerlib.BenchmarkUtils.buildFixedClock;
+import static com.android.wifitrackerlib.BenchmarkUtils.buildScanResults;
+
+import android.net.wifi.ScanResult;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Benchmarks of the scan cache. Each benchmark reports the time and the allocations per call.
+ */
+@RunWith(Parameterized.class)
+public class ScanResultUpdaterBenchmark {
+    @Rule public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Parameterized.Parameter
+    public int mNumBssids;
+
+    private List<ScanResult> mScanResults;
+    private ScanResultUpdater mScanResultUpdater;
+
+    @Parameterized.Parameters(name = "numBssids={0}")
+    public static Collection<Object[]> getParameters() {
+        return BenchmarkUtils.getNumBssidsParameters();
+    }
+
+    @Before
+    public void setUp() {
+        mScanResults = buildScanResults(mNumBssids);
+        mScanResultUpdater = new ScanResultUpdater(buildFixedClock(), MAX_SCAN_AGE_MILLIS);
+        mScanResultUpdater.update(mScanResults);
+    }
+
+    /**
+     * Updates the cache with the scans it already holds, as for periodic scans in a stable
+     * environment.
+     */
+    @Test
+    public void benchmarkUpdate() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mScanResultUpdater.update(mScanResults);
+        }
+    }
+
+    @Test
+    public void benchmarkGetScanResults() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mScanResultUpdater.getScanResults();
+        }
+    }
+}
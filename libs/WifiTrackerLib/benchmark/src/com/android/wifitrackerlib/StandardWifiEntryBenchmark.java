@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static android.net.wifi.WifiInfo.SECURITY_TYPE_OPEN;
+
+import static com.android.wifitrackerlib.BenchmarkUtils.buildFakeWifiManager;
+import static com.android.wifitrackerlib.BenchmarkUtils.buildScanResults;
+import static com.android.wifitrackerlib.BenchmarkUtils.buildScanResultsForSsid;
+import static com.android.wifitrackerlib.StandardWifiEntry.ssidAndSecurityTypeToStandardWifiEntryKey;
+
+import android.content.Context;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.wifitrackerlib.StandardWifiEntry.ScanResultKey;
+import com.android.wifitrackerlib.StandardWifiEntry.StandardWifiEntryKey;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmarks of StandardWifiEntry. Each benchmark reports the time and the allocations per call.
+ */
+@RunWith(Parameterized.class)
+public class StandardWifiEntryBenchmark {
+    private static final String TEST_SSID = "ssid";
+
+    @Rule public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Parameterized.Parameter
+    public int mNumBssids;
+
+    private WifiTrackerInjector mInjector;
+    private Handler mHandler;
+
+    @Parameterized.Parameters(name = "numBssids={0}")
+    public static Collection<Object[]> getParameters() {
+        return BenchmarkUtils.getNumBssidsParameters();
+    }
+
+    @Before
+    public void setUp() {
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mInjector = new WifiTrackerInjector(context);
+        mHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Updates a single entry with all of the BSSIDs of its SSID.
+     */
+    @Test
+    public void benchmarkUpdateScanResultInfo() {
+        final List<ScanResult> scanResults = buildScanResultsForSsid(TEST_SSID, mNumBssids);
+        final StandardWifiEntry entry = new StandardWifiEntry(mInjector, mHandler,
+                ssidAndSecurityTypeToStandardWifiEntryKey(TEST_SSID, SECURITY_TYPE_OPEN),
+                null /* configs */, null /* scanResults */, buildFakeWifiManager(scanResults),
+                false /* forSavedNetworksPage */);
+
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            entry.updateScanResultInfo(scanResults);
+        }
+    }
+
+    /**
+     * Sorts the entries of all of the SSIDs with {@link WifiEntry#WIFI_PICKER_COMPARATOR}. Each
+     * iteration also copies the unsorted list, which is cheap next to the sort.
+     */
+    @Test
+    public void benchmarkSortWifiPickerComparator() {
+        final List<ScanResult> scanResults = buildScanResults(mNumBssids);
+        final WifiManager wifiManager = buildFakeWifiManager(scanResults);
+        final List<WifiEntry> entries = new ArrayList<>();
+        for (Map.Entry<ScanResultKey, List<ScanResult>> scansForKey
+                : WifiPickerTracker.groupScanResultsByKey(scanResults).entrySet()) {
+            entries.add(new StandardWifiEntry(mInjector, mHandler,
+                    new StandardWifiEntryKey(scansForKey.getKey()), null /* configs */,
+                    scansForKey.getValue(), wifiManager, false /* forSavedNetworksPage */));
+        }
+        Collections.shuffle(entries);
+
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            final List<WifiEntry> sortedEntries = new ArrayList<>(entries);
+            Collections.sort(sortedEntries, WifiEntry.WIFI_PICKER_COMPARATOR);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.android.wifitrackerlib.BenchmarkUtils.MAX_SCAN_AGE_MILLIS;
+import static com.android.wifitrackerlib.BenchmarkUtils.buildFakeWifiManager;
+import static com.android.wifitrackerlib.BenchmarkUtils.buildFixedClock;
+import static com.android.wifitrackerlib.BenchmarkUtils.buildScanResults;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.ConnectivityManager;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.lifecycle.Lifecycle;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Benchmarks of the scan results pipeline of WifiPickerTracker. Each benchmark reports the time
+ * and the allocations per call.
+ */
+@RunWith(Parameterized.class)
+public class WifiPickerTrackerBenchmark {
+    private static final long SCAN_INTERVAL_MILLIS = 10_000;
+
+    @Rule public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Parameterized.Parameter
+    public int mNumBssids;
+
+    private Context mContext;
+    private List<ScanResult> mScanResults;
+
+    @Parameterized.Parameters(name = "numBssids={0}")
+    public static Collection<Object[]> getParameters() {
+        return BenchmarkUtils.getNumBssidsParameters();
+    }
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mScanResults = buildScanResults(mNumBssids);
+    }
+
+    @Test
+    public void benchmarkGroupScanResultsByKey() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            WifiPickerTracker.groupScanResultsByKey(mScanResults);
+        }
+    }
+
+    /**
+     * Runs the full update for a SCAN_RESULTS_AVAILABLE_ACTION, from fetching the scans until
+     * the list of WifiEntries is rebuilt. The entries are created on the first call, so this
+     * measures the steady state of updating existing entries.
+     */
+    @Test
+    public void benchmarkHandleScanResultsAvailableAction() {
+        final WifiManager wifiManager = buildFakeWifiManager(mScanResults);
+        final Handler handler = new Handler(Looper.getMainLooper());
+        final WifiPickerTracker wifiPickerTracker = new WifiPickerTracker(
+                new WifiTrackerInjector(mContext),
+                mock(Lifecycle.class, withSettings().stubOnly()),
+                mContext,
+                wifiManager,
+                mContext.getSystemService(ConnectivityManager.class),
+                handler,
+                handler,
+                buildFixedClock(),
+                MAX_SCAN_AGE_MILLIS,
+                SCAN_INTERVAL_MILLIS,
+                null /* listener */);
+        final Intent intent = new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION)
+                .putExtra(WifiManager.EXTRA_RESULTS_UPDATED, true);
+
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            wifiPickerTracker.handleScanResultsAvailableAction(intent);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import android.annotation.SuppressLint;
+import android.app.admin.DevicePolicyManager;
+import android.app.admin.WifiSsidPolicy;
+import android.content.Context;
+import android.net.wifi.WifiSsid;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.ArrayMap;
+import android.util.Pair;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.os.BuildCompat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Snapshot of the device admin policies and user restrictions that restrict WifiEntries.
+ *
+ * The policies are fetched once when the snapshot is created, so evaluating the restrictions of
+ * each WifiEntry doesn't need any IPC. Whether a config creator is the device or profile owner
+ * is looked up lazily and cached per creator. A snapshot is never updated, so a new one should be
+ * created whenever the policies or user restrictions change.
+ */
+class AdminPolicySnapshot {
+    private static final int NO_SSID_POLICY = -1;
+
+    @NonNull private final Context mContext;
+    @Nullable private final UserManager mUserManager;
+    private final boolean mHasAddConfigUserRestriction;
+    private final boolean mHasDevicePolicyManager;
+    private final int mMinimumRequiredWifiSecurityLevel;
+    private final int mSsidPolicyType;
+    @NonNull private final Set<WifiSsid> mSsidPolicySsids;
+
+    // Whether sharing a config created by the given uid and package is restricted.
+    @GuardedBy("this")
+    private final Map<Pair<Integer, String>, Boolean> mIsSharingRestrictedByCreator =
+            new ArrayMap<>();
+
+    // TODO(b/227622961): Remove the suppression once the linter recognizes BuildCompat.isAtLeastT()
+    @SuppressLint("NewApi")
+    AdminPolicySnapshot(@NonNull Context context, @Nullable UserManager userManager,
+            @Nullable DevicePolicyManager devicePolicyManager) {
+        mContext = context;
+        mUserManager = userManager;
+        final boolean isAtLeastT = BuildCompat.isAtLeastT();
+        mHasAddConfigUserRestriction = isAtLeastT && userManager != null
+                && userManager.hasUserRestriction(UserManager.DISALLOW_ADD_WIFI_CONFIG);
+        mHasDevicePolicyManager = isAtLeastT && devicePolicyManager != null;
+        if (!mHasDevicePolicyManager) {
+            mMinimumRequiredWifiSecurityLevel = DevicePolicyManager.WIFI_SECURITY_OPEN;
+            mSsidPolicyType = NO_SSID_POLICY;
+            mSsidPolicySsids = Collections.emptySet();
+            return;
+        }
+        mMinimumRequiredWifiSecurityLevel =
+                devicePolicyManager.getMinimumRequiredWifiSecurityLevel();
+        final WifiSsidPolicy policy = NonSdkApiWrapper.getWifiSsidPolicy(devicePolicyManager);
+        if (policy != null) {
+            mSsidPolicyType = policy.getPolicyType();
+            mSsidPolicySsids = policy.getSsids();
+        } else {
+            mSsidPolicyType = NO_SSID_POLICY;
+            mSsidPolicySsids = Collections.emptySet();
+        }
+    }
+
+    /**
+     * Returns whether the user is restricted from adding Wi-Fi configs.
+     */
+    @AnyThread
+    boolean hasAddConfigUserRestriction() {
+        return mHasAddConfigUserRestriction;
+    }
+
+    /**
+     * Returns whether a network with the given SSID and security types is restricted by the
+     * minimum security level or the SSID policy set by the admin.
+     */
+    // TODO(b/227622961): Remove the suppression once the linter recognizes BuildCompat.isAtLeastT()
+    @SuppressLint("NewApi")
+    @AnyThread
+    boolean isAdminRestricted(@NonNull String ssid, @NonNull Collection<Integer> securityTypes) {
+        if (!mHasDevicePolicyManager) {
+            return false;
+        }
+        if (mMinimumRequiredWifiSecurityLevel != DevicePolicyManager.WIFI_SECURITY_OPEN) {
+            boolean securityRestrictionPassed = false;
+            for (int type : securityTypes) {
+                int securityLevel = Utils.convertSecurityTypeToDpmWifiSecurity(type);
+
+                // Skip unknown security type since security level cannot be determined.
+                // If all the security types are unknown when the minimum security level
+                // restriction is set, the device cannot connect to this network.
+                if (securityLevel == Utils.DPM_SECURITY_TYPE_UNKNOWN) continue;
+
+                if (mMinimumRequiredWifiSecurityLevel <= securityLevel) {
+                    securityRestrictionPassed = true;
+                    break;
+                }
+            }
+            if (!securityRestrictionPassed) {
+                return true;
+            }
+        }
+        if (mSsidPolicyType == NO_SSID_POLICY) {
+            return false;
+        }
+        final boolean isPolicySsid = mSsidPolicySsids.contains(
+                WifiSsid.fromBytes(ssid.getBytes(StandardCharsets.UTF_8)));
+        if (mSsidPolicyType == WifiSsidPolicy.WIFI_SSID_POLICY_TYPE_ALLOWLIST) {
+            return !isPolicySsid;
+        }
+        if (mSsidPolicyType == WifiSsidPolicy.WIFI_SSID_POLICY_TYPE_DENYLIST) {
+            return isPolicySsid;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether sharing a config created by the given uid and package is restricted, i.e.
+     * sharing admin configured Wi-Fi is disallowed for the user and the creator is the device or
+     * profile owner.
+     */
+    // TODO(b/227622961): Remove the suppression once the linter recognizes BuildCompat.isAtLeastT()
+    @SuppressLint("NewApi")
+    @AnyThread
+    synchronized boolean isSharingRestricted(int creatorUid, @Nullable String creatorName) {
+        if (!BuildCompat.isAtLeastT() || mUserManager == null) {
+            return false;
+        }
+        final Pair<Integer, String> creator = new Pair<>(creatorUid, creatorName);
+        Boolean isRestricted = mIsSharingRestrictedByCreator.get(creator);
+        if (isRestricted == null) {
+            isRestricted = mUserManager.hasUserRestrictionForUser(
+                    UserManager.DISALLOW_SHARING_ADMIN_CONFIGURED_WIFI,
+                    UserHandle.getUserHandleForUid(creatorUid))
+                    && Utils.isDeviceOrProfileOwner(creatorUid, creatorName, mContext);
+            mIsSharingRestrictedByCreator.put(creator, isRestricted);
+        }
+        return isRestricted;
+    }
+}
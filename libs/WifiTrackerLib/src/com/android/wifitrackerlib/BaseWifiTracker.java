@@ -22,6 +22,7 @@ import static android.os.Build.VERSION_CODES;
 import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
 import android.app.ActivityManager;
+import android.app.admin.DevicePolicyManager;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
@@ -31,8 +32,10 @@ import android.net.ConnectivityManager;
 import android.net.LinkProperties;
 import android.net.Network;
 import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
 import android.net.NetworkRequest;
 import android.net.wifi.ScanResult;
+import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiManager;
 import android.net.wifi.WifiManager.WifiStateChangedListener;
 import android.net.wifi.WifiScanner;
@@ -46,6 +49,10 @@ import android.net.wifi.sharedconnectivity.app.SharedConnectivitySettingsState;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.PowerManager;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.os.UserManager;
+import android.telephony.CarrierConfigManager;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.util.Log;
@@ -60,9 +67,12 @@ import androidx.lifecycle.Lifecycle;
 import androidx.lifecycle.LifecycleObserver;
 import androidx.lifecycle.OnLifecycleEvent;
 
+import java.io.PrintWriter;
 import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executor;
 
 /**
@@ -101,6 +111,16 @@ public class BaseWifiTracker {
 
     private boolean mIsInitialized = false;
     private boolean mIsScanningDisabled = false;
+    private boolean mIsProgressiveScanResultsEnabled = false;
+    private boolean mIsTargetedScansEnabled = false;
+    // Hub owning the registrations if the shared hub is enabled, otherwise null.
+    @Nullable private WifiTrackerHub mHub;
+    // Filter of the broadcast actions registered in onStart().
+    @NonNull private IntentFilter mIntentFilter = new IntentFilter();
+    // Chooses the scan interval if adaptive scan intervals are enabled, otherwise null.
+    @Nullable private ScanIntervalGovernor mScanIntervalGovernor;
+    // Results of the latest call to fetchScanResults(), used to compare successive scans.
+    @Nullable private volatile List<ScanResult> mLatestFetchedScanResults;
 
     class WifiTrackerLifecycleObserver implements LifecycleObserver {
         @OnLifecycleEvent(Lifecycle.Event.ON_START)
@@ -129,10 +149,18 @@ public class BaseWifiTracker {
         public void onReceive(Context context, Intent intent) {
             String action = intent.getAction();
 
-            if (isVerboseLoggingEnabled()) {
-                Log.v(mTag, "Received broadcast: " + action);
+            mEventLog.record(TrackerEventLog.EVENT_BROADCAST_RECEIVED, action);
+
+            Trace.beginSection(getTraceSectionName(action));
+            try {
+                dispatchBroadcast(action, intent);
+            } finally {
+                Trace.endSection();
             }
+        }
 
+        @WorkerThread
+        private void dispatchBroadcast(@Nullable String action, @NonNull Intent intent) {
             if (WifiManager.WIFI_STATE_CHANGED_ACTION.equals(action)) {
                 mWifiState = intent.getIntExtra(
                         WifiManager.EXTRA_WIFI_STATE, WifiManager.WIFI_STATE_DISABLED);
@@ -140,16 +168,49 @@ public class BaseWifiTracker {
                 notifyOnWifiStateChanged();
                 handleWifiStateChangedAction();
             } else if (WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(action)) {
+                final long startNanos = SystemClock.elapsedRealtimeNanos();
+                mLatestFetchedScanResults = null;
                 handleScanResultsAvailableAction(intent);
+                // Compare the latest scan only, since the cached results keep older scans.
+                final List<ScanResult> latestScanResults = mLatestFetchedScanResults;
+                if (mScanIntervalGovernor != null && latestScanResults != null
+                        && intent.getBooleanExtra(WifiManager.EXTRA_RESULTS_UPDATED, true)) {
+                    mScanIntervalGovernor.onScanResults(latestScanResults);
+                }
+                mLatencyStats.recordSince(
+                        TrackerLatencyStats.PHASE_SCAN_RESULTS_BROADCAST, startNanos);
             } else if (WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION.equals(action)) {
                 handleConfiguredNetworksChangedAction(intent);
             } else if (WifiManager.NETWORK_STATE_CHANGED_ACTION.equals(action)) {
+                NetworkInfo networkInfo = intent.getParcelableExtra(WifiManager.EXTRA_NETWORK_INFO);
+                if (mScanIntervalGovernor != null && networkInfo != null
+                        && !networkInfo.isConnected()) {
+                    mScanIntervalGovernor.onConnectedRssiChanged(WifiInfo.INVALID_RSSI);
+                }
                 handleNetworkStateChangedAction(intent);
             } else if (WifiManager.RSSI_CHANGED_ACTION.equals(action)) {
-                handleRssiChangedAction(intent);
+                if (mScanIntervalGovernor != null) {
+                    mScanIntervalGovernor.onConnectedRssiChanged(intent.getIntExtra(
+                            WifiManager.EXTRA_NEW_RSSI, WifiInfo.INVALID_RSSI));
+                }
+                // Only registered for the governor otherwise, so skip the verbose summary update.
+                if (isVerboseLoggingEnabled()) {
+                    handleRssiChangedAction(intent);
+                }
             } else if (TelephonyManager.ACTION_DEFAULT_DATA_SUBSCRIPTION_CHANGED.equals(action)) {
+                if (mSubscriptionStateCache != null) {
+                    mSubscriptionStateCache.onDefaultDataSubscriptionChanged();
+                }
                 handleDefaultSubscriptionChanged(intent.getIntExtra(
                         "subscription", SubscriptionManager.INVALID_SUBSCRIPTION_ID));
+            } else if (CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED.equals(action)) {
+                if (mSubscriptionStateCache != null) {
+                    mSubscriptionStateCache.onCarrierConfigChanged();
+                }
+            } else if (DevicePolicyManager.ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED.equals(action)
+                    || UserManager.ACTION_USER_RESTRICTIONS_CHANGED.equals(action)) {
+                mAdminPolicySnapshot = null;
+                handleAdminPolicyChanged();
             }
         }
     };
@@ -167,11 +228,60 @@ public class BaseWifiTracker {
     protected final PowerManager mPowerManager;
     protected final Handler mMainHandler;
     protected final Handler mWorkerHandler;
+    // Elapsed realtime clock to compare with ScanResult timestamps.
+    protected final Clock mClock;
     protected final long mMaxScanAgeMillis;
     protected final long mScanIntervalMillis;
     protected final ScanResultUpdater mScanResultUpdater;
+    // Current primary Wi-Fi connection as seen by mNetworkCallback.
+    protected final ConnectivityStateStore mConnectivityStateStore;
+    // Subscription state shared with the WifiEntries, null if the injector doesn't provide one.
+    @Nullable protected final SubscriptionStateCache mSubscriptionStateCache;
+    private final SubscriptionManager.OnSubscriptionsChangedListener
+            mSubscriptionsChangedListener = new SubscriptionManager.OnSubscriptionsChangedListener() {
+                @Override
+                @WorkerThread
+                public void onSubscriptionsChanged() {
+                    if (mSubscriptionStateCache != null) {
+                        mSubscriptionStateCache.onSubscriptionsChanged();
+                    }
+                }
+            };
+    // Recent events of this tracker, formatted only when dumped.
+    protected final TrackerEventLog mEventLog = new TrackerEventLog(MAX_EVENT_LOG_SIZE);
+    // Durations of the phases of a scan results update.
+    protected final TrackerLatencyStats mLatencyStats = new TrackerLatencyStats();
+    // Admin policies shared by all WifiEntries until the next policy change broadcast.
+    @Nullable private AdminPolicySnapshot mAdminPolicySnapshot;
 
     protected static final long MAX_SCAN_AGE_FOR_FAILED_SCAN_MS = 5 * 60 * 1000;
+    private static final int MAX_EVENT_LOG_SIZE = 256;
+
+    // Trace section names, which must be constants so that tracing doesn't allocate.
+    private static final String TRACE_HANDLE_ON_START = "WifiTracker#handleOnStart";
+    private static final String TRACE_ON_RECEIVE = "WifiTracker#onReceive";
+    private static final String TRACE_HANDLE_WIFI_STATE_CHANGED =
+            "WifiTracker#handleWifiStateChangedAction";
+    private static final String TRACE_HANDLE_SCAN_RESULTS_AVAILABLE =
+            "WifiTracker#handleScanResultsAvailableAction";
+    private static final String TRACE_HANDLE_CONFIGURED_NETWORKS_CHANGED =
+            "WifiTracker#handleConfiguredNetworksChangedAction";
+    private static final String TRACE_HANDLE_NETWORK_STATE_CHANGED =
+            "WifiTracker#handleNetworkStateChangedAction";
+    private static final String TRACE_HANDLE_RSSI_CHANGED = "WifiTracker#handleRssiChangedAction";
+    private static final String TRACE_HANDLE_DEFAULT_SUBSCRIPTION_CHANGED =
+            "WifiTracker#handleDefaultSubscriptionChanged";
+    private static final String TRACE_HANDLE_CARRIER_CONFIG_CHANGED =
+            "WifiTracker#handleCarrierConfigChanged";
+    private static final String TRACE_HANDLE_ADMIN_POLICY_CHANGED =
+            "WifiTracker#handleAdminPolicyChanged";
+
+    // Delay for coalescing streamed full scan results of the first scan into one update.
+    private static final long PROGRESSIVE_SCAN_RESULTS_FLUSH_DELAY_MS = 300;
+    // Max number of partial updates per first scan before waiting for the complete results.
+    private static final int MAX_PROGRESSIVE_SCAN_RESULTS_FLUSHES = 3;
+    // Max number of channels in a targeted scan before it stops being cheaper than a full scan.
+    private static final int MAX_TARGETED_SCAN_CHANNELS = 8;
 
     @Nullable protected SharedConnectivityManager mSharedConnectivityManager = null;
 
@@ -193,6 +303,7 @@ public class BaseWifiTracker {
                 @WorkerThread
                 public void onLinkPropertiesChanged(@NonNull Network network,
                         @NonNull LinkProperties lp) {
+                    mConnectivityStateStore.onLinkPropertiesChanged(network, lp);
                     handleLinkPropertiesChanged(network, lp);
                 }
 
@@ -200,12 +311,14 @@ public class BaseWifiTracker {
                 @WorkerThread
                 public void onCapabilitiesChanged(@NonNull Network network,
                         @NonNull NetworkCapabilities networkCapabilities) {
+                    mConnectivityStateStore.onCapabilitiesChanged(network, networkCapabilities);
                     handleNetworkCapabilitiesChanged(network, networkCapabilities);
                 }
 
                 @Override
                 @WorkerThread
                 public void onLost(@NonNull Network network) {
+                    mConnectivityStateStore.onNetworkLost(network);
                     handleNetworkLost(network);
                 }
             };
@@ -255,45 +368,78 @@ public class BaseWifiTracker {
     @Nullable
     private SharedConnectivityClientCallback mSharedConnectivityCallback = null;
 
+    // Window in which SharedConnectivityClientCallback updates are coalesced, or 0 to apply each
+    // update immediately.
+    private volatile long mSharedConnectivityCoalescingWindowMillis = 0;
+    // Latest SharedConnectivityClientCallback payloads received within the coalescing window, or
+    // null if there is none. Must be accessed only by the worker thread.
+    @Nullable private List<HotspotNetwork> mPendingHotspotNetworks;
+    @Nullable private List<KnownNetwork> mPendingKnownNetworks;
+    @Nullable private SharedConnectivitySettingsState mPendingSharedConnectivitySettingsState;
+    private final Runnable mFlushSharedConnectivityUpdatesRunnable =
+            this::flushSharedConnectivityUpdates;
+
     @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
     @NonNull
     private SharedConnectivityClientCallback createSharedConnectivityCallback() {
         return new SharedConnectivityClientCallback() {
             @Override
             public void onHotspotNetworksUpdated(@NonNull List<HotspotNetwork> networks) {
-                handleHotspotNetworksUpdated(networks);
+                if (mSharedConnectivityCoalescingWindowMillis <= 0) {
+                    handleHotspotNetworksUpdated(networks);
+                    return;
+                }
+                mPendingHotspotNetworks = networks;
+                scheduleSharedConnectivityUpdatesFlush();
             }
 
             @Override
             public void onKnownNetworksUpdated(@NonNull List<KnownNetwork> networks) {
-                handleKnownNetworksUpdated(networks);
+                if (mSharedConnectivityCoalescingWindowMillis <= 0) {
+                    handleKnownNetworksUpdated(networks);
+                    return;
+                }
+                mPendingKnownNetworks = networks;
+                scheduleSharedConnectivityUpdatesFlush();
             }
 
             @Override
             public void onSharedConnectivitySettingsChanged(
                     @NonNull SharedConnectivitySettingsState state) {
-                handleSharedConnectivitySettingsChanged(state);
+                if (mSharedConnectivityCoalescingWindowMillis <= 0) {
+                    handleSharedConnectivitySettingsChanged(state);
+                    return;
+                }
+                mPendingSharedConnectivitySettingsState = state;
+                scheduleSharedConnectivityUpdatesFlush();
             }
 
             @Override
             public void onHotspotNetworkConnectionStatusChanged(
                     @NonNull HotspotNetworkConnectionStatus status) {
+                // Connection statuses report the result of a connect request, so they are never
+                // dropped. Apply the pending updates first to keep the events in order.
+                flushSharedConnectivityUpdates();
                 handleHotspotNetworkConnectionStatusChanged(status);
             }
 
             @Override
             public void onKnownNetworkConnectionStatusChanged(
                     @NonNull KnownNetworkConnectionStatus status) {
+                flushSharedConnectivityUpdates();
                 handleKnownNetworkConnectionStatusChanged(status);
             }
 
             @Override
             public void onServiceConnected() {
+                // The latest state is fetched from the service on connection.
+                clearPendingSharedConnectivityUpdates();
                 handleServiceConnected();
             }
 
             @Override
             public void onServiceDisconnected() {
+                clearPendingSharedConnectivityUpdates();
                 handleServiceDisconnected();
             }
 
@@ -304,6 +450,87 @@ public class BaseWifiTracker {
         };
     }
 
+    @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
+    @WorkerThread
+    private void scheduleSharedConnectivityUpdatesFlush() {
+        // The first update of a burst opens the window; later updates only replace the payload.
+        if (!mWorkerHandler.hasCallbacks(mFlushSharedConnectivityUpdatesRunnable)) {
+            mWorkerHandler.postDelayed(mFlushSharedConnectivityUpdatesRunnable,
+                    mSharedConnectivityCoalescingWindowMillis);
+        }
+    }
+
+    @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
+    @WorkerThread
+    private void flushSharedConnectivityUpdates() {
+        mWorkerHandler.removeCallbacks(mFlushSharedConnectivityUpdatesRunnable);
+        final List<HotspotNetwork> hotspotNetworks = mPendingHotspotNetworks;
+        final List<KnownNetwork> knownNetworks = mPendingKnownNetworks;
+        final SharedConnectivitySettingsState settingsState =
+                mPendingSharedConnectivitySettingsState;
+        clearPendingSharedConnectivityUpdates();
+        if (hotspotNetworks != null || knownNetworks != null) {
+            handleSharedConnectivityNetworksUpdated(hotspotNetworks, knownNetworks);
+        }
+        if (settingsState != null) {
+            handleSharedConnectivitySettingsChanged(settingsState);
+        }
+    }
+
+    @WorkerThread
+    private void clearPendingSharedConnectivityUpdates() {
+        mWorkerHandler.removeCallbacks(mFlushSharedConnectivityUpdatesRunnable);
+        mPendingHotspotNetworks = null;
+        mPendingKnownNetworks = null;
+        mPendingSharedConnectivitySettingsState = null;
+    }
+
+    private final WifiTrackerHub.Client mHubClient = new WifiTrackerHub.Client() {
+        @Override
+        @NonNull
+        public Handler getWorkerHandler() {
+            return mWorkerHandler;
+        }
+
+        @Override
+        @NonNull
+        public IntentFilter getIntentFilter() {
+            return mIntentFilter;
+        }
+
+        @Override
+        @NonNull
+        public BroadcastReceiver getBroadcastReceiver() {
+            return mBroadcastReceiver;
+        }
+
+        @Override
+        @NonNull
+        public ConnectivityManager.NetworkCallback getNetworkCallback() {
+            return mNetworkCallback;
+        }
+
+        @Override
+        @NonNull
+        public ConnectivityManager.NetworkCallback getDefaultNetworkCallback() {
+            return mDefaultNetworkCallback;
+        }
+
+        @Override
+        @NonNull
+        public ConnectivityDiagnosticsManager.ConnectivityDiagnosticsCallback
+                getConnectivityDiagnosticsCallback() {
+            return mConnectivityDiagnosticsCallback;
+        }
+
+        @Override
+        @Nullable
+        @SuppressLint("NewApi")
+        public SharedConnectivityClientCallback getSharedConnectivityCallback() {
+            return mSharedConnectivityManager != null ? mSharedConnectivityCallback : null;
+        }
+    };
+
     /**
      * Constructor for BaseWifiTracker.
      * @param injector Injector for commonly referenced objects.
@@ -341,6 +568,8 @@ public class BaseWifiTracker {
         mContext = context;
         mWifiManager = wifiManager;
         mConnectivityManager = connectivityManager;
+        mConnectivityStateStore = new ConnectivityStateStore(wifiManager, connectivityManager);
+        mSubscriptionStateCache = injector.getSubscriptionStateCache();
         mConnectivityDiagnosticsManager =
                 context.getSystemService(ConnectivityDiagnosticsManager.class);
         mPowerManager = context.getSystemService(PowerManager.class);
@@ -363,6 +592,7 @@ public class BaseWifiTracker {
         }
         mMainHandler = mainHandler;
         mWorkerHandler = workerHandler;
+        mClock = clock;
         mMaxScanAgeMillis = maxScanAgeMillis;
         mScanIntervalMillis = scanIntervalMillis;
         mListener = listener;
@@ -376,6 +606,118 @@ public class BaseWifiTracker {
         }
     }
 
+    /**
+     * Enables or disables progressive scan results for the first scan after starting.
+     *
+     * When enabled, full scan results streamed in by the first scan are added to the scan cache as
+     * they arrive and reported in a few coalesced partial updates, so that entries can be shown
+     * before the scan of all bands finishes.
+     */
+    @MainThread
+    public void setProgressiveScanResultsEnabled(boolean enabled) {
+        mIsProgressiveScanResultsEnabled = enabled;
+    }
+
+    /**
+     * Enables or disables targeted scans.
+     *
+     * When enabled, a scan of only the channels returned by {@link #getTargetedScanFrequencies()}
+     * is issued halfway between the periodic full scans, so that known networks stay fresh
+     * without the dwell time of scanning every channel.
+     */
+    @MainThread
+    public void setTargetedScansEnabled(boolean enabled) {
+        mIsTargetedScansEnabled = enabled;
+    }
+
+    /**
+     * Sets the window in which updates from the {@link SharedConnectivityClientCallback} are
+     * coalesced. Within the window, only the latest hotspot networks, known networks and settings
+     * are kept, and they are applied together at the end of the window. This avoids rebuilding
+     * the WifiEntries for each update of a burst from the companion service.
+     *
+     * @param windowMillis Coalescing window, or 0 to apply each update immediately.
+     */
+    @MainThread
+    public void setSharedConnectivityCoalescingWindowMillis(long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Invalid coalescing window: " + windowMillis);
+        }
+        mSharedConnectivityCoalescingWindowMillis = windowMillis;
+    }
+
+    /**
+     * Enables or disables the process-wide {@link WifiTrackerHub}.
+     *
+     * When enabled, this tracker attaches to the hub on start instead of registering its own
+     * broadcast receiver, network callbacks, connectivity diagnostics callback and shared
+     * connectivity callback. Scan results fetched by the hub are reused and scan requests are
+     * throttled across all trackers attached to the hub.
+     *
+     * This must be called before {@link #onStart()}.
+     */
+    @MainThread
+    public void setSharedHubEnabled(boolean enabled) {
+        mHub = enabled ? WifiTrackerHub.getInstance(mContext) : null;
+    }
+
+    /**
+     * Enables adaptive scan intervals within the given bounds instead of scanning at the fixed
+     * scan interval. The interval is lengthened while successive scans see a stable set of BSSIDs
+     * and RSSIs, and shortened when the scan results churn or the connected RSSI is weak.
+     *
+     * The max interval is clamped to the max scan age of this tracker, since scans older than
+     * that are dropped and the WifiEntries would disappear between two scans otherwise.
+     *
+     * This must be called before {@link #onStart()}.
+     *
+     * @param minIntervalMillis Interval used when the environment is changing. Must not exceed
+     *                          the max scan age.
+     * @param maxIntervalMillis Upper bound of the interval when the environment is stable.
+     * @throws IllegalArgumentException if the min interval is not positive, or exceeds the max
+     *                                  interval or the max scan age.
+     */
+    @MainThread
+    public void enableAdaptiveScanInterval(long minIntervalMillis, long maxIntervalMillis) {
+        mScanIntervalGovernor = new ScanIntervalGovernor(minIntervalMillis,
+                Math.min(maxIntervalMillis, mMaxScanAgeMillis));
+    }
+
+    /**
+     * Returns the ScanIntervalGovernor choosing the scan interval, which reports the current
+     * interval and the number of decisions made, or null if adaptive scan intervals are not
+     * enabled.
+     */
+    @AnyThread
+    @Nullable
+    public ScanIntervalGovernor getScanIntervalGovernor() {
+        return mScanIntervalGovernor;
+    }
+
+    /**
+     * Prints the state and the recent events of this tracker, e.g. for a bug report.
+     */
+    @AnyThread
+    public void dump(@NonNull PrintWriter pw) {
+        pw.println(mTag + ":");
+        pw.println("  WifiState: " + mWifiState);
+        if (mScanIntervalGovernor != null) {
+            pw.println("  ScanIntervalGovernor: " + mScanIntervalGovernor);
+        }
+        mLatencyStats.dump(pw);
+        mEventLog.dump(pw);
+    }
+
+    /**
+     * Returns a snapshot of the durations of the phases between receiving new scan results and
+     * delivering the updated WifiEntries, which is not affected by later updates.
+     */
+    @AnyThread
+    @NonNull
+    public TrackerLatencyStats getLatencyStats() {
+        return mLatencyStats.copy();
+    }
+
     /**
      * Disable the scanning mechanism permanently.
      */
@@ -419,25 +761,43 @@ public class BaseWifiTracker {
             }
             filter.addAction(WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION);
             filter.addAction(WifiManager.NETWORK_STATE_CHANGED_ACTION);
-            if (isVerboseLoggingEnabled()) {
+            if (isVerboseLoggingEnabled() || mScanIntervalGovernor != null) {
                 filter.addAction(WifiManager.RSSI_CHANGED_ACTION);
             }
             filter.addAction(TelephonyManager.ACTION_DEFAULT_DATA_SUBSCRIPTION_CHANGED);
+            filter.addAction(CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED);
+            filter.addAction(DevicePolicyManager.ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED);
+            filter.addAction(UserManager.ACTION_USER_RESTRICTIONS_CHANGED);
             filter.setPriority(IntentFilter.SYSTEM_HIGH_PRIORITY);
-            mContext.registerReceiver(mBroadcastReceiver, filter,
-                    /* broadcastPermission */ null, mWorkerHandler);
-            mConnectivityManager.registerNetworkCallback(mNetworkRequest, mNetworkCallback,
-                    mWorkerHandler);
-            mConnectivityManager.registerDefaultNetworkCallback(mDefaultNetworkCallback,
-                    mWorkerHandler);
-            mConnectivityDiagnosticsManager.registerConnectivityDiagnosticsCallback(mNetworkRequest,
-                    mConnectivityDiagnosticsExecutor, mConnectivityDiagnosticsCallback);
-            if (mSharedConnectivityManager != null && mSharedConnectivityCallback != null
-                    && BuildCompat.isAtLeastU()) {
-                mSharedConnectivityManager.registerCallback(mSharedConnectivityExecutor,
-                        mSharedConnectivityCallback);
+            mIntentFilter = filter;
+            mConnectivityStateStore.onStart();
+            registerSubscriptionsChangedListener();
+            // Policies may have changed while stopped.
+            mAdminPolicySnapshot = null;
+            if (mHub != null) {
+                mHub.attach(mHubClient);
+            } else {
+                mContext.registerReceiver(mBroadcastReceiver, filter,
+                        /* broadcastPermission */ null, mWorkerHandler);
+                mConnectivityManager.registerNetworkCallback(mNetworkRequest, mNetworkCallback,
+                        mWorkerHandler);
+                mConnectivityManager.registerDefaultNetworkCallback(mDefaultNetworkCallback,
+                        mWorkerHandler);
+                mConnectivityDiagnosticsManager.registerConnectivityDiagnosticsCallback(
+                        mNetworkRequest, mConnectivityDiagnosticsExecutor,
+                        mConnectivityDiagnosticsCallback);
+                if (mSharedConnectivityManager != null && mSharedConnectivityCallback != null
+                        && BuildCompat.isAtLeastU()) {
+                    mSharedConnectivityManager.registerCallback(mSharedConnectivityExecutor,
+                            mSharedConnectivityCallback);
+                }
+            }
+            Trace.beginSection(TRACE_HANDLE_ON_START);
+            try {
+                handleOnStart();
+            } finally {
+                Trace.endSection();
             }
-            handleOnStart();
             mIsInitialized = true;
         });
     }
@@ -459,6 +819,14 @@ public class BaseWifiTracker {
                         && mInjector.isAtLeastB()) {
                     mWifiManager.removeWifiStateChangedListener(mWifiStateChangedListener);
                 }
+                clearPendingSharedConnectivityUpdates();
+                mConnectivityStateStore.onStop();
+                unregisterSubscriptionsChangedListener();
+                if (mHub != null) {
+                    mHub.detach(mHubClient);
+                    handleOnStop();
+                    return;
+                }
                 mContext.unregisterReceiver(mBroadcastReceiver);
                 mConnectivityManager.unregisterNetworkCallback(mNetworkCallback);
                 mConnectivityManager.unregisterNetworkCallback(mDefaultNetworkCallback);
@@ -476,6 +844,7 @@ public class BaseWifiTracker {
             } catch (IllegalArgumentException e) {
                 // Already unregistered in onDestroyed().
             }
+            handleOnStop();
         });
     }
 
@@ -486,12 +855,17 @@ public class BaseWifiTracker {
     @MainThread
     @SuppressLint("NewApi")
     public void onDestroy() {
+        unregisterSubscriptionsChangedListener();
         try {
             if (mWifiStateChangedListener != null
                     && mInjector.isWifiStateChangedListenerEnabled()
                     && mInjector.isAtLeastB()) {
                 mWifiManager.removeWifiStateChangedListener(mWifiStateChangedListener);
             }
+            if (mHub != null) {
+                mHub.detach(mHubClient);
+                return;
+            }
             mContext.unregisterReceiver(mBroadcastReceiver);
             mConnectivityManager.unregisterNetworkCallback(mNetworkCallback);
             mConnectivityManager.unregisterNetworkCallback(mDefaultNetworkCallback);
@@ -511,6 +885,107 @@ public class BaseWifiTracker {
         }
     }
 
+    private void registerSubscriptionsChangedListener() {
+        final SubscriptionManager subscriptionManager =
+                mContext.getSystemService(SubscriptionManager.class);
+        if (mSubscriptionStateCache == null || subscriptionManager == null) {
+            return;
+        }
+        mSubscriptionStateCache.onStart();
+        subscriptionManager.addOnSubscriptionsChangedListener(mWorkerHandler::post,
+                mSubscriptionsChangedListener);
+    }
+
+    private void unregisterSubscriptionsChangedListener() {
+        final SubscriptionManager subscriptionManager =
+                mContext.getSystemService(SubscriptionManager.class);
+        if (mSubscriptionStateCache == null || subscriptionManager == null) {
+            return;
+        }
+        subscriptionManager.removeOnSubscriptionsChangedListener(mSubscriptionsChangedListener);
+        mSubscriptionStateCache.onStop();
+    }
+
+    /**
+     * Handles the current connection from the ConnectivityStateStore as if it was received from
+     * the NetworkCallback, e.g. to update the WifiEntries on start without waiting for the first
+     * callbacks.
+     */
+    @WorkerThread
+    protected void handleCurrentConnectionInfo() {
+        final ConnectivityStateStore.State state = mConnectivityStateStore.getState();
+        if (state.network == null) {
+            return;
+        }
+        if (state.networkCapabilities != null) {
+            handleNetworkCapabilitiesChanged(state.network, state.networkCapabilities);
+        }
+        if (state.linkProperties != null) {
+            handleLinkPropertiesChanged(state.network, state.linkProperties);
+        }
+    }
+
+    /**
+     * Returns the admin policies and user restrictions to evaluate WifiEntries with. The policies
+     * are fetched on first use and reused until they change.
+     */
+    @WorkerThread
+    @NonNull
+    protected AdminPolicySnapshot getAdminPolicySnapshot() {
+        if (mAdminPolicySnapshot == null) {
+            mAdminPolicySnapshot = new AdminPolicySnapshot(mContext,
+                    mInjector.getUserManager(), mInjector.getDevicePolicyManager());
+        }
+        return mAdminPolicySnapshot;
+    }
+
+    /**
+     * Returns the latest scan results, reusing the ones already fetched by the shared hub if it
+     * is enabled.
+     */
+    @AnyThread
+    protected List<ScanResult> fetchScanResults() {
+        final long startNanos = SystemClock.elapsedRealtimeNanos();
+        List<ScanResult> scanResults = mHub != null ? mHub.getScanResults() : null;
+        if (scanResults == null) {
+            scanResults = mWifiManager.getScanResults();
+        }
+        mLatencyStats.recordSince(TrackerLatencyStats.PHASE_FETCH_SCAN_RESULTS, startNanos);
+        mLatestFetchedScanResults = scanResults;
+        return scanResults;
+    }
+
+    /**
+     * Returns the trace section name for handling a broadcast with the given action.
+     */
+    @NonNull
+    private static String getTraceSectionName(@Nullable String action) {
+        if (action == null) {
+            return TRACE_ON_RECEIVE;
+        }
+        switch (action) {
+            case WifiManager.WIFI_STATE_CHANGED_ACTION:
+                return TRACE_HANDLE_WIFI_STATE_CHANGED;
+            case WifiManager.SCAN_RESULTS_AVAILABLE_ACTION:
+                return TRACE_HANDLE_SCAN_RESULTS_AVAILABLE;
+            case WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION:
+                return TRACE_HANDLE_CONFIGURED_NETWORKS_CHANGED;
+            case WifiManager.NETWORK_STATE_CHANGED_ACTION:
+                return TRACE_HANDLE_NETWORK_STATE_CHANGED;
+            case WifiManager.RSSI_CHANGED_ACTION:
+                return TRACE_HANDLE_RSSI_CHANGED;
+            case TelephonyManager.ACTION_DEFAULT_DATA_SUBSCRIPTION_CHANGED:
+                return TRACE_HANDLE_DEFAULT_SUBSCRIPTION_CHANGED;
+            case CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED:
+                return TRACE_HANDLE_CARRIER_CONFIG_CHANGED;
+            case DevicePolicyManager.ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED:
+            case UserManager.ACTION_USER_RESTRICTIONS_CHANGED:
+                return TRACE_HANDLE_ADMIN_POLICY_CHANGED;
+            default:
+                return TRACE_ON_RECEIVE;
+        }
+    }
+
     /**
      * Returns true if this WifiTracker has already been initialized in the worker thread via
      * handleOnStart()
@@ -543,6 +1018,15 @@ public class BaseWifiTracker {
         // Do nothing.
     }
 
+    /**
+     * Method to run on the worker thread when onStop is invoked, after the broadcast receiver and
+     * callbacks have been unregistered.
+     */
+    @WorkerThread
+    protected void handleOnStop() {
+        // Do nothing.
+    }
+
     /**
      * Handle receiving the WifiManager.WIFI_STATE_CHANGED_ACTION broadcast
      */
@@ -559,6 +1043,26 @@ public class BaseWifiTracker {
         // Do nothing.
     }
 
+    /**
+     * Returns the frequencies in MHz to include in targeted scans between full scans. Only called
+     * if targeted scans are enabled. Returning an empty set skips the targeted scan.
+     */
+    @WorkerThread
+    @NonNull
+    protected Set<Integer> getTargetedScanFrequencies() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Handle full scan results streamed in by the first scan before it has completed. The results
+     * are already populated in mScanResultUpdater. Only called if progressive scan results are
+     * enabled.
+     */
+    @WorkerThread
+    protected void handleScanResultsPartiallyAvailable() {
+        // Do nothing.
+    }
+
     /**
      * Handle receiving the WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION broadcast
      */
@@ -643,6 +1147,14 @@ public class BaseWifiTracker {
         // Do nothing.
     }
 
+    /**
+     * Handle changes to the device admin policies or user restrictions.
+     */
+    @WorkerThread
+    protected void handleAdminPolicyChanged() {
+        // Do nothing.
+    }
+
     /**
      * Handle updates to the list of tether networks from SharedConnectivityManager.
      */
@@ -661,6 +1173,26 @@ public class BaseWifiTracker {
         // Do nothing.
     }
 
+    /**
+     * Handle the hotspot networks and known networks coalesced within the shared connectivity
+     * coalescing window. Either list is null if it was not updated within the window.
+     *
+     * Subclasses that rebuild their WifiEntries for each update should override this to rebuild
+     * only once for both lists.
+     */
+    @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
+    @WorkerThread
+    protected void handleSharedConnectivityNetworksUpdated(
+            @Nullable List<HotspotNetwork> hotspotNetworks,
+            @Nullable List<KnownNetwork> knownNetworks) {
+        if (hotspotNetworks != null) {
+            handleHotspotNetworksUpdated(hotspotNetworks);
+        }
+        if (knownNetworks != null) {
+            handleKnownNetworksUpdated(knownNetworks);
+        }
+    }
+
     /**
      * Handle changes to the shared connectivity settings from SharedConnectivityManager.
      */
@@ -726,6 +1258,61 @@ public class BaseWifiTracker {
     private class Scanner extends Handler {
         private boolean mIsStartedState = false;
         private boolean mIsWifiEnabled = false;
+        // Full scan results of the first scan that have not been flushed to the scan cache yet.
+        private final List<ScanResult> mPendingFullScanResults = new ArrayList<>();
+        private final Runnable mFlushFullScanResultsRunnable = this::flushFullScanResults;
+        private boolean mIsFlushScheduled = false;
+        private int mNumFlushes = 0;
+        private final Runnable mTargetedScanRunnable = this::targetedScan;
+        private final WifiScanner.ScanListener mTargetedScanListener =
+                new WifiScanner.ScanListener() {
+            @Override
+            @MainThread
+            public void onPeriodChanged(int periodInMs) {
+                // No-op.
+            }
+
+            @Override
+            @MainThread
+            public void onResults(WifiScanner.ScanData[] results) {
+                mWorkerHandler.post(() -> {
+                    if (!shouldScan()) {
+                        return;
+                    }
+                    List<ScanResult> scanResults = new ArrayList<>();
+                    if (results != null) {
+                        for (WifiScanner.ScanData scanData : results) {
+                            scanResults.addAll(List.of(scanData.getResults()));
+                        }
+                    }
+                    mEventLog.record(TrackerEventLog.EVENT_SCAN_RESULTS_RECEIVED,
+                            "targeted scan", scanResults.size(), 0);
+                    mScanResultUpdater.update(scanResults);
+                    handleScanResultsAvailableAction(
+                            new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION)
+                                    .putExtra(WifiManager.EXTRA_RESULTS_UPDATED, true));
+                });
+            }
+
+            @Override
+            @MainThread
+            public void onFullResult(ScanResult fullScanResult) {
+                // No-op.
+            }
+
+            @Override
+            @MainThread
+            public void onSuccess() {
+                // No-op.
+            }
+
+            @Override
+            @MainThread
+            public void onFailure(int reason, String description) {
+                // The next full scan will pick up the networks anyway.
+                Log.e(mTag, "Targeted scan failed! Reason: " + reason);
+            }
+        };
         private final WifiScanner.ScanListener mFirstScanListener = new WifiScanner.ScanListener() {
             @Override
             @MainThread
@@ -743,6 +1330,7 @@ public class BaseWifiTracker {
                     if (isVerboseLoggingEnabled()) {
                         Log.v(mTag, "Received scan results from first scan request.");
                     }
+                    clearPendingFullScanResults();
                     List<ScanResult> scanResults = new ArrayList<>();
                     if (results != null) {
                         for (WifiScanner.ScanData scanData : results) {
@@ -763,7 +1351,20 @@ public class BaseWifiTracker {
             @Override
             @MainThread
             public void onFullResult(ScanResult fullScanResult) {
-                // No-op.
+                if (fullScanResult == null) {
+                    return;
+                }
+                mWorkerHandler.post(() -> {
+                    if (!mIsProgressiveScanResultsEnabled || !shouldScan()) {
+                        return;
+                    }
+                    mPendingFullScanResults.add(fullScanResult);
+                    if (!mIsFlushScheduled && mNumFlushes < MAX_PROGRESSIVE_SCAN_RESULTS_FLUSHES) {
+                        mIsFlushScheduled = true;
+                        postDelayed(mFlushFullScanResultsRunnable,
+                                PROGRESSIVE_SCAN_RESULTS_FLUSH_DELAY_MS);
+                    }
+                });
             }
 
             @Override
@@ -843,6 +1444,9 @@ public class BaseWifiTracker {
                 return;
             }
             Log.i(mTag, "Scanning started");
+            if (mScanIntervalGovernor != null) {
+                mScanIntervalGovernor.reset();
+            }
             if (BuildCompat.isAtLeastU()) {
                 // Start off with a fast scan of 2.4GHz, 5GHz, and 6GHz RNR using WifiScanner.
                 // After this is done, fall back to WifiManager.startScan() to get the rest of
@@ -856,10 +1460,16 @@ public class BaseWifiTracker {
                         | WifiScanner.REPORT_EVENT_AFTER_EACH_SCAN;
                 WifiScanner wifiScanner = mContext.getSystemService(WifiScanner.class);
                 if (wifiScanner != null) {
-                    wifiScanner.stopScan(mFirstScanListener);
-                    if (isVerboseLoggingEnabled()) {
-                        Log.v(mTag, "Issuing scan request from WifiScanner");
+                    if (mHub != null) {
+                        // WifiScanner only delivers the results to our listener, so don't skip
+                        // the first scan if another tracker just scanned. Record it instead so
+                        // that the other trackers can skip their next scan.
+                        mHub.noteScanRequested();
                     }
+                    wifiScanner.stopScan(mFirstScanListener);
+                    clearPendingFullScanResults();
+                    mNumFlushes = 0;
+                    mEventLog.record(TrackerEventLog.EVENT_SCAN_REQUESTED, "WifiScanner", -1, 0);
                     wifiScanner.startScan(scanSettings, mFirstScanListener);
                     notifyOnScanRequested();
                     return;
@@ -874,6 +1484,61 @@ public class BaseWifiTracker {
         private void stopScanning() {
             Log.i(mTag, "Scanning stopped");
             removeCallbacksAndMessages(null);
+            clearPendingFullScanResults();
+        }
+
+        /**
+         * Adds the pending full scan results of the first scan to the scan cache and reports them
+         * as a partial update.
+         */
+        @WorkerThread
+        private void flushFullScanResults() {
+            mIsFlushScheduled = false;
+            if (mPendingFullScanResults.isEmpty() || !shouldScan()) {
+                return;
+            }
+            mNumFlushes++;
+            mEventLog.record(TrackerEventLog.EVENT_SCAN_RESULTS_RECEIVED,
+                    "first scan full results", mPendingFullScanResults.size(), 0);
+            mScanResultUpdater.update(mPendingFullScanResults);
+            mPendingFullScanResults.clear();
+            handleScanResultsPartiallyAvailable();
+        }
+
+        /**
+         * Scans only the channels where known networks were recently seen.
+         */
+        @WorkerThread
+        private void targetedScan() {
+            if (!shouldScan() || !isAppVisible()) {
+                return;
+            }
+            final WifiScanner wifiScanner = mContext.getSystemService(WifiScanner.class);
+            if (wifiScanner == null) {
+                return;
+            }
+            final Set<Integer> frequencies = getTargetedScanFrequencies();
+            if (frequencies.isEmpty() || frequencies.size() > MAX_TARGETED_SCAN_CHANNELS) {
+                return;
+            }
+            WifiScanner.ScanSettings scanSettings = new WifiScanner.ScanSettings();
+            scanSettings.band = WifiScanner.WIFI_BAND_UNSPECIFIED;
+            scanSettings.channels = new WifiScanner.ChannelSpec[frequencies.size()];
+            int i = 0;
+            for (int frequency : frequencies) {
+                scanSettings.channels[i++] = new WifiScanner.ChannelSpec(frequency);
+            }
+            scanSettings.reportEvents = WifiScanner.REPORT_EVENT_AFTER_EACH_SCAN;
+            mEventLog.record(TrackerEventLog.EVENT_SCAN_REQUESTED, "targeted WifiScanner", -1, 0);
+            wifiScanner.stopScan(mTargetedScanListener);
+            wifiScanner.startScan(scanSettings, mTargetedScanListener);
+        }
+
+        @WorkerThread
+        private void clearPendingFullScanResults() {
+            removeCallbacks(mFlushFullScanResultsRunnable);
+            mIsFlushScheduled = false;
+            mPendingFullScanResults.clear();
         }
 
         @WorkerThread
@@ -892,14 +1557,24 @@ public class BaseWifiTracker {
                         + " PowerManager.isInteractive()=" + mPowerManager.isInteractive());
                 return;
             }
-            if (isVerboseLoggingEnabled()) {
-                Log.v(mTag, "Issuing scan request from WifiManager");
-            }
             // Remove any pending scanLoops in case possiblyStartScanning was called more than once.
             removeCallbacksAndMessages(null);
-            mWifiManager.startScan();
-            notifyOnScanRequested();
-            postDelayed(this::scanLoop, mScanIntervalMillis);
+            // The governor decides based on the results of the previous scan, since the results
+            // of this scan have not arrived yet.
+            final long scanIntervalMillis = mScanIntervalGovernor != null
+                    ? mScanIntervalGovernor.getIntervalMillis() : mScanIntervalMillis;
+            if (mHub == null || mHub.shouldRequestScan(scanIntervalMillis)) {
+                mWifiManager.startScan();
+                notifyOnScanRequested();
+                mEventLog.record(TrackerEventLog.EVENT_SCAN_REQUESTED, "WifiManager",
+                        scanIntervalMillis, 0);
+            } else {
+                mEventLog.record(TrackerEventLog.EVENT_SCAN_SKIPPED, null);
+            }
+            postDelayed(this::scanLoop, scanIntervalMillis);
+            if (mIsTargetedScansEnabled && BuildCompat.isAtLeastU()) {
+                postDelayed(mTargetedScanRunnable, scanIntervalMillis / 2);
+            }
         }
     }
 
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of WifiEntries by the connection info they can match, used to dispatch NetworkCallback
+ * updates only to the few entries they may apply to.
+ *
+ * Entries are indexed by SSID, by Passpoint FQDN, or as OSU entries according to their type.
+ * Entries that currently have a Network are also tracked, since an update for that Network must
+ * reach them even if the WifiInfo no longer matches. Must be accessed only by the worker thread.
+ */
+class ConnectionDispatchIndex {
+    private final Map<String, List<WifiEntry>> mEntriesBySsid = new ArrayMap<>();
+    private final Map<String, List<WifiEntry>> mEntriesByFqdn = new ArrayMap<>();
+    private final List<WifiEntry> mOsuEntries = new ArrayList<>();
+    private final Set<WifiEntry> mEntriesWithNetwork = new ArraySet<>();
+
+    /**
+     * Adds an entry to the index. NetworkRequestEntries and MergedCarrierEntries are ignored and
+     * must be dispatched to by the caller.
+     */
+    void add(@NonNull WifiEntry entry) {
+        if (!isIndexed(entry)) {
+            return;
+        }
+        if (entry instanceof PasspointWifiEntry) {
+            addToBucket(mEntriesByFqdn, ((PasspointWifiEntry) entry).getFqdn(), entry);
+        } else if (entry instanceof OsuWifiEntry) {
+            mOsuEntries.add(entry);
+        } else if (entry instanceof StandardWifiEntry) {
+            addToBucket(mEntriesBySsid, ((StandardWifiEntry) entry).getSsid(), entry);
+        } else if (entry instanceof HotspotNetworkEntry) {
+            final StandardWifiEntry.ScanResultKey scanResultKey =
+                    ((HotspotNetworkEntry) entry).getHotspotNetworkEntryKey().getScanResultKey();
+            if (scanResultKey != null) {
+                addToBucket(mEntriesBySsid, scanResultKey.getSsid(), entry);
+            }
+        }
+        if (entry.hasNetwork()) {
+            mEntriesWithNetwork.add(entry);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+        mEntriesBySsid.clear();
+        mEntriesByFqdn.clear();
+        mOsuEntries.clear();
+        mEntriesWithNetwork.clear();
+    }
+
+    /**
+     * Adds the indexed entries that may match the given WifiInfo to the given collection, along
+     * with every entry that currently has a Network.
+     *
+     * @return false if the WifiInfo cannot be looked up or matches no indexed entry, e.g. because
+     *         its SSID is redacted, in which case the caller should dispatch to every entry.
+     */
+    boolean getCandidates(@NonNull WifiInfo wifiInfo, @NonNull Collection<WifiEntry> out) {
+        final List<WifiEntry> candidates;
+        if (wifiInfo.isOsuAp()) {
+            candidates = mOsuEntries;
+        } else if (wifiInfo.isPasspointAp()) {
+            candidates = mEntriesByFqdn.get(wifiInfo.getPasspointFqdn());
+        } else {
+            final String ssid = WifiInfo.sanitizeSsid(wifiInfo.getSSID());
+            candidates = WifiManager.UNKNOWN_SSID.equals(ssid) ? null : mEntriesBySsid.get(ssid);
+        }
+        if (candidates == null || candidates.isEmpty()) {
+            return false;
+        }
+        out.addAll(candidates);
+        out.addAll(mEntriesWithNetwork);
+        return true;
+    }
+
+    /**
+     * Adds every indexed entry that currently has a Network to the given collection.
+     */
+    void getEntriesWithNetwork(@NonNull Collection<WifiEntry> out) {
+        out.addAll(mEntriesWithNetwork);
+    }
+
+    /**
+     * Updates whether the given entries have a Network after an update was dispatched to them.
+     */
+    void onDispatched(@NonNull Collection<WifiEntry> entries) {
+        for (WifiEntry entry : entries) {
+            if (!isIndexed(entry)) {
+                continue;
+            }
+            if (entry.hasNetwork()) {
+                mEntriesWithNetwork.add(entry);
+            } else {
+                mEntriesWithNetwork.remove(entry);
+            }
+        }
+    }
+
+    private static boolean isIndexed(@NonNull WifiEntry entry) {
+        if (entry instanceof NetworkRequestEntry) {
+            return false;
+        }
+        return entry instanceof StandardWifiEntry || entry instanceof PasspointWifiEntry
+                || entry instanceof OsuWifiEntry || entry instanceof HotspotNetworkEntry;
+    }
+
+    private static void addToBucket(@NonNull Map<String, List<WifiEntry>> buckets,
+            @Nullable String key, @NonNull WifiEntry entry) {
+        if (key == null) {
+            return;
+        }
+        List<WifiEntry> bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<>(1);
+            buckets.put(key, bucket);
+        }
+        bucket.add(entry);
+    }
+}
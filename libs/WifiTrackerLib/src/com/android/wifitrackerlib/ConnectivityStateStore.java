@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import android.net.ConnectivityManager;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Local copy of the current primary Wi-Fi network, its capabilities and its link properties.
+ *
+ * The store is kept up to date by the NetworkCallback of the owning tracker while it is started,
+ * so reading the current connection does not need any IPC. The first read after start fetches the
+ * connection from WifiManager and ConnectivityManager, as does every read while stopped since the
+ * callback is not registered then.
+ */
+class ConnectivityStateStore {
+    /**
+     * Snapshot of the current primary Wi-Fi connection.
+     */
+    static class State {
+        static final State EMPTY = new State(null, null, null);
+
+        @Nullable final Network network;
+        @Nullable final NetworkCapabilities networkCapabilities;
+        @Nullable final LinkProperties linkProperties;
+
+        State(@Nullable Network network, @Nullable NetworkCapabilities networkCapabilities,
+                @Nullable LinkProperties linkProperties) {
+            this.network = network;
+            this.networkCapabilities = networkCapabilities;
+            this.linkProperties = linkProperties;
+        }
+    }
+
+    @NonNull private final WifiManager mWifiManager;
+    @NonNull private final ConnectivityManager mConnectivityManager;
+
+    @GuardedBy("this")
+    @NonNull private State mState = State.EMPTY;
+    // Whether the NetworkCallback is registered.
+    @GuardedBy("this")
+    private boolean mIsStarted;
+    // Whether mState reflects the current connection, i.e. it has been fetched since onStart().
+    @GuardedBy("this")
+    private boolean mIsValid;
+    // Incremented on every change to mState, so a fetch racing with the NetworkCallback doesn't
+    // overwrite newer state.
+    @GuardedBy("this")
+    private int mVersion;
+
+    ConnectivityStateStore(@NonNull WifiManager wifiManager,
+            @NonNull ConnectivityManager connectivityManager) {
+        mWifiManager = wifiManager;
+        mConnectivityManager = connectivityManager;
+    }
+
+    /**
+     * Returns the current primary Wi-Fi connection, fetching it if the store is not valid.
+     */
+    @AnyThread
+    @NonNull
+    State getState() {
+        final int version;
+        synchronized (this) {
+            if (mIsValid) {
+                return mState;
+            }
+            version = mVersion;
+        }
+        final State fetchedState = fetchState();
+        synchronized (this) {
+            if (!mIsStarted) {
+                return fetchedState;
+            }
+            if (!mIsValid && version == mVersion) {
+                setState(fetchedState);
+            }
+            mIsValid = true;
+            return mState;
+        }
+    }
+
+    /**
+     * Updates the store with the capabilities of a Wi-Fi network from the NetworkCallback.
+     */
+    @AnyThread
+    synchronized void onCapabilitiesChanged(@NonNull Network network,
+            @NonNull NetworkCapabilities capabilities) {
+        final WifiInfo wifiInfo = Utils.getWifiInfo(capabilities);
+        if (wifiInfo != null && NonSdkApiWrapper.isPrimary(wifiInfo)) {
+            setState(new State(network, capabilities,
+                    network.equals(mState.network) ? mState.linkProperties : null));
+        } else if (network.equals(mState.network)) {
+            // The network is no longer primary, e.g. after make-before-break.
+            setState(State.EMPTY);
+        }
+    }
+
+    /**
+     * Updates the store with the link properties of a Wi-Fi network from the NetworkCallback.
+     */
+    @AnyThread
+    synchronized void onLinkPropertiesChanged(@NonNull Network network,
+            @Nullable LinkProperties linkProperties) {
+        if (network.equals(mState.network)) {
+            setState(new State(network, mState.networkCapabilities, linkProperties));
+        }
+    }
+
+    /**
+     * Updates the store with the loss of a Wi-Fi network from the NetworkCallback.
+     */
+    @AnyThread
+    synchronized void onNetworkLost(@NonNull Network network) {
+        if (network.equals(mState.network)) {
+            setState(State.EMPTY);
+        }
+    }
+
+    /**
+     * Starts caching the connection. This must be called before registering the NetworkCallback.
+     */
+    @AnyThread
+    synchronized void onStart() {
+        mIsStarted = true;
+    }
+
+    /**
+     * Clears the store and stops caching the connection. This must be called whenever the
+     * NetworkCallback is unregistered, since the store would miss updates afterwards.
+     */
+    @AnyThread
+    synchronized void onStop() {
+        setState(State.EMPTY);
+        mIsStarted = false;
+        mIsValid = false;
+    }
+
+    @GuardedBy("this")
+    private void setState(@NonNull State state) {
+        mState = state;
+        mVersion++;
+    }
+
+    @NonNull
+    private State fetchState() {
+        final Network network = mWifiManager.getCurrentNetwork();
+        if (network == null) {
+            return State.EMPTY;
+        }
+        NetworkCapabilities networkCapabilities =
+                mConnectivityManager.getNetworkCapabilities(network);
+        if (networkCapabilities != null) {
+            // getNetworkCapabilities(Network) obfuscates location info such as SSID and
+            // networkId, so we need to set the WifiInfo directly from WifiManager.
+            networkCapabilities = new NetworkCapabilities.Builder(networkCapabilities)
+                    .setTransportInfo(mWifiManager.getConnectionInfo())
+                    .build();
+        }
+        return new State(network, networkCapabilities,
+                mConnectivityManager.getLinkProperties(network));
+    }
+}
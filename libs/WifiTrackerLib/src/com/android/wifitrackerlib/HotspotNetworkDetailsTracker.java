@@ -21,9 +21,6 @@ import static com.android.wifitrackerlib.HotspotNetworkEntry.HotspotNetworkEntry
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.net.ConnectivityManager;
-import android.net.LinkProperties;
-import android.net.Network;
-import android.net.NetworkCapabilities;
 import android.net.wifi.WifiManager;
 import android.net.wifi.sharedconnectivity.app.HotspotNetwork;
 import android.net.wifi.sharedconnectivity.app.HotspotNetworkConnectionStatus;
@@ -168,21 +165,6 @@ public class HotspotNetworkDetailsTracker extends NetworkDetailsTracker {
     @WorkerThread
     private void updateStartInfo() {
         handleDefaultSubscriptionChanged(SubscriptionManager.getDefaultDataSubscriptionId());
-        Network currentNetwork = mWifiManager.getCurrentNetwork();
-        if (currentNetwork == null) return;
-        NetworkCapabilities networkCapabilities =
-                mConnectivityManager.getNetworkCapabilities(currentNetwork);
-        if (networkCapabilities != null) {
-            // getNetworkCapabilities(Network) obfuscates location info such as SSID and
-            // networkId, so we need to set the WifiInfo directly from WifiManager.
-            handleNetworkCapabilitiesChanged(currentNetwork,
-                    new NetworkCapabilities.Builder(networkCapabilities)
-                            .setTransportInfo(mWifiManager.getConnectionInfo())
-                            .build());
-        }
-        LinkProperties linkProperties = mConnectivityManager.getLinkProperties(currentNetwork);
-        if (linkProperties != null) {
-            handleLinkPropertiesChanged(currentNetwork, linkProperties);
-        }
+        handleCurrentConnectionInfo();
     }
 }
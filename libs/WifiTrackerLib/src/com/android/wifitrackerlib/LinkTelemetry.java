@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+
+/**
+ * Fixed-size history of samples of the connected link, e.g. for drawing live charts.
+ *
+ * Samples are stored in preallocated primitive ring buffers, so adding a sample or computing a
+ * summary does not allocate. Once full, each new sample overwrites the oldest one.
+ */
+public class LinkTelemetry {
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef(value = {
+            METRIC_RSSI,
+            METRIC_TX_LINK_SPEED_MBPS,
+            METRIC_RX_LINK_SPEED_MBPS,
+            METRIC_FREQUENCY_MHZ,
+    })
+    public @interface Metric {}
+
+    public static final int METRIC_RSSI = 0;
+    public static final int METRIC_TX_LINK_SPEED_MBPS = 1;
+    public static final int METRIC_RX_LINK_SPEED_MBPS = 2;
+    public static final int METRIC_FREQUENCY_MHZ = 3;
+    private static final int NUM_METRICS = 4;
+
+    private final int mCapacity;
+    private final long[] mTimestampsMillis;
+    private final int[][] mValues;
+    // Scratch buffer for computing percentiles.
+    private final int[] mSortBuffer;
+    // Index to write the next sample to.
+    private int mNextIndex;
+    private int mNumSamples;
+
+    /**
+     * Creates a LinkTelemetry holding up to the given number of samples.
+     */
+    public LinkTelemetry(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        mCapacity = capacity;
+        mTimestampsMillis = new long[capacity];
+        mValues = new int[NUM_METRICS][capacity];
+        mSortBuffer = new int[capacity];
+    }
+
+    /**
+     * Returns the max number of samples kept.
+     */
+    @AnyThread
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Returns the number of samples currently kept.
+     */
+    @AnyThread
+    public synchronized int getNumSamples() {
+        return mNumSamples;
+    }
+
+    /**
+     * Adds a sample, overwriting the oldest sample if full.
+     */
+    @AnyThread
+    public synchronized void addSample(long timestampMillis, int rssi, int txLinkSpeedMbps,
+            int rxLinkSpeedMbps, int frequencyMhz) {
+        mTimestampsMillis[mNextIndex] = timestampMillis;
+        mValues[METRIC_RSSI][mNextIndex] = rssi;
+        mValues[METRIC_TX_LINK_SPEED_MBPS][mNextIndex] = txLinkSpeedMbps;
+        mValues[METRIC_RX_LINK_SPEED_MBPS][mNextIndex] = rxLinkSpeedMbps;
+        mValues[METRIC_FREQUENCY_MHZ][mNextIndex] = frequencyMhz;
+        mNextIndex = (mNextIndex + 1) % mCapacity;
+        if (mNumSamples < mCapacity) {
+            mNumSamples++;
+        }
+    }
+
+    /**
+     * Removes all samples.
+     */
+    @AnyThread
+    public synchronized void clear() {
+        mNextIndex = 0;
+        mNumSamples = 0;
+    }
+
+    /**
+     * Copies the values of the given metric from oldest to newest into the given array, which must
+     * be able to hold {@link #getCapacity()} values.
+     *
+     * @return the number of values copied.
+     */
+    @AnyThread
+    public synchronized int getValues(@Metric int metric, @NonNull int[] out) {
+        final int[] values = mValues[metric];
+        final int start = getOldestIndex();
+        for (int i = 0; i < mNumSamples; i++) {
+            out[i] = values[(start + i) % mCapacity];
+        }
+        return mNumSamples;
+    }
+
+    /**
+     * Copies the sample timestamps from oldest to newest into the given array, which must be able
+     * to hold {@link #getCapacity()} values.
+     *
+     * @return the number of timestamps copied.
+     */
+    @AnyThread
+    public synchronized int getTimestampsMillis(@NonNull long[] out) {
+        final int start = getOldestIndex();
+        for (int i = 0; i < mNumSamples; i++) {
+            out[i] = mTimestampsMillis[(start + i) % mCapacity];
+        }
+        return mNumSamples;
+    }
+
+    /**
+     * Returns the min value of the given metric, or 0 if there are no samples.
+     */
+    @AnyThread
+    public synchronized int getMin(@Metric int metric) {
+        if (mNumSamples == 0) {
+            return 0;
+        }
+        final int[] values = mValues[metric];
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < mNumSamples; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the max value of the given metric, or 0 if there are no samples.
+     */
+    @AnyThread
+    public synchronized int getMax(@Metric int metric) {
+        if (mNumSamples == 0) {
+            return 0;
+        }
+        final int[] values = mValues[metric];
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < mNumSamples; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the given percentile of the given metric using the nearest-rank method, or 0 if
+     * there are no samples.
+     *
+     * @param percentile Percentile in the range [0, 100].
+     */
+    @AnyThread
+    public synchronized int getPercentile(@Metric int metric, int percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        if (mNumSamples == 0) {
+            return 0;
+        }
+        System.arraycopy(mValues[metric], 0, mSortBuffer, 0, mNumSamples);
+        Arrays.sort(mSortBuffer, 0, mNumSamples);
+        final int rank = (int) Math.ceil(percentile / 100.0 * mNumSamples);
+        return mSortBuffer[Math.max(rank - 1, 0)];
+    }
+
+    private int getOldestIndex() {
+        return mNumSamples < mCapacity ? 0 : mNextIndex;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LinkTelemetry{samples=" + mNumSamples + "/" + mCapacity
+                + ", rssi=[" + getMin(METRIC_RSSI) + ", " + getMax(METRIC_RSSI) + "]"
+                + ", txLinkSpeedMbps=[" + getMin(METRIC_TX_LINK_SPEED_MBPS) + ", "
+                + getMax(METRIC_TX_LINK_SPEED_MBPS) + "]"
+                + ", rxLinkSpeedMbps=[" + getMin(METRIC_RX_LINK_SPEED_MBPS) + ", "
+                + getMax(METRIC_RX_LINK_SPEED_MBPS) + "]}";
+    }
+}
@@ -84,6 +84,42 @@ public abstract class NetworkDetailsTracker extends BaseWifiTracker {
                 key);
     }
 
+    /**
+     * Creates a concrete implementation of a NetworkDetailsTracker for the given WifiEntry, e.g.
+     * one obtained from a {@link WifiPickerTracker}. If supported for the type of WifiEntry, the
+     * tracked WifiEntry is seeded with the state of the given WifiEntry instead of fetching it
+     * again, so that the details can be shown immediately. Only the updates received after
+     * starting are applied on top of the seeded state.
+     *
+     * @param seedEntry           WifiEntry to be tracked and to seed the tracked WifiEntry from.
+     * @see #createNetworkDetailsTracker(Lifecycle, Context, WifiManager, ConnectivityManager,
+     *      Handler, Handler, Clock, long, long, String)
+     */
+    public static NetworkDetailsTracker createNetworkDetailsTracker(@NonNull Lifecycle lifecycle,
+            @NonNull Context context,
+            @NonNull WifiManager wifiManager,
+            @NonNull ConnectivityManager connectivityManager,
+            @NonNull Handler mainHandler,
+            @NonNull Handler workerHandler,
+            @NonNull Clock clock,
+            long maxScanAgeMillis,
+            long scanIntervalMillis,
+            @NonNull WifiEntry seedEntry) {
+        return createNetworkDetailsTracker(
+                new WifiTrackerInjector(context),
+                lifecycle,
+                context,
+                wifiManager,
+                connectivityManager,
+                mainHandler,
+                workerHandler,
+                clock,
+                maxScanAgeMillis,
+                scanIntervalMillis,
+                seedEntry.getKey(),
+                seedEntry);
+    }
+
     @VisibleForTesting
     static NetworkDetailsTracker createNetworkDetailsTracker(
             @NonNull WifiTrackerInjector injector,
@@ -97,10 +133,29 @@ public abstract class NetworkDetailsTracker extends BaseWifiTracker {
             long maxScanAgeMillis,
             long scanIntervalMillis,
             String key) {
+        return createNetworkDetailsTracker(injector, lifecycle, context, wifiManager,
+                connectivityManager, mainHandler, workerHandler, clock, maxScanAgeMillis,
+                scanIntervalMillis, key, null /* seedEntry */);
+    }
+
+    @VisibleForTesting
+    static NetworkDetailsTracker createNetworkDetailsTracker(
+            @NonNull WifiTrackerInjector injector,
+            @NonNull Lifecycle lifecycle,
+            @NonNull Context context,
+            @NonNull WifiManager wifiManager,
+            @NonNull ConnectivityManager connectivityManager,
+            @NonNull Handler mainHandler,
+            @NonNull Handler workerHandler,
+            @NonNull Clock clock,
+            long maxScanAgeMillis,
+            long scanIntervalMillis,
+            String key,
+            @Nullable WifiEntry seedEntry) {
         if (key.startsWith(StandardWifiEntry.KEY_PREFIX)) {
             return new StandardNetworkDetailsTracker(injector, lifecycle, context, wifiManager,
                     connectivityManager, mainHandler, workerHandler, clock,
-                    maxScanAgeMillis, scanIntervalMillis, key);
+                    maxScanAgeMillis, scanIntervalMillis, key, seedEntry);
         } else if (key.startsWith(PasspointWifiEntry.KEY_PREFIX)) {
             return new PasspointNetworkDetailsTracker(injector, lifecycle, context, wifiManager,
                     connectivityManager, mainHandler, workerHandler, clock,
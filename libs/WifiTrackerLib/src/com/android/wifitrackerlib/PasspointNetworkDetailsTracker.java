@@ -24,9 +24,6 @@ import static com.android.wifitrackerlib.WifiEntry.WIFI_LEVEL_UNREACHABLE;
 import android.content.Context;
 import android.content.Intent;
 import android.net.ConnectivityManager;
-import android.net.LinkProperties;
-import android.net.Network;
-import android.net.NetworkCapabilities;
 import android.net.wifi.ScanResult;
 import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiManager;
@@ -162,23 +159,7 @@ public class PasspointNetworkDetailsTracker extends NetworkDetailsTracker {
         // the stopped state, but don't notify the listener to avoid flicker from disconnected ->
         // connected in case the network is still the same.
         mChosenEntry.clearConnectionInfo(false);
-        Network currentNetwork = mWifiManager.getCurrentNetwork();
-        if (currentNetwork != null) {
-            NetworkCapabilities networkCapabilities =
-                    mConnectivityManager.getNetworkCapabilities(currentNetwork);
-            if (networkCapabilities != null) {
-                // getNetworkCapabilities(Network) obfuscates location info such as SSID and
-                // networkId, so we need to set the WifiInfo directly from WifiManager.
-                handleNetworkCapabilitiesChanged(currentNetwork,
-                        new NetworkCapabilities.Builder(networkCapabilities)
-                                .setTransportInfo(mWifiManager.getConnectionInfo())
-                                .build());
-            }
-            LinkProperties linkProperties = mConnectivityManager.getLinkProperties(currentNetwork);
-            if (linkProperties != null) {
-                handleLinkPropertiesChanged(currentNetwork, linkProperties);
-            }
-        }
+        handleCurrentConnectionInfo();
     }
 
     @WorkerThread
@@ -284,6 +265,6 @@ public class PasspointNetworkDetailsTracker extends NetworkDetailsTracker {
      * Updates ScanResultUpdater with new ScanResults.
      */
     private void cacheNewScanResults() {
-        mScanResultUpdater.update(mWifiManager.getScanResults());
+        mScanResultUpdater.update(fetchScanResults());
     }
 }
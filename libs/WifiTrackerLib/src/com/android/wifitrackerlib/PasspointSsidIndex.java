@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the UTF-8 SSIDs of the home and roaming scans of PasspointWifiEntries.
+ *
+ * Entries added with {@link PasspointWifiEntry#setSsidIndex} update the index themselves when
+ * their scans change in {@link PasspointWifiEntry#updateScanResultInfo}, so checking whether an
+ * SSID is covered by Passpoint is a lookup instead of collecting the SSIDs of every entry on
+ * every update.
+ */
+class PasspointSsidIndex {
+    private final Map<String, Set<PasspointWifiEntry>> mEntriesBySsid = new ArrayMap<>();
+
+    /**
+     * Returns whether the given SSID is seen in the scans of any indexed PasspointWifiEntry.
+     */
+    synchronized boolean contains(@Nullable String ssid) {
+        return mEntriesBySsid.containsKey(ssid);
+    }
+
+    /**
+     * Moves the given entry from its previous SSIDs to its current SSIDs.
+     */
+    synchronized void update(@NonNull PasspointWifiEntry entry,
+            @NonNull Set<String> previousSsids, @NonNull Set<String> currentSsids) {
+        for (String ssid : previousSsids) {
+            if (!currentSsids.contains(ssid)) {
+                removeEntryForSsid(entry, ssid);
+            }
+        }
+        for (String ssid : currentSsids) {
+            Set<PasspointWifiEntry> entries = mEntriesBySsid.get(ssid);
+            if (entries == null) {
+                entries = new ArraySet<>();
+                mEntriesBySsid.put(ssid, entries);
+            }
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    synchronized void clear() {
+        mEntriesBySsid.clear();
+    }
+
+    private void removeEntryForSsid(@NonNull PasspointWifiEntry entry, @NonNull String ssid) {
+        final Set<PasspointWifiEntry> entries = mEntriesBySsid.get(ssid);
+        if (entries == null) {
+            return;
+        }
+        entries.remove(entry);
+        if (entries.isEmpty()) {
+            mEntriesBySsid.remove(ssid);
+        }
+    }
+}
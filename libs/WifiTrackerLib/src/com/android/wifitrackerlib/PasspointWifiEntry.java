@@ -68,6 +68,9 @@ public class PasspointWifiEntry extends WifiEntry implements WifiEntry.WifiEntry
 
     private final List<ScanResult> mCurrentHomeScanResults = new ArrayList<>();
     private final List<ScanResult> mCurrentRoamingScanResults = new ArrayList<>();
+    // UTF-8 SSIDs of the current home and roaming scans, rebuilt only when the scans change.
+    @NonNull private Set<String> mAllUtf8Ssids = Collections.emptySet();
+    @Nullable private PasspointSsidIndex mSsidIndex;
 
     @NonNull private final String mKey;
     @NonNull private final String mUniqueId;
@@ -192,7 +195,7 @@ public class PasspointWifiEntry extends WifiEntry implements WifiEntry.WifiEntry
                         connectedStateDescription = null;
                         break;
                     }
-                    connectedStateDescription = getConnectedDescription(mContext,
+                    connectedStateDescription = getConnectedDescription(mInjector, mContext,
                             mWifiConfig,
                             mNetworkCapabilities,
                             mWifiInfo,
@@ -244,14 +247,21 @@ public class PasspointWifiEntry extends WifiEntry implements WifiEntry.WifiEntry
     }
 
     synchronized Set<String> getAllUtf8Ssids() {
-        Set<String> allSsids = new ArraySet<>();
-        for (ScanResult scan : mCurrentHomeScanResults) {
-            allSsids.add(scan.SSID);
+        return Collections.unmodifiableSet(mAllUtf8Ssids);
+    }
+
+    /**
+     * Sets the index to keep updated with the SSIDs of this entry's scans, or null to remove this
+     * entry from the current index.
+     */
+    synchronized void setSsidIndex(@Nullable PasspointSsidIndex ssidIndex) {
+        if (mSsidIndex != null) {
+            mSsidIndex.update(this, mAllUtf8Ssids, Collections.emptySet());
         }
-        for (ScanResult scan : mCurrentRoamingScanResults) {
-            allSsids.add(scan.SSID);
+        mSsidIndex = ssidIndex;
+        if (mSsidIndex != null) {
+            mSsidIndex.update(this, Collections.emptySet(), mAllUtf8Ssids);
         }
-        return allSsids;
     }
 
     @Override
@@ -527,6 +537,7 @@ public class PasspointWifiEntry extends WifiEntry implements WifiEntry.WifiEntry
         if (roamingScanResults != null) {
             mCurrentRoamingScanResults.addAll(roamingScanResults);
         }
+        updateAllUtf8Ssids();
         if (mWifiConfig != null) {
             List<ScanResult> currentScanResults = new ArrayList<>();
             if (homeScanResults != null && !homeScanResults.isEmpty()) {
@@ -549,6 +560,23 @@ public class PasspointWifiEntry extends WifiEntry implements WifiEntry.WifiEntry
         notifyOnUpdated();
     }
 
+    private synchronized void updateAllUtf8Ssids() {
+        final Set<String> allSsids = new ArraySet<>();
+        for (ScanResult scan : mCurrentHomeScanResults) {
+            allSsids.add(scan.SSID);
+        }
+        for (ScanResult scan : mCurrentRoamingScanResults) {
+            allSsids.add(scan.SSID);
+        }
+        if (allSsids.equals(mAllUtf8Ssids)) {
+            return;
+        }
+        if (mSsidIndex != null) {
+            mSsidIndex.update(this, mAllUtf8Ssids, allSsids);
+        }
+        mAllUtf8Ssids = allSsids;
+    }
+
     @Override
     protected synchronized void updateSecurityTypes() {
         if (mWifiInfo != null) {
@@ -560,6 +588,14 @@ public class PasspointWifiEntry extends WifiEntry implements WifiEntry.WifiEntry
         }
     }
 
+    /**
+     * Returns the FQDN of the Passpoint configuration of this entry.
+     */
+    @NonNull
+    String getFqdn() {
+        return mFqdn;
+    }
+
     @WorkerThread
     @Override
     protected boolean connectionInfoMatches(@NonNull WifiInfo wifiInfo) {
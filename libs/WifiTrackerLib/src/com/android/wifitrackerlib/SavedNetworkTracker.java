@@ -41,6 +41,7 @@ import android.net.wifi.hotspot2.PasspointConfiguration;
 import android.os.Handler;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 import android.util.Pair;
 
@@ -53,15 +54,19 @@ import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import androidx.lifecycle.Lifecycle;
 
+import java.io.PrintWriter;
 import java.time.Clock;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -75,6 +80,17 @@ public class SavedNetworkTracker extends BaseWifiTracker {
 
     private static final String TAG = "SavedNetworkTracker";
 
+    // Time to wait for the CONFIGURED_NETWORKS_CHANGED_ACTION broadcasts of a bulk operation to
+    // settle before reconciling. Each suppressed broadcast restarts the wait, up to the max.
+    private static final long BULK_OPERATION_SETTLE_MILLIS = 500;
+    private static final long BULK_OPERATION_MAX_SETTLE_MILLIS = 3000;
+
+    // Order of the saved network index: title ignoring case, then WifiEntry key.
+    private static final Comparator<Pair<String, String>> SAVED_WIFI_ENTRY_INDEX_ORDER =
+            Comparator.comparing((Pair<String, String> titleAndKey) -> titleAndKey.first,
+                    String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(titleAndKey -> titleAndKey.second);
+
     private final SavedNetworkTrackerCallback mListener;
 
     // Lock object for data returned by the public API
@@ -82,12 +98,34 @@ public class SavedNetworkTracker extends BaseWifiTracker {
 
     @GuardedBy("mLock") private final List<WifiEntry> mSavedWifiEntries = new ArrayList<>();
     @GuardedBy("mLock") private final List<WifiEntry> mSubscriptionWifiEntries = new ArrayList<>();
+    // Saved StandardWifiEntries mapped by (title, key) in SAVED_WIFI_ENTRY_INDEX_ORDER, maintained
+    // incrementally for querySavedWifiEntries().
+    @GuardedBy("mLock") private final TreeMap<Pair<String, String>, WifiEntry>
+            mSavedWifiEntryIndex = new TreeMap<>(SAVED_WIFI_ENTRY_INDEX_ORDER);
+    // Index keys of mSavedWifiEntryIndex mapped by WifiEntry key.
+    @GuardedBy("mLock") private final Map<String, Pair<String, String>> mSavedWifiEntryIndexKeys =
+            new ArrayMap<>();
+    // SSIDs of the saved networks requiring a certificate, mapped by certificate alias. Null while
+    // stopped, since CONFIGURED_NETWORKS_CHANGED_ACTION is not received then. Suggestions aren't
+    // indexed since changes to them don't send that broadcast.
+    @GuardedBy("mLock") @Nullable private Map<String, Set<String>> mCertificateRequesterSsids;
 
     // Cache containing saved StandardWifiEntries. Must be accessed only by the worker thread.
     private final List<StandardWifiEntry> mStandardWifiEntryCache = new ArrayList<>();
     // Cache containing saved PasspointWifiEntries. Must be accessed only by the worker thread.
     private final Map<String, PasspointWifiEntry> mPasspointWifiEntryCache = new ArrayMap<>();
 
+    // Number of bulk operations that have not reconciled yet. Must be accessed only by the worker
+    // thread.
+    private int mNumPendingBulkOperations = 0;
+    // Whether a CONFIGURED_NETWORKS_CHANGED_ACTION was suppressed during a bulk operation.
+    private boolean mHasSuppressedConfigChange = false;
+    // Time of mClock at which the current bulk operation finished issuing its changes.
+    private long mBulkOperationEndMillis;
+    // Callbacks of the bulk operations waiting for the reconciliation.
+    private final List<Runnable> mPendingBulkOperationCallbacks = new ArrayList<>();
+    private final Runnable mReconcileBulkOperationsRunnable = this::reconcileBulkOperations;
+
     public SavedNetworkTracker(@NonNull Lifecycle lifecycle, @NonNull Context context,
             @NonNull WifiManager wifiManager,
             @NonNull ConnectivityManager connectivityManager,
@@ -133,6 +171,138 @@ public class SavedNetworkTracker extends BaseWifiTracker {
         }
     }
 
+    /**
+     * Returns a page of the saved networks matching the query, sorted by title ignoring case.
+     *
+     * Unlike {@link #getSavedWifiEntries()}, this does not copy or sort the full list of saved
+     * networks, and is meant for displaying a large number of saved networks page by page.
+     */
+    @AnyThread
+    @NonNull
+    public SavedNetworkPage querySavedWifiEntries(@NonNull SavedNetworkQuery query) {
+        checkNotNull(query, "Query cannot be null!");
+        final List<WifiEntry> entries = new ArrayList<>();
+        int totalCount = 0;
+        synchronized (mLock) {
+            final String prefix = query.mTitlePrefix;
+            final Map<Pair<String, String>, WifiEntry> range = TextUtils.isEmpty(prefix)
+                    ? mSavedWifiEntryIndex
+                    : mSavedWifiEntryIndex.tailMap(Pair.create(prefix, ""), true);
+            for (Map.Entry<Pair<String, String>, WifiEntry> indexEntry : range.entrySet()) {
+                if (!TextUtils.isEmpty(prefix) && !indexEntry.getKey().first.regionMatches(
+                        true /* ignoreCase */, 0, prefix, 0, prefix.length())) {
+                    // Titles past the prefix range.
+                    break;
+                }
+                final WifiEntry entry = indexEntry.getValue();
+                if (!query.matches(entry)) {
+                    continue;
+                }
+                if (totalCount >= query.mOffset && entries.size() < query.mLimit) {
+                    entries.add(entry);
+                }
+                totalCount++;
+            }
+        }
+        return new SavedNetworkPage(entries, totalCount);
+    }
+
+    /**
+     * Forgets all of the given entries that can be forgotten, rebuilding the saved network lists
+     * only once after the resulting config changes have settled.
+     */
+    @AnyThread
+    public void forget(@NonNull List<WifiEntry> entries,
+            @Nullable BulkOperationCallback callback) {
+        runBulkOperation(entries, WifiEntry::canForget, entry -> entry.forget(null), callback);
+    }
+
+    /**
+     * Sets the metered choice of all of the given entries that support it, rebuilding the saved
+     * network lists only once after the resulting config changes have settled.
+     */
+    @AnyThread
+    public void setMeteredChoice(@NonNull List<WifiEntry> entries,
+            @WifiEntry.MeteredChoice int meteredChoice,
+            @Nullable BulkOperationCallback callback) {
+        runBulkOperation(entries, WifiEntry::canSetMeteredChoice,
+                entry -> entry.setMeteredChoice(meteredChoice), callback);
+    }
+
+    /**
+     * Sets the privacy setting of all of the given entries that support it, rebuilding the saved
+     * network lists only once after the resulting config changes have settled.
+     */
+    @AnyThread
+    public void setPrivacy(@NonNull List<WifiEntry> entries, @WifiEntry.Privacy int privacy,
+            @Nullable BulkOperationCallback callback) {
+        runBulkOperation(entries, WifiEntry::canSetPrivacy,
+                entry -> entry.setPrivacy(privacy), callback);
+    }
+
+    /**
+     * Enables or disables auto-join for all of the given entries that support it, rebuilding the
+     * saved network lists only once after the resulting config changes have settled.
+     */
+    @AnyThread
+    public void setAutoJoinEnabled(@NonNull List<WifiEntry> entries, boolean enabled,
+            @Nullable BulkOperationCallback callback) {
+        runBulkOperation(entries, WifiEntry::canSetAutoJoinEnabled,
+                entry -> entry.setAutoJoinEnabled(enabled), callback);
+    }
+
+    /**
+     * Applies the operation to the entries on the worker thread while suppressing the rebuilds
+     * for CONFIGURED_NETWORKS_CHANGED_ACTION, then reconciles once the broadcasts have settled.
+     */
+    @AnyThread
+    private void runBulkOperation(@NonNull List<WifiEntry> entries,
+            @NonNull Predicate<WifiEntry> canApply, @NonNull Consumer<WifiEntry> operation,
+            @Nullable BulkOperationCallback callback) {
+        checkNotNull(entries, "Entry list cannot be null!");
+        final List<WifiEntry> entriesCopy = new ArrayList<>(entries);
+        mWorkerHandler.post(() -> {
+            mNumPendingBulkOperations++;
+            int numApplied = 0;
+            for (WifiEntry entry : entriesCopy) {
+                if (canApply.test(entry)) {
+                    operation.accept(entry);
+                    numApplied++;
+                }
+            }
+            if (isVerboseLoggingEnabled()) {
+                Log.v(TAG, "Bulk operation applied to " + numApplied + " of "
+                        + entriesCopy.size() + " entries");
+            }
+            if (callback != null) {
+                final int numAppliedFinal = numApplied;
+                mPendingBulkOperationCallbacks.add(
+                        () -> callback.onBulkOperationCompleted(numAppliedFinal));
+            }
+            mBulkOperationEndMillis = mClock.millis();
+            mWorkerHandler.removeCallbacks(mReconcileBulkOperationsRunnable);
+            mWorkerHandler.postDelayed(mReconcileBulkOperationsRunnable,
+                    BULK_OPERATION_SETTLE_MILLIS);
+        });
+    }
+
+    /**
+     * Rebuilds the saved network lists once for all config changes suppressed during the bulk
+     * operations, then notifies the callbacks.
+     */
+    @WorkerThread
+    private void reconcileBulkOperations() {
+        mNumPendingBulkOperations = 0;
+        if (mHasSuppressedConfigChange) {
+            mHasSuppressedConfigChange = false;
+            processConfiguredNetworksChanged();
+        }
+        for (Runnable callback : mPendingBulkOperationCallbacks) {
+            mMainHandler.post(callback);
+        }
+        mPendingBulkOperationCallbacks.clear();
+    }
+
     /**
      * Returns a list of WifiEntries for all saved subscriptions. If a subscription network is in
      * range, the corresponding WifiEntry will be updated with live ScanResult data.
@@ -146,6 +316,26 @@ public class SavedNetworkTracker extends BaseWifiTracker {
         }
     }
 
+    /**
+     * Prints the state and recent events of the tracker, followed by the current saved and
+     * subscription WifiEntries.
+     */
+    @Override
+    @AnyThread
+    public void dump(@NonNull PrintWriter pw) {
+        super.dump(pw);
+        synchronized (mLock) {
+            pw.println("  SavedWifiEntries (" + mSavedWifiEntries.size() + "):");
+            for (WifiEntry entry : mSavedWifiEntries) {
+                pw.println("    " + entry);
+            }
+            pw.println("  SubscriptionWifiEntries (" + mSubscriptionWifiEntries.size() + "):");
+            for (WifiEntry entry : mSubscriptionWifiEntries) {
+                pw.println("    " + entry);
+            }
+        }
+    }
+
     /** Check whether or not CA certificate is set.
      *
      * WifiEnterpriseConfig::hasCaCertificate() is only available
@@ -161,28 +351,36 @@ public class SavedNetworkTracker extends BaseWifiTracker {
     private static boolean isCertificateUsedByConfiguration(
             WifiConfiguration config, String certAlias) {
         if (TextUtils.isEmpty(certAlias)) return false;
-        if (config == null) return false;
-        if (config.enterpriseConfig == null) return false;
+        return getCertificateAliases(config).contains(certAlias);
+    }
+
+    /**
+     * Returns the CA and client certificate aliases required by the configuration.
+     */
+    @NonNull
+    private static Set<String> getCertificateAliases(WifiConfiguration config) {
+        if (config == null) return Collections.emptySet();
+        if (config.enterpriseConfig == null) return Collections.emptySet();
         WifiEnterpriseConfig ec = config.enterpriseConfig;
-        if (!ec.isEapMethodServerCertUsed()) return false;
+        if (!ec.isEapMethodServerCertUsed()) return Collections.emptySet();
         if (!hasCaCertificate(ec) && TextUtils.isEmpty(ec.getClientCertificateAlias())) {
-            return false;
+            return Collections.emptySet();
         }
 
+        Set<String> certAliases = new ArraySet<>();
         String[] aliases = ec.getCaCertificateAliases();
         if (aliases != null) {
             for (String s: aliases) {
-                if (!TextUtils.isEmpty(s) && certAlias.equals(s)) {
-                    return true;
+                if (!TextUtils.isEmpty(s)) {
+                    certAliases.add(s);
                 }
             }
         }
         String clientAlias = ec.getClientCertificateAlias();
-        if (!TextUtils.isEmpty(clientAlias)
-                && certAlias.equals(clientAlias)) {
-            return true;
+        if (!TextUtils.isEmpty(clientAlias)) {
+            certAliases.add(clientAlias);
         }
-        return false;
+        return certAliases;
     }
 
     /**
@@ -190,12 +388,20 @@ public class SavedNetworkTracker extends BaseWifiTracker {
      */
     @AnyThread
     public boolean isCertificateRequired(String certAlias) {
+        final boolean isSavedIndexed;
+        synchronized (mLock) {
+            isSavedIndexed = mCertificateRequesterSsids != null;
+            if (isSavedIndexed && !TextUtils.isEmpty(certAlias)
+                    && mCertificateRequesterSsids.containsKey(certAlias)) {
+                return true;
+            }
+        }
         // Configurations from Wi-Fi Network Suggestion
-        List<WifiConfiguration> configurations = mWifiManager.getNetworkSuggestions()
-                .stream().map(s -> s.getWifiConfiguration())
-                .collect(Collectors.toList());
-        // Configurations from regular Wi-Fi configurations.
-        configurations.addAll(mWifiManager.getConfiguredNetworks());
+        List<WifiConfiguration> configurations = fetchSuggestionConfigurations();
+        // Configurations from regular Wi-Fi configurations, unless they are indexed.
+        if (!isSavedIndexed) {
+            configurations.addAll(mWifiManager.getConfiguredNetworks());
+        }
 
         return configurations.stream()
                 .anyMatch(c -> isCertificateUsedByConfiguration(c, certAlias));
@@ -209,17 +415,55 @@ public class SavedNetworkTracker extends BaseWifiTracker {
     @AnyThread
     @NonNull
     public List<String> getCertificateRequesterNames(String certAlias) {
+        final Set<String> ssids = new ArraySet<>();
+        final boolean isSavedIndexed;
+        synchronized (mLock) {
+            isSavedIndexed = mCertificateRequesterSsids != null;
+            if (isSavedIndexed && !TextUtils.isEmpty(certAlias)
+                    && mCertificateRequesterSsids.containsKey(certAlias)) {
+                ssids.addAll(mCertificateRequesterSsids.get(certAlias));
+            }
+        }
         // Configurations from Wi-Fi Network Suggestion
-        List<WifiConfiguration> configurations = mWifiManager.getNetworkSuggestions()
+        List<WifiConfiguration> configurations = fetchSuggestionConfigurations();
+        // Configurations from regular Wi-Fi configurations, unless they are indexed.
+        if (!isSavedIndexed) {
+            configurations.addAll(mWifiManager.getConfiguredNetworks());
+        }
+
+        configurations.stream()
+                .filter(c -> isCertificateUsedByConfiguration(c, certAlias))
+                .forEach(c -> ssids.add(c.SSID));
+        return new ArrayList<>(ssids);
+    }
+
+    /**
+     * Returns the configurations of the current network suggestions. These are always fetched
+     * since adding or removing suggestions doesn't send CONFIGURED_NETWORKS_CHANGED_ACTION.
+     */
+    @AnyThread
+    @NonNull
+    private List<WifiConfiguration> fetchSuggestionConfigurations() {
+        return mWifiManager.getNetworkSuggestions()
                 .stream().map(s -> s.getWifiConfiguration())
                 .collect(Collectors.toList());
-        // Configurations from regular Wi-Fi configurations.
-        configurations.addAll(mWifiManager.getConfiguredNetworks());
+    }
 
-        return configurations.stream()
-                .filter(c -> isCertificateUsedByConfiguration(c, certAlias))
-                .map(c -> c.SSID).collect(Collectors.toSet())
-                .stream().collect(Collectors.toList());
+    /**
+     * Rebuilds the index of certificate aliases to the SSIDs of the saved networks requiring them.
+     */
+    @WorkerThread
+    private void updateCertificateRequesters(@NonNull List<WifiConfiguration> configuredNetworks) {
+        final Map<String, Set<String>> certificateRequesterSsids = new ArrayMap<>();
+        for (WifiConfiguration config : configuredNetworks) {
+            for (String certAlias : getCertificateAliases(config)) {
+                certificateRequesterSsids.computeIfAbsent(certAlias, k -> new ArraySet<>())
+                        .add(config.SSID);
+            }
+        }
+        synchronized (mLock) {
+            mCertificateRequesterSsids = certificateRequesterSsids;
+        }
     }
 
     private List<WifiEntry> getAllWifiEntries() {
@@ -233,9 +477,11 @@ public class SavedNetworkTracker extends BaseWifiTracker {
     @Override
     protected void handleOnStart() {
         // Update configs and scans
-        updateStandardWifiEntryConfigs(mWifiManager.getConfiguredNetworks());
+        final List<WifiConfiguration> configuredNetworks = mWifiManager.getConfiguredNetworks();
+        updateStandardWifiEntryConfigs(configuredNetworks);
+        updateCertificateRequesters(configuredNetworks);
         updatePasspointWifiEntryConfigs(mWifiManager.getPasspointConfigurations());
-        mScanResultUpdater.update(mWifiManager.getScanResults());
+        mScanResultUpdater.update(fetchScanResults());
         conditionallyUpdateScanResults(true /* lastScanSucceeded */);
 
         // Trigger callbacks manually now to avoid waiting until the first calls to update state.
@@ -245,23 +491,7 @@ public class SavedNetworkTracker extends BaseWifiTracker {
         for (WifiEntry entry : getAllWifiEntries()) {
             entry.clearConnectionInfo(false);
         }
-        Network currentNetwork = mWifiManager.getCurrentNetwork();
-        if (currentNetwork != null) {
-            NetworkCapabilities networkCapabilities =
-                    mConnectivityManager.getNetworkCapabilities(currentNetwork);
-            if (networkCapabilities != null) {
-                // getNetworkCapabilities(Network) obfuscates location info such as SSID and
-                // networkId, so we need to set the WifiInfo directly from WifiManager.
-                handleNetworkCapabilitiesChanged(currentNetwork,
-                        new NetworkCapabilities.Builder(networkCapabilities)
-                                .setTransportInfo(mWifiManager.getConnectionInfo())
-                                .build());
-            }
-            LinkProperties linkProperties = mConnectivityManager.getLinkProperties(currentNetwork);
-            if (linkProperties != null) {
-                handleLinkPropertiesChanged(currentNetwork, linkProperties);
-            }
-        }
+        handleCurrentConnectionInfo();
         updateWifiEntries();
     }
 
@@ -285,11 +515,48 @@ public class SavedNetworkTracker extends BaseWifiTracker {
     @Override
     protected void handleConfiguredNetworksChangedAction(@Nullable Intent intent) {
         checkNotNull(intent, "Intent cannot be null!");
-        updateStandardWifiEntryConfigs(mWifiManager.getConfiguredNetworks());
+        if (mNumPendingBulkOperations > 0) {
+            // Reconcile once after the bulk operation instead of rebuilding per config change.
+            mHasSuppressedConfigChange = true;
+            final long remainingMillis = BULK_OPERATION_MAX_SETTLE_MILLIS
+                    - (mClock.millis() - mBulkOperationEndMillis);
+            if (remainingMillis > 0) {
+                mWorkerHandler.removeCallbacks(mReconcileBulkOperationsRunnable);
+                mWorkerHandler.postDelayed(mReconcileBulkOperationsRunnable,
+                        Math.min(BULK_OPERATION_SETTLE_MILLIS, remainingMillis));
+            }
+            return;
+        }
+        processConfiguredNetworksChanged();
+    }
+
+    @WorkerThread
+    private void processConfiguredNetworksChanged() {
+        final List<WifiConfiguration> configuredNetworks = mWifiManager.getConfiguredNetworks();
+        updateStandardWifiEntryConfigs(configuredNetworks);
+        updateCertificateRequesters(configuredNetworks);
         updatePasspointWifiEntryConfigs(mWifiManager.getPasspointConfigurations());
         updateWifiEntries();
     }
 
+    @WorkerThread
+    @Override
+    protected void handleOnStop() {
+        synchronized (mLock) {
+            mCertificateRequesterSsids = null;
+        }
+    }
+
+    @WorkerThread
+    @Override
+    protected void handleAdminPolicyChanged() {
+        final AdminPolicySnapshot adminPolicy = getAdminPolicySnapshot();
+        for (StandardWifiEntry entry : mStandardWifiEntryCache) {
+            entry.updateAdminRestrictions(adminPolicy);
+            entry.notifyOnUpdated();
+        }
+    }
+
     @WorkerThread
     @Override
     protected void handleNetworkStateChangedAction(@NonNull Intent intent) {
@@ -364,20 +631,45 @@ public class SavedNetworkTracker extends BaseWifiTracker {
             mSavedWifiEntries.clear();
             mSavedWifiEntries.addAll(mStandardWifiEntryCache);
             Collections.sort(mSavedWifiEntries, WifiEntry.TITLE_COMPARATOR);
+            updateSavedWifiEntryIndex();
             mSubscriptionWifiEntries.clear();
             mSubscriptionWifiEntries.addAll(mPasspointWifiEntryCache.values());
             Collections.sort(mSubscriptionWifiEntries, WifiEntry.TITLE_COMPARATOR);
-            if (isVerboseLoggingEnabled()) {
-                Log.v(TAG, "Updated SavedWifiEntries: "
-                        + Arrays.toString(mSavedWifiEntries.toArray()));
-                Log.v(TAG, "Updated SubscriptionWifiEntries: "
-                        + Arrays.toString(mSubscriptionWifiEntries.toArray()));
-            }
+            mEventLog.record(TrackerEventLog.EVENT_SAVED_ENTRIES_CHANGED,
+                    mSavedWifiEntries.size(), mSubscriptionWifiEntries.size());
         }
         notifyOnSavedWifiEntriesChanged();
         notifyOnSubscriptionWifiEntriesChanged();
     }
 
+    /**
+     * Updates mSavedWifiEntryIndex for the entries that were added, removed or retitled since the
+     * last update.
+     */
+    @GuardedBy("mLock")
+    private void updateSavedWifiEntryIndex() {
+        final Set<String> removedKeys = new ArraySet<>(mSavedWifiEntryIndexKeys.keySet());
+        for (StandardWifiEntry entry : mStandardWifiEntryCache) {
+            final String key = entry.getKey();
+            removedKeys.remove(key);
+            final String title = entry.getTitle() != null ? entry.getTitle() : "";
+            final Pair<String, String> oldIndexKey = mSavedWifiEntryIndexKeys.get(key);
+            if (oldIndexKey != null) {
+                if (oldIndexKey.first.equals(title)
+                        && mSavedWifiEntryIndex.get(oldIndexKey) == entry) {
+                    continue;
+                }
+                mSavedWifiEntryIndex.remove(oldIndexKey);
+            }
+            final Pair<String, String> indexKey = Pair.create(title, key);
+            mSavedWifiEntryIndex.put(indexKey, entry);
+            mSavedWifiEntryIndexKeys.put(key, indexKey);
+        }
+        for (String key : removedKeys) {
+            mSavedWifiEntryIndex.remove(mSavedWifiEntryIndexKeys.remove(key));
+        }
+    }
+
     private void updateStandardWifiEntryScans(@NonNull List<ScanResult> scanResults) {
         checkNotNull(scanResults, "Scan Result list should not be null!");
 
@@ -438,7 +730,7 @@ public class SavedNetworkTracker extends BaseWifiTracker {
         long scanAgeWindow = mMaxScanAgeMillis;
         if (lastScanSucceeded) {
             // Scan succeeded, cache new scans
-            mScanResultUpdater.update(mWifiManager.getScanResults());
+            mScanResultUpdater.update(fetchScanResults());
         } else {
             // Scan failed, increase scan age window to prevent WifiEntry list from
             // clearing prematurely.
@@ -469,7 +761,7 @@ public class SavedNetworkTracker extends BaseWifiTracker {
         for (StandardWifiEntryKey key : wifiConfigsByKey.keySet()) {
             mStandardWifiEntryCache.add(new StandardWifiEntry(mInjector, mMainHandler,
                     key, wifiConfigsByKey.get(key), null, mWifiManager,
-                    true /* forSavedNetworksPage */));
+                    true /* forSavedNetworksPage */, getAdminPolicySnapshot()));
         }
     }
 
@@ -538,6 +830,146 @@ public class SavedNetworkTracker extends BaseWifiTracker {
         }
     }
 
+    /**
+     * Query for {@link #querySavedWifiEntries(SavedNetworkQuery)}.
+     */
+    public static class SavedNetworkQuery {
+        private final int mOffset;
+        private final int mLimit;
+        @Nullable private final String mTitlePrefix;
+        @Nullable private final Set<Integer> mSecurities;
+        @Nullable private final Integer mMeteredChoice;
+
+        private SavedNetworkQuery(Builder builder) {
+            mOffset = builder.mOffset;
+            mLimit = builder.mLimit;
+            mTitlePrefix = builder.mTitlePrefix;
+            mSecurities = builder.mSecurities;
+            mMeteredChoice = builder.mMeteredChoice;
+        }
+
+        private boolean matches(@NonNull WifiEntry entry) {
+            if (mSecurities != null && !mSecurities.contains(entry.getSecurity())) {
+                return false;
+            }
+            return mMeteredChoice == null || mMeteredChoice == entry.getMeteredChoice();
+        }
+
+        /**
+         * Builder for SavedNetworkQuery.
+         */
+        public static class Builder {
+            private int mOffset = 0;
+            private int mLimit = Integer.MAX_VALUE;
+            @Nullable private String mTitlePrefix;
+            @Nullable private Set<Integer> mSecurities;
+            @Nullable private Integer mMeteredChoice;
+
+            /**
+             * Sets the number of matching entries to skip before the page. Defaults to 0.
+             */
+            @NonNull
+            public Builder setOffset(int offset) {
+                if (offset < 0) {
+                    throw new IllegalArgumentException("Offset cannot be negative!");
+                }
+                mOffset = offset;
+                return this;
+            }
+
+            /**
+             * Sets the max number of entries in the page. Defaults to no limit.
+             */
+            @NonNull
+            public Builder setLimit(int limit) {
+                if (limit < 0) {
+                    throw new IllegalArgumentException("Limit cannot be negative!");
+                }
+                mLimit = limit;
+                return this;
+            }
+
+            /**
+             * Only matches entries whose title starts with the prefix, ignoring case.
+             */
+            @NonNull
+            public Builder setTitlePrefix(@Nullable String titlePrefix) {
+                mTitlePrefix = titlePrefix;
+                return this;
+            }
+
+            /**
+             * Only matches entries with one of the given {@link WifiEntry.Security} values.
+             */
+            @NonNull
+            public Builder setSecurities(@NonNull Set<Integer> securities) {
+                mSecurities = new ArraySet<>(securities);
+                return this;
+            }
+
+            /**
+             * Only matches entries with the given {@link WifiEntry.MeteredChoice}.
+             */
+            @NonNull
+            public Builder setMeteredChoice(@WifiEntry.MeteredChoice int meteredChoice) {
+                mMeteredChoice = meteredChoice;
+                return this;
+            }
+
+            /**
+             * Builds the SavedNetworkQuery.
+             */
+            @NonNull
+            public SavedNetworkQuery build() {
+                return new SavedNetworkQuery(this);
+            }
+        }
+    }
+
+    /**
+     * Page of saved networks returned by {@link #querySavedWifiEntries(SavedNetworkQuery)}.
+     */
+    public static class SavedNetworkPage {
+        @NonNull private final List<WifiEntry> mWifiEntries;
+        private final int mTotalCount;
+
+        SavedNetworkPage(@NonNull List<WifiEntry> wifiEntries, int totalCount) {
+            mWifiEntries = wifiEntries;
+            mTotalCount = totalCount;
+        }
+
+        /**
+         * Returns the entries of the page.
+         */
+        @NonNull
+        public List<WifiEntry> getWifiEntries() {
+            return mWifiEntries;
+        }
+
+        /**
+         * Returns the total number of entries matching the query, across all pages.
+         */
+        public int getTotalCount() {
+            return mTotalCount;
+        }
+    }
+
+    /**
+     * Callback for the completion of a bulk operation.
+     */
+    public interface BulkOperationCallback {
+        /**
+         * Called once the CONFIGURED_NETWORKS_CHANGED_ACTION broadcasts of the bulk operation have
+         * settled, i.e. none arrived for 500ms, or 3s after the operation if they keep arriving.
+         * The saved network lists reflect the broadcasts received by then, which may not include
+         * config changes that are still in flight.
+         *
+         * @param numEntriesUpdated Number of the given entries the operation was applied to.
+         */
+        @MainThread
+        void onBulkOperationCompleted(int numEntriesUpdated);
+    }
+
     /**
      * Listener for changes to the list of saved and subscription WifiEntries
      *
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiInfo;
+import android.util.ArrayMap;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses the interval between periodic scans based on how much the scan results change.
+ *
+ * The interval doubles up to the max bound while successive scans see the same BSSIDs at similar
+ * RSSIs, and drops back to the min bound as soon as BSSIDs come and go or the connected RSSI is
+ * weak. Each decision is counted so that the behavior can be reported as metrics.
+ */
+public class ScanIntervalGovernor {
+    // Max fraction of BSSIDs added or removed between scans for the environment to be stable.
+    private static final float STABLE_MAX_CHURN = 0.1f;
+    // Min fraction of BSSIDs added or removed between scans to reset to the min interval.
+    private static final float UNSTABLE_MIN_CHURN = 0.3f;
+    // Max average RSSI change in dB of the BSSIDs seen in both scans for the environment to be
+    // stable.
+    private static final int STABLE_MAX_AVERAGE_RSSI_DELTA = 5;
+    // Connected RSSI at or below which we scan at the min interval to find a better network.
+    private static final int WEAK_CONNECTED_RSSI = -75;
+
+    private final long mMinIntervalMillis;
+    private final long mMaxIntervalMillis;
+
+    private volatile long mIntervalMillis;
+    private int mConnectedRssi = WifiInfo.INVALID_RSSI;
+    // RSSI of the previous scan results mapped by BSSID, or null if there were no previous results.
+    private Map<String, Integer> mPreviousRssiByBssid;
+
+    private volatile int mNumLengthenedDecisions;
+    private volatile int mNumShortenedDecisions;
+    private volatile int mNumUnchangedDecisions;
+
+    /**
+     * Creates a ScanIntervalGovernor starting at the min interval.
+     *
+     * @param minIntervalMillis Interval used when the environment is changing.
+     * @param maxIntervalMillis Upper bound of the interval when the environment is stable.
+     */
+    public ScanIntervalGovernor(long minIntervalMillis, long maxIntervalMillis) {
+        if (minIntervalMillis <= 0 || maxIntervalMillis < minIntervalMillis) {
+            throw new IllegalArgumentException("Invalid scan interval bounds: ["
+                    + minIntervalMillis + ", " + maxIntervalMillis + "]");
+        }
+        mMinIntervalMillis = minIntervalMillis;
+        mMaxIntervalMillis = maxIntervalMillis;
+        mIntervalMillis = minIntervalMillis;
+    }
+
+    /**
+     * Returns the interval to wait before the next scan.
+     */
+    @AnyThread
+    public long getIntervalMillis() {
+        return mIntervalMillis;
+    }
+
+    /**
+     * Returns the number of times the interval was lengthened due to stable scan results.
+     */
+    @AnyThread
+    public int getNumLengthenedDecisions() {
+        return mNumLengthenedDecisions;
+    }
+
+    /**
+     * Returns the number of times the interval was shortened due to churn or a weak connection.
+     */
+    @AnyThread
+    public int getNumShortenedDecisions() {
+        return mNumShortenedDecisions;
+    }
+
+    /**
+     * Returns the number of times the interval was left unchanged.
+     */
+    @AnyThread
+    public int getNumUnchangedDecisions() {
+        return mNumUnchangedDecisions;
+    }
+
+    /**
+     * Resets the interval to the min bound and forgets the previous scan results, e.g. when
+     * scanning restarts. The decision counters are kept.
+     */
+    @WorkerThread
+    public void reset() {
+        mIntervalMillis = mMinIntervalMillis;
+        mPreviousRssiByBssid = null;
+    }
+
+    /**
+     * Updates the RSSI of the current connection, or {@link WifiInfo#INVALID_RSSI} if there is no
+     * connection.
+     */
+    @WorkerThread
+    public void onConnectedRssiChanged(int rssi) {
+        mConnectedRssi = rssi;
+    }
+
+    /**
+     * Compares the latest scan results with the previous ones and updates the interval.
+     */
+    @WorkerThread
+    public void onScanResults(@NonNull List<ScanResult> scanResults) {
+        final Map<String, Integer> rssiByBssid = new ArrayMap<>(scanResults.size());
+        for (ScanResult scan : scanResults) {
+            rssiByBssid.put(scan.BSSID, scan.level);
+        }
+        final Map<String, Integer> previousRssiByBssid = mPreviousRssiByBssid;
+        mPreviousRssiByBssid = rssiByBssid;
+
+        final boolean isConnectionWeak = mConnectedRssi != WifiInfo.INVALID_RSSI
+                && mConnectedRssi <= WEAK_CONNECTED_RSSI;
+        if (previousRssiByBssid == null || isConnectionWeak) {
+            updateInterval(mMinIntervalMillis);
+            return;
+        }
+
+        int numCommon = 0;
+        long totalRssiDelta = 0;
+        for (Map.Entry<String, Integer> entry : rssiByBssid.entrySet()) {
+            final Integer previousRssi = previousRssiByBssid.get(entry.getKey());
+            if (previousRssi != null) {
+                numCommon++;
+                totalRssiDelta += Math.abs(entry.getValue() - previousRssi);
+            }
+        }
+        final int numUnion = rssiByBssid.size() + previousRssiByBssid.size() - numCommon;
+        final int numChanged = numUnion - numCommon;
+        final float churn = numUnion == 0 ? 0 : (float) numChanged / numUnion;
+        final long averageRssiDelta = numCommon == 0 ? 0 : totalRssiDelta / numCommon;
+
+        if (churn >= UNSTABLE_MIN_CHURN) {
+            updateInterval(mMinIntervalMillis);
+        } else if (churn <= STABLE_MAX_CHURN && averageRssiDelta <= STABLE_MAX_AVERAGE_RSSI_DELTA) {
+            updateInterval(Math.min(mIntervalMillis * 2, mMaxIntervalMillis));
+        } else {
+            updateInterval(mIntervalMillis);
+        }
+    }
+
+    private void updateInterval(long intervalMillis) {
+        if (intervalMillis > mIntervalMillis) {
+            mNumLengthenedDecisions++;
+        } else if (intervalMillis < mIntervalMillis) {
+            mNumShortenedDecisions++;
+        } else {
+            mNumUnchangedDecisions++;
+        }
+        mIntervalMillis = intervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanIntervalGovernor{interval=" + mIntervalMillis + "ms"
+                + ", bounds=[" + mMinIntervalMillis + ", " + mMaxIntervalMillis + "]"
+                + ", lengthened=" + mNumLengthenedDecisions
+                + ", shortened=" + mNumShortenedDecisions
+                + ", unchanged=" + mNumUnchangedDecisions + "}";
+    }
+}
@@ -26,16 +26,18 @@ import static java.util.stream.Collectors.toList;
 import android.content.Context;
 import android.content.Intent;
 import android.net.ConnectivityManager;
-import android.net.LinkProperties;
-import android.net.Network;
-import android.net.NetworkCapabilities;
 import android.net.wifi.WifiConfiguration;
+import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiManager;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.telephony.SubscriptionManager;
+import android.text.TextUtils;
 
 import androidx.annotation.AnyThread;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import androidx.lifecycle.Lifecycle;
@@ -49,8 +51,23 @@ import java.util.Collections;
 public class StandardNetworkDetailsTracker extends NetworkDetailsTracker {
     private static final String TAG = "StandardNetworkDetailsTracker";
 
+    // Number of link telemetry samples kept, e.g. 2 minutes at the default sample interval.
+    private static final int LINK_TELEMETRY_CAPACITY = 120;
+    private static final long DEFAULT_LINK_TELEMETRY_SAMPLE_INTERVAL_MILLIS = 1000;
+
     private final StandardWifiEntryKey mKey;
     private final StandardWifiEntry mChosenEntry;
+    // Whether the chosen entry was seeded from another entry, in which case the start info does
+    // not need to be fetched again on the first start.
+    private boolean mSkipNextStartInfoUpdate;
+
+    private final LinkTelemetry mLinkTelemetry = new LinkTelemetry(LINK_TELEMETRY_CAPACITY);
+    private volatile boolean mIsLinkTelemetryEnabled = false;
+    private volatile long mLinkTelemetrySampleIntervalMillis =
+            DEFAULT_LINK_TELEMETRY_SAMPLE_INTERVAL_MILLIS;
+    // Whether the tracker is started. Must be accessed only by the worker thread.
+    private boolean mIsStarted = false;
+    private final Runnable mSampleLinkTelemetryRunnable = this::sampleLinkTelemetry;
 
     public StandardNetworkDetailsTracker(@NonNull Lifecycle lifecycle,
             @NonNull Context context,
@@ -79,6 +96,25 @@ public class StandardNetworkDetailsTracker extends NetworkDetailsTracker {
             long maxScanAgeMillis,
             long scanIntervalMillis,
             String key) {
+        this(injector, lifecycle, context, wifiManager, connectivityManager, mainHandler,
+                workerHandler, clock, maxScanAgeMillis, scanIntervalMillis, key,
+                null /* seedEntry */);
+    }
+
+    @VisibleForTesting
+    StandardNetworkDetailsTracker(
+            @NonNull WifiTrackerInjector injector,
+            @NonNull Lifecycle lifecycle,
+            @NonNull Context context,
+            @NonNull WifiManager wifiManager,
+            @NonNull ConnectivityManager connectivityManager,
+            @NonNull Handler mainHandler,
+            @NonNull Handler workerHandler,
+            @NonNull Clock clock,
+            long maxScanAgeMillis,
+            long scanIntervalMillis,
+            String key,
+            @Nullable WifiEntry seedEntry) {
         super(injector, lifecycle, context, wifiManager, connectivityManager,
                 mainHandler, workerHandler, clock, maxScanAgeMillis, scanIntervalMillis, TAG);
         mKey = new StandardWifiEntryKey(key);
@@ -87,12 +123,17 @@ public class StandardNetworkDetailsTracker extends NetworkDetailsTracker {
                     mWifiManager, false /* forSavedNetworksPage */);
         } else {
             mChosenEntry = new StandardWifiEntry(mInjector, mMainHandler, mKey,
-                    mWifiManager, false /* forSavedNetworksPage */);
+                    mWifiManager, false /* forSavedNetworksPage */, getAdminPolicySnapshot());
+        }
+        // It is safe to call updateStartInfo() and seedStartInfo() in the main thread here since
+        // onStart() won't have a chance to post handleOnStart() on the worker thread until the
+        // main thread finishes calling this constructor.
+        if (!mKey.isNetworkRequest() && seedEntry instanceof StandardWifiEntry
+                && TextUtils.equals(seedEntry.getKey(), key)) {
+            seedStartInfo((StandardWifiEntry) seedEntry);
+        } else {
+            updateStartInfo();
         }
-        // It is safe to call updateStartInfo() in the main thread here since onStart() won't have
-        // a chance to post handleOnStart() on the worker thread until the main thread finishes
-        // calling this constructor.
-        updateStartInfo();
     }
 
     @AnyThread
@@ -102,12 +143,54 @@ public class StandardNetworkDetailsTracker extends NetworkDetailsTracker {
         return mChosenEntry;
     }
 
+    /**
+     * Enables or disables sampling the RSSI, link speeds and frequency of the connected link into
+     * {@link #getLinkTelemetry()} while started. Samples are only taken while the tracked network
+     * is connected. Each sample queries the current link from WifiManager, so shorter intervals
+     * cost proportionally more binder calls.
+     *
+     * @param sampleIntervalMillis Interval between samples.
+     */
+    @MainThread
+    public void setLinkTelemetryEnabled(boolean enabled, long sampleIntervalMillis) {
+        if (sampleIntervalMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "Invalid sample interval: " + sampleIntervalMillis);
+        }
+        mIsLinkTelemetryEnabled = enabled;
+        mLinkTelemetrySampleIntervalMillis = sampleIntervalMillis;
+        mWorkerHandler.post(this::updateLinkTelemetrySampling);
+    }
+
+    /**
+     * Returns the samples of the connected link taken while link telemetry is enabled.
+     */
+    @AnyThread
+    @NonNull
+    public LinkTelemetry getLinkTelemetry() {
+        return mLinkTelemetry;
+    }
+
     @WorkerThread
     @Override
     protected void handleOnStart() {
+        mIsStarted = true;
+        updateLinkTelemetrySampling();
+        if (mSkipNextStartInfoUpdate) {
+            // The seeded state is current, so only the deltas from the callbacks are needed.
+            mSkipNextStartInfoUpdate = false;
+            return;
+        }
         updateStartInfo();
     }
 
+    @WorkerThread
+    @Override
+    protected void handleOnStop() {
+        mIsStarted = false;
+        updateLinkTelemetrySampling();
+    }
+
     @WorkerThread
     @Override
     protected void handleWifiStateChangedAction() {
@@ -129,6 +212,13 @@ public class StandardNetworkDetailsTracker extends NetworkDetailsTracker {
         conditionallyUpdateConfig();
     }
 
+    @WorkerThread
+    @Override
+    protected void handleAdminPolicyChanged() {
+        mChosenEntry.updateAdminRestrictions(getAdminPolicySnapshot());
+        mChosenEntry.notifyOnUpdated();
+    }
+
     @WorkerThread
     private void updateStartInfo() {
 
@@ -138,23 +228,41 @@ public class StandardNetworkDetailsTracker extends NetworkDetailsTracker {
         // Clear any stale connection info in case we missed any NetworkCallback.onLost() while in
         // the stopped state.
         mChosenEntry.clearConnectionInfo(false);
-        Network currentNetwork = mWifiManager.getCurrentNetwork();
-        if (currentNetwork != null) {
-            NetworkCapabilities networkCapabilities =
-                    mConnectivityManager.getNetworkCapabilities(currentNetwork);
-            if (networkCapabilities != null) {
-                // getNetworkCapabilities(Network) obfuscates location info such as SSID and
-                // networkId, so we need to set the WifiInfo directly from WifiManager.
-                handleNetworkCapabilitiesChanged(currentNetwork,
-                        new NetworkCapabilities.Builder(networkCapabilities)
-                                .setTransportInfo(mWifiManager.getConnectionInfo())
-                                .build());
-            }
-            LinkProperties linkProperties = mConnectivityManager.getLinkProperties(currentNetwork);
-            if (linkProperties != null) {
-                handleLinkPropertiesChanged(currentNetwork, linkProperties);
+        handleCurrentConnectionInfo();
+    }
+
+    @WorkerThread
+    private void updateLinkTelemetrySampling() {
+        mWorkerHandler.removeCallbacks(mSampleLinkTelemetryRunnable);
+        if (mIsStarted && mIsLinkTelemetryEnabled) {
+            sampleLinkTelemetry();
+        }
+    }
+
+    @WorkerThread
+    private void sampleLinkTelemetry() {
+        if (mChosenEntry.getConnectedState() == WifiEntry.CONNECTED_STATE_CONNECTED) {
+            // Query the link on every tick, since the WifiInfo of the NetworkCallback is only
+            // updated on significant changes and would repeat stale values at higher rates.
+            final WifiInfo wifiInfo = mWifiManager.getConnectionInfo();
+            if (wifiInfo != null && mChosenEntry.connectionInfoMatches(wifiInfo)) {
+                mLinkTelemetry.addSample(SystemClock.elapsedRealtime(), wifiInfo.getRssi(),
+                        wifiInfo.getTxLinkSpeedMbps(), wifiInfo.getRxLinkSpeedMbps(),
+                        wifiInfo.getFrequency());
             }
         }
+        mWorkerHandler.postDelayed(mSampleLinkTelemetryRunnable,
+                mLinkTelemetrySampleIntervalMillis);
+    }
+
+    /**
+     * Populates the tracked entry from an entry with the same key instead of fetching the configs,
+     * scans and connection info again. Only called from the constructor, on the main thread.
+     */
+    private void seedStartInfo(@NonNull StandardWifiEntry seedEntry) {
+        mChosenEntry.seedFrom(seedEntry);
+        handleDefaultSubscriptionChanged(SubscriptionManager.getDefaultDataSubscriptionId());
+        mSkipNextStartInfoUpdate = true;
     }
 
     /**
@@ -169,7 +277,7 @@ public class StandardNetworkDetailsTracker extends NetworkDetailsTracker {
 
         long scanAgeWindow = mMaxScanAgeMillis;
         if (lastScanSucceeded) {
-            mScanResultUpdater.update(mWifiManager.getScanResults());
+            mScanResultUpdater.update(fetchScanResults());
         } else {
             // Scan failed, increase scan age window to prevent WifiEntry list from
             // clearing prematurely.
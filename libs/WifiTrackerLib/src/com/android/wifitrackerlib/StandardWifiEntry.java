@@ -47,7 +47,6 @@ import static com.android.wifitrackerlib.Utils.getVerboseSummary;
 
 import android.annotation.SuppressLint;
 import android.app.admin.DevicePolicyManager;
-import android.app.admin.WifiSsidPolicy;
 import android.net.ConnectivityManager;
 import android.net.Network;
 import android.net.NetworkCapabilities;
@@ -58,10 +57,8 @@ import android.net.wifi.WifiConfiguration.NetworkSelectionStatus;
 import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiManager;
 import android.net.wifi.WifiScanner;
-import android.net.wifi.WifiSsid;
 import android.os.Handler;
 import android.os.SystemClock;
-import android.os.UserHandle;
 import android.os.UserManager;
 import android.telephony.SubscriptionInfo;
 import android.telephony.SubscriptionManager;
@@ -71,6 +68,7 @@ import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.Log;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
@@ -80,8 +78,8 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -89,7 +87,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
-import java.util.stream.Collectors;
 
 /**
  * WifiEntry representation of a logical Wi-Fi network, uniquely identified by SSID and security.
@@ -100,10 +97,21 @@ public class StandardWifiEntry extends WifiEntry {
     static final String TAG = "StandardWifiEntry";
     public static final String KEY_PREFIX = "StandardWifiEntry:";
 
+    // Frequency ranges of the bands shown in the verbose scan description, in display order.
+    private static final int[][] SCAN_RESULT_DESCRIPTION_BANDS = {
+            {MIN_FREQ_24GHZ, MAX_FREQ_24GHZ},
+            {MIN_FREQ_5GHZ, MAX_FREQ_5GHZ},
+            {MIN_FREQ_6GHZ, MAX_FREQ_6GHZ},
+            {MIN_FREQ_60GHZ, MAX_FREQ_60GHZ},
+    };
+
     @NonNull private final StandardWifiEntryKey mKey;
 
     // Map of security type to matching scan results
     @NonNull private final Map<Integer, List<ScanResult>> mMatchingScanResults = new ArrayMap<>();
+    // Matching scans by band for the verbose scan description, rebuilt after each scan update.
+    @Nullable private List<List<ScanResultDescription>> mScanResultDescriptionBands;
+    @NonNull private final StringBuilder mScanResultDescriptionBuilder = new StringBuilder();
     // Map of security type to matching WifiConfiguration
     // TODO: Change this to single WifiConfiguration once we can get multiple security type configs.
     @NonNull private final Map<Integer, WifiConfiguration> mMatchingWifiConfigs = new ArrayMap<>();
@@ -123,6 +131,7 @@ public class StandardWifiEntry extends WifiEntry {
 
     private boolean mIsAdminRestricted = false;
     private boolean mHasAddConfigUserRestriction = false;
+    @NonNull private AdminPolicySnapshot mAdminPolicy;
 
     private final boolean mIsWpa3SaeSupported;
     private final boolean mIsWpa3SuiteBSupported;
@@ -137,6 +146,21 @@ public class StandardWifiEntry extends WifiEntry {
             @NonNull StandardWifiEntryKey key,
             @NonNull WifiManager wifiManager,
             boolean forSavedNetworksPage) {
+        this(injector, callbackHandler, key, wifiManager, forSavedNetworksPage,
+                null /* adminPolicy */);
+    }
+
+    /**
+     * @param adminPolicy Admin policies shared by the tracker, or null to fetch them for this
+     *                    entry alone.
+     */
+    StandardWifiEntry(
+            @NonNull WifiTrackerInjector injector,
+            @NonNull Handler callbackHandler,
+            @NonNull StandardWifiEntryKey key,
+            @NonNull WifiManager wifiManager,
+            boolean forSavedNetworksPage,
+            @Nullable AdminPolicySnapshot adminPolicy) {
         super(injector, callbackHandler, wifiManager, forSavedNetworksPage);
         mKey = key;
         mIsWpa3SaeSupported = wifiManager.isWpa3SaeSupported();
@@ -145,7 +169,8 @@ public class StandardWifiEntry extends WifiEntry {
         mUserManager = injector.getUserManager();
         mDevicePolicyManager = injector.getDevicePolicyManager();
         updateSecurityTypes();
-        updateAdminRestrictions();
+        updateAdminRestrictions(adminPolicy != null ? adminPolicy
+                : new AdminPolicySnapshot(mContext, mUserManager, mDevicePolicyManager));
     }
 
     StandardWifiEntry(
@@ -156,8 +181,21 @@ public class StandardWifiEntry extends WifiEntry {
             @Nullable List<ScanResult> scanResults,
             @NonNull WifiManager wifiManager,
             boolean forSavedNetworksPage) throws IllegalArgumentException {
+        this(injector, callbackHandler, key, configs, scanResults, wifiManager,
+                forSavedNetworksPage, null /* adminPolicy */);
+    }
+
+    StandardWifiEntry(
+            @NonNull WifiTrackerInjector injector,
+            @NonNull Handler callbackHandler,
+            @NonNull StandardWifiEntryKey key,
+            @Nullable List<WifiConfiguration> configs,
+            @Nullable List<ScanResult> scanResults,
+            @NonNull WifiManager wifiManager,
+            boolean forSavedNetworksPage,
+            @Nullable AdminPolicySnapshot adminPolicy) throws IllegalArgumentException {
         this(injector, callbackHandler, key, wifiManager,
-                forSavedNetworksPage);
+                forSavedNetworksPage, adminPolicy);
         if (configs != null && !configs.isEmpty()) {
             updateConfig(configs);
         }
@@ -182,6 +220,12 @@ public class StandardWifiEntry extends WifiEntry {
 
     @Override
     public synchronized String getSummary(boolean concise) {
+        return getCachedSummary(concise, () -> buildSummary(concise));
+    }
+
+    @GuardedBy("this")
+    @NonNull
+    private String buildSummary(boolean concise) {
         StringJoiner sj = new StringJoiner(mContext.getString(
                 R.string.wifitrackerlib_summary_separator));
 
@@ -204,7 +248,7 @@ public class StandardWifiEntry extends WifiEntry {
                     connectedStateDescription = null;
                     break;
                 }
-                connectedStateDescription = getConnectedDescription(mContext,
+                connectedStateDescription = getConnectedDescription(mInjector, mContext,
                         mTargetWifiConfig,
                         mNetworkCapabilities,
                         mWifiInfo,
@@ -240,6 +284,37 @@ public class StandardWifiEntry extends WifiEntry {
         return sj.toString();
     }
 
+    @GuardedBy("this")
+    @NonNull
+    @Override
+    protected int[] getSummaryFingerprint() {
+        final int[] fingerprint = super.getSummaryFingerprint();
+        final WifiConfiguration config = mTargetWifiConfig;
+        if (config == null) {
+            return fingerprint;
+        }
+        // The config may be updated in place, e.g. by setMeteredChoice().
+        final NetworkSelectionStatus status = config.getNetworkSelectionStatus();
+        final int[] configFingerprint = new int[] {
+                config.meteredOverride,
+                config.allowAutojoin ? 1 : 0,
+                config.isNoInternetAccessExpected() ? 1 : 0,
+                config.getRecentFailureReason(),
+                status == null ? -1 : status.getNetworkSelectionStatus(),
+                status == null ? -1 : status.getNetworkSelectionDisableReason(),
+                status == null ? -1 : status.hasEverConnected() ? 1 : 0,
+                status == null ? -1 : status.getDisableReasonCounter(
+                        DISABLED_AUTHENTICATION_FAILURE),
+                status == null ? -1 : status.getDisableReasonCounter(
+                        NetworkSelectionStatus.DISABLED_DHCP_FAILURE),
+        };
+        final int[] result = Arrays.copyOf(fingerprint,
+                fingerprint.length + configFingerprint.length);
+        System.arraycopy(configFingerprint, 0, result, fingerprint.length,
+                configFingerprint.length);
+        return result;
+    }
+
     @Override
     public String getSsid() {
         return mKey.getScanResultKey().getSsid();
@@ -348,8 +423,7 @@ public class StandardWifiEntry extends WifiEntry {
         mShouldAutoOpenCaptivePortal = true;
         mWifiManager.stopRestrictingAutoJoinToSubscriptionId();
         if (isSaved() || isSuggestion()) {
-            if (Utils.isSimCredential(mTargetWifiConfig)
-                    && !Utils.isSimPresent(mContext, mTargetWifiConfig.carrierId)) {
+            if (Utils.isSimCredential(mTargetWifiConfig) && !isSimPresent()) {
                 if (callback != null) {
                     mCallbackHandler.post(() ->
                             callback.onConnectResult(
@@ -395,6 +469,16 @@ public class StandardWifiEntry extends WifiEntry {
         return getConnectedState() == CONNECTED_STATE_CONNECTED;
     }
 
+    @GuardedBy("this")
+    private boolean isSimPresent() {
+        final SubscriptionStateCache subscriptionStateCache =
+                mInjector.getSubscriptionStateCache();
+        if (subscriptionStateCache == null) {
+            return Utils.isSimPresent(mContext, mTargetWifiConfig.carrierId);
+        }
+        return subscriptionStateCache.isSimPresent(mTargetWifiConfig.carrierId);
+    }
+
     @Override
     public synchronized void disconnect(@Nullable DisconnectCallback callback) {
         if (canDisconnect()) {
@@ -455,11 +539,7 @@ public class StandardWifiEntry extends WifiEntry {
             return false;
         }
 
-        if (BuildCompat.isAtLeastT() && mUserManager.hasUserRestrictionForUser(
-                UserManager.DISALLOW_SHARING_ADMIN_CONFIGURED_WIFI,
-                UserHandle.getUserHandleForUid(wifiConfig.creatorUid))
-                && Utils.isDeviceOrProfileOwner(wifiConfig.creatorUid,
-                wifiConfig.creatorName, mContext)) {
+        if (mAdminPolicy.isSharingRestricted(wifiConfig.creatorUid, wifiConfig.creatorName)) {
             return false;
         }
 
@@ -495,11 +575,7 @@ public class StandardWifiEntry extends WifiEntry {
             return false;
         }
 
-        if (BuildCompat.isAtLeastT() && mUserManager.hasUserRestrictionForUser(
-                UserManager.DISALLOW_SHARING_ADMIN_CONFIGURED_WIFI,
-                UserHandle.getUserHandleForUid(wifiConfig.creatorUid))
-                && Utils.isDeviceOrProfileOwner(wifiConfig.creatorUid,
-                wifiConfig.creatorName, mContext)) {
+        if (mAdminPolicy.isSharingRestricted(wifiConfig.creatorUid, wifiConfig.creatorName)) {
             return false;
         }
 
@@ -690,6 +766,7 @@ public class StandardWifiEntry extends WifiEntry {
         }
         // Populate the cached scan result map
         mMatchingScanResults.clear();
+        mScanResultDescriptionBands = null;
         final Set<Integer> keySecurityTypes = mKey.getScanResultKey().getSecurityTypes();
         for (ScanResult scan : scanResults) {
             for (int security : getSecurityTypesFromScanResult(scan)) {
@@ -708,6 +785,30 @@ public class StandardWifiEntry extends WifiEntry {
         notifyOnUpdated();
     }
 
+    /**
+     * Seeds this entry with the scans, configs and connection info of another entry with the same
+     * key, e.g. to open a details page from a picker entry without fetching the state again.
+     */
+    @WorkerThread
+    void seedFrom(@NonNull StandardWifiEntry other) {
+        final List<ScanResult> scanResults = new ArrayList<>();
+        final List<WifiConfiguration> wifiConfigs;
+        synchronized (other) {
+            for (List<ScanResult> scans : other.mMatchingScanResults.values()) {
+                for (ScanResult scan : scans) {
+                    // Scans matching multiple security types are in multiple lists.
+                    if (!scanResults.contains(scan)) {
+                        scanResults.add(scan);
+                    }
+                }
+            }
+            wifiConfigs = new ArrayList<>(new ArraySet<>(other.mMatchingWifiConfigs.values()));
+        }
+        copyConnectionInfoFrom(other);
+        updateConfig(wifiConfigs);
+        updateScanResultInfo(scanResults);
+    }
+
     private synchronized void updateTargetScanResultInfo() {
         // Update the level using the scans matching the target security type
         final ScanResult bestScanResult = getBestScanResultByLevel(mTargetScanResults);
@@ -895,53 +996,89 @@ public class StandardWifiEntry extends WifiEntry {
         if (mMatchingScanResults.size() == 0) {
             return "";
         }
+        if (mScanResultDescriptionBands == null) {
+            mScanResultDescriptionBands = buildScanResultDescriptionBands();
+        }
 
-        final StringBuilder description = new StringBuilder();
+        final long nowMs = SystemClock.elapsedRealtime();
+        final String connectedBssid = mWifiInfo != null ? mWifiInfo.getBSSID() : null;
+        final StringBuilder description = mScanResultDescriptionBuilder;
+        description.setLength(0);
         description.append("[");
-        description.append(getScanResultDescription(MIN_FREQ_24GHZ, MAX_FREQ_24GHZ)).append(";");
-        description.append(getScanResultDescription(MIN_FREQ_5GHZ, MAX_FREQ_5GHZ)).append(";");
-        description.append(getScanResultDescription(MIN_FREQ_6GHZ, MAX_FREQ_6GHZ)).append(";");
-        description.append(getScanResultDescription(MIN_FREQ_60GHZ, MAX_FREQ_60GHZ));
+        for (int i = 0; i < SCAN_RESULT_DESCRIPTION_BANDS.length; i++) {
+            if (i > 0) {
+                description.append(";");
+            }
+            final List<ScanResultDescription> band = mScanResultDescriptionBands.get(i);
+            final int scanResultCount = band.size();
+            if (scanResultCount == 0) {
+                continue;
+            }
+            description.append("(").append(scanResultCount).append(")");
+            if (scanResultCount > MAX_VERBOSE_LOG_DISPLAY_SCANRESULT_COUNT) {
+                // Each band is sorted by descending RSSI.
+                description.append("max=").append(band.get(0).scanResult.level).append(",");
+            }
+            for (ScanResultDescription scanResultDescription : band) {
+                final ScanResult scanResult = scanResultDescription.scanResult;
+                description.append(" \n{").append(scanResult.BSSID);
+                if (scanResult.BSSID != null && scanResult.BSSID.equals(connectedBssid)) {
+                    description.append("*");
+                }
+                description.append(scanResultDescription.details);
+                final int ageSeconds = (int) (nowMs - scanResult.timestamp / 1000) / 1000;
+                description.append(",").append(ageSeconds).append("s");
+                description.append("}");
+            }
+        }
         description.append("]");
         return description.toString();
     }
 
-    private synchronized String getScanResultDescription(int minFrequency, int maxFrequency) {
-        final List<ScanResult> scanResults = mMatchingScanResults.values().stream()
-                .flatMap(List::stream)
-                .distinct()
-                .filter(scanResult -> scanResult.frequency >= minFrequency
-                        && scanResult.frequency <= maxFrequency)
-                .sorted(Comparator.comparingInt(scanResult -> -1 * scanResult.level))
-                .collect(Collectors.toList());
-
-        final int scanResultCount = scanResults.size();
-        if (scanResultCount == 0) {
-            return "";
+    /**
+     * Sorts the distinct matching scans into the bands of SCAN_RESULT_DESCRIPTION_BANDS in a
+     * single pass, each by descending RSSI, and formats the parts of their descriptions that
+     * don't change until the next scan.
+     */
+    @GuardedBy("this")
+    @NonNull
+    private List<List<ScanResultDescription>> buildScanResultDescriptionBands() {
+        final List<List<ScanResultDescription>> bands =
+                new ArrayList<>(SCAN_RESULT_DESCRIPTION_BANDS.length);
+        for (int i = 0; i < SCAN_RESULT_DESCRIPTION_BANDS.length; i++) {
+            bands.add(new ArrayList<>());
+        }
+        // Scans matching multiple security types are in multiple lists.
+        final Set<ScanResult> seenScanResults = new ArraySet<>();
+        final StringBuilder details = new StringBuilder();
+        for (List<ScanResult> scanResults : mMatchingScanResults.values()) {
+            for (ScanResult scanResult : scanResults) {
+                if (!seenScanResults.add(scanResult)) {
+                    continue;
+                }
+                for (int i = 0; i < SCAN_RESULT_DESCRIPTION_BANDS.length; i++) {
+                    if (scanResult.frequency >= SCAN_RESULT_DESCRIPTION_BANDS[i][0]
+                            && scanResult.frequency <= SCAN_RESULT_DESCRIPTION_BANDS[i][1]) {
+                        details.setLength(0);
+                        appendScanResultDetails(details, scanResult);
+                        bands.get(i).add(
+                                new ScanResultDescription(scanResult, details.toString()));
+                        break;
+                    }
+                }
+            }
         }
-
-        final StringBuilder description = new StringBuilder();
-        description.append("(").append(scanResultCount).append(")");
-        if (scanResultCount > MAX_VERBOSE_LOG_DISPLAY_SCANRESULT_COUNT) {
-            final int maxLavel = scanResults.stream()
-                    .mapToInt(scanResult -> scanResult.level).max().getAsInt();
-            description.append("max=").append(maxLavel).append(",");
+        for (List<ScanResultDescription> band : bands) {
+            band.sort(Comparator.comparingInt(
+                    scanResultDescription -> -1 * scanResultDescription.scanResult.level));
         }
-        final long nowMs = SystemClock.elapsedRealtime();
-        scanResults.forEach(scanResult ->
-                description.append(getScanResultDescription(scanResult, nowMs)));
-        return description.toString();
+        return bands;
     }
 
     // TODO(b/227622961): Remove the suppression once the linter recognizes BuildCompat.isAtLeastT()
     @SuppressLint({"NewApi", "SwitchIntDef"})
-    private synchronized String getScanResultDescription(ScanResult scanResult, long nowMs) {
-        final StringBuilder description = new StringBuilder();
-        description.append(" \n{");
-        description.append(scanResult.BSSID);
-        if (mWifiInfo != null && scanResult.BSSID.equals(mWifiInfo.getBSSID())) {
-            description.append("*");
-        }
+    private void appendScanResultDetails(@NonNull StringBuilder description,
+            @NonNull ScanResult scanResult) {
         description.append("=").append(scanResult.frequency);
         description.append(",").append(scanResult.level);
         int wifiStandard = scanResult.getWifiStandard();
@@ -979,10 +1116,19 @@ public class StandardWifiEntry extends WifiEntry {
             }
             description.append(affLinks.toString());
         }
-        final int ageSeconds = (int) (nowMs - scanResult.timestamp / 1000) / 1000;
-        description.append(",").append(ageSeconds).append("s");
-        description.append("}");
-        return description.toString();
+    }
+
+    /**
+     * A matching scan with the part of its verbose description that only changes with new scans.
+     */
+    private static class ScanResultDescription {
+        @NonNull final ScanResult scanResult;
+        @NonNull final String details;
+
+        ScanResultDescription(@NonNull ScanResult scanResult, @NonNull String details) {
+            this.scanResult = scanResult;
+            this.details = details;
+        }
     }
 
     @Override
@@ -990,61 +1136,13 @@ public class StandardWifiEntry extends WifiEntry {
         return Utils.getNetworkSelectionDescription(getWifiConfiguration());
     }
 
-    // TODO(b/227622961): Remove the suppression once the linter recognizes BuildCompat.isAtLeastT()
-    @SuppressLint("NewApi")
-    void updateAdminRestrictions() {
-        if (!BuildCompat.isAtLeastT()) {
-            return;
-        }
-        if (mUserManager != null) {
-            mHasAddConfigUserRestriction = mUserManager.hasUserRestriction(
-                    UserManager.DISALLOW_ADD_WIFI_CONFIG);
-        }
-        if (mDevicePolicyManager != null) {
-            //check minimum security level restriction
-            int adminMinimumSecurityLevel =
-                    mDevicePolicyManager.getMinimumRequiredWifiSecurityLevel();
-            if (adminMinimumSecurityLevel != DevicePolicyManager.WIFI_SECURITY_OPEN) {
-                boolean securityRestrictionPassed = false;
-                for (int type : getSecurityTypes()) {
-                    int securityLevel = Utils.convertSecurityTypeToDpmWifiSecurity(type);
-
-                    // Skip unknown security type since security level cannot be determined.
-                    // If all the security types are unknown when the minimum security level
-                    // restriction is set, the device cannot connect to this network.
-                    if (securityLevel == Utils.DPM_SECURITY_TYPE_UNKNOWN) continue;
-
-                    if (adminMinimumSecurityLevel <= securityLevel) {
-                        securityRestrictionPassed = true;
-                        break;
-                    }
-                }
-                if (!securityRestrictionPassed) {
-                    mIsAdminRestricted = true;
-                    return;
-                }
-            }
-            //check SSID restriction
-            WifiSsidPolicy policy = NonSdkApiWrapper.getWifiSsidPolicy(mDevicePolicyManager);
-            if (policy != null) {
-                int policyType = policy.getPolicyType();
-                Set<WifiSsid> ssids = policy.getSsids();
-
-                if (policyType == WifiSsidPolicy.WIFI_SSID_POLICY_TYPE_ALLOWLIST
-                        && !ssids.contains(
-                        WifiSsid.fromBytes(getSsid().getBytes(StandardCharsets.UTF_8)))) {
-                    mIsAdminRestricted = true;
-                    return;
-                }
-                if (policyType == WifiSsidPolicy.WIFI_SSID_POLICY_TYPE_DENYLIST
-                        && ssids.contains(
-                        WifiSsid.fromBytes(getSsid().getBytes(StandardCharsets.UTF_8)))) {
-                    mIsAdminRestricted = true;
-                    return;
-                }
-            }
-        }
-        mIsAdminRestricted = false;
+    /**
+     * Updates the admin restrictions of this entry from the given admin policies.
+     */
+    synchronized void updateAdminRestrictions(@NonNull AdminPolicySnapshot adminPolicy) {
+        mAdminPolicy = adminPolicy;
+        mHasAddConfigUserRestriction = adminPolicy.hasAddConfigUserRestriction();
+        mIsAdminRestricted = adminPolicy.isAdminRestricted(getSsid(), getSecurityTypes());
     }
 
     @Override
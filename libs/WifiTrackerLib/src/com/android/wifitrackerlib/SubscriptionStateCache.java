@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import android.content.Context;
+import android.net.wifi.WifiConfiguration;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.util.SparseArray;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Local copy of the active subscriptions, the default data subscription and the carrier names
+ * used by SIM-based WifiEntries.
+ *
+ * The owning tracker invalidates the cache on subscription, default data subscription and carrier
+ * config changes while it is started, so WifiEntry getters and summaries don't need any telephony
+ * IPC. Every lookup is fetched again while stopped since those changes are not tracked then.
+ */
+class SubscriptionStateCache {
+    @NonNull private final Context mContext;
+
+    // Whether the owning tracker is listening for subscription changes.
+    @GuardedBy("this")
+    private boolean mIsStarted;
+    // Whether mActiveSubscriptions has been fetched since the last subscription change.
+    @GuardedBy("this")
+    private boolean mHasActiveSubscriptions;
+    @GuardedBy("this")
+    @Nullable private List<SubscriptionInfo> mActiveSubscriptions;
+    @GuardedBy("this")
+    private int mDefaultDataSubId = SubscriptionManager.INVALID_SUBSCRIPTION_ID;
+    @GuardedBy("this")
+    private boolean mHasDefaultDataSubId;
+    // SIM carrier names by subscription id. Names may be null.
+    @GuardedBy("this")
+    private final SparseArray<String> mCarrierNames = new SparseArray<>();
+    // Incremented whenever the cached state may have changed.
+    @GuardedBy("this")
+    private int mGeneration;
+
+    SubscriptionStateCache(@NonNull Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Returns whether the SIM is present for the target carrier id.
+     * See {@link Utils#isSimPresent(Context, int)}.
+     */
+    @AnyThread
+    synchronized boolean isSimPresent(int carrierId) {
+        return Utils.isSimPresent(getActiveSubscriptions(), carrierId);
+    }
+
+    /**
+     * Returns the best matching subscription id for the target WifiConfiguration.
+     * See {@link Utils#getSubIdForConfig(Context, WifiConfiguration)}.
+     */
+    @AnyThread
+    synchronized int getSubIdForConfig(@NonNull WifiConfiguration config) {
+        if (config.carrierId == TelephonyManager.UNKNOWN_CARRIER_ID) {
+            return SubscriptionManager.INVALID_SUBSCRIPTION_ID;
+        }
+        final List<SubscriptionInfo> subInfoList = getActiveSubscriptions();
+        if (subInfoList == null || subInfoList.isEmpty()) {
+            return SubscriptionManager.INVALID_SUBSCRIPTION_ID;
+        }
+        return Utils.getSubIdForConfig(subInfoList, getDefaultDataSubId(), config);
+    }
+
+    /**
+     * Returns the SIM carrier name for the target subscription id.
+     * See {@link Utils#getCarrierNameForSubId(Context, int)}.
+     */
+    @AnyThread
+    @Nullable
+    synchronized String getCarrierNameForSubId(int subId) {
+        if (!mIsStarted) {
+            return Utils.getCarrierNameForSubId(mContext, subId);
+        }
+        final int index = mCarrierNames.indexOfKey(subId);
+        if (index >= 0) {
+            return mCarrierNames.valueAt(index);
+        }
+        final String carrierName = Utils.getCarrierNameForSubId(mContext, subId);
+        mCarrierNames.put(subId, carrierName);
+        return carrierName;
+    }
+
+    /**
+     * Returns a number that changes whenever the cached state may have changed, e.g. to
+     * invalidate strings built from it.
+     */
+    @AnyThread
+    synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Starts caching. This must be called before listening for changes.
+     */
+    @AnyThread
+    synchronized void onStart() {
+        mIsStarted = true;
+        // The state may have changed while stopped.
+        mGeneration++;
+    }
+
+    /**
+     * Clears the cache and stops caching. This must be called whenever the owning tracker stops
+     * listening for changes, since the cache would miss them afterwards.
+     */
+    @AnyThread
+    synchronized void onStop() {
+        mIsStarted = false;
+        onSubscriptionsChanged();
+    }
+
+    /**
+     * Invalidates everything after the active subscriptions changed.
+     */
+    @AnyThread
+    synchronized void onSubscriptionsChanged() {
+        mHasActiveSubscriptions = false;
+        mActiveSubscriptions = null;
+        mHasDefaultDataSubId = false;
+        mCarrierNames.clear();
+        mGeneration++;
+    }
+
+    /**
+     * Invalidates the default data subscription after it changed.
+     */
+    @AnyThread
+    synchronized void onDefaultDataSubscriptionChanged() {
+        mHasDefaultDataSubId = false;
+        mGeneration++;
+    }
+
+    /**
+     * Invalidates the carrier names after a carrier config change, which may override them.
+     */
+    @AnyThread
+    synchronized void onCarrierConfigChanged() {
+        mCarrierNames.clear();
+        mGeneration++;
+    }
+
+    @GuardedBy("this")
+    @Nullable
+    private List<SubscriptionInfo> getActiveSubscriptions() {
+        if (!mIsStarted) {
+            return Utils.getActiveSubscriptionInfoList(mContext);
+        }
+        if (!mHasActiveSubscriptions) {
+            mActiveSubscriptions = Utils.getActiveSubscriptionInfoList(mContext);
+            mHasActiveSubscriptions = true;
+        }
+        return mActiveSubscriptions;
+    }
+
+    @GuardedBy("this")
+    private int getDefaultDataSubId() {
+        if (!mIsStarted) {
+            return SubscriptionManager.getDefaultDataSubscriptionId();
+        }
+        if (!mHasDefaultDataSubId) {
+            mDefaultDataSubId = SubscriptionManager.getDefaultDataSubscriptionId();
+            mHasDefaultDataSubId = true;
+        }
+        return mDefaultDataSubId;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import android.os.SystemClock;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.PrintWriter;
+
+/**
+ * Fixed-size ring buffer of recent tracker events for debugging.
+ *
+ * Recording an event only stores its type, a timestamp, an optional constant String such as a
+ * broadcast action, and two numeric arguments into preallocated arrays, so events can be recorded
+ * on the worker thread at all times. Events are only formatted into text by {@link #dump}.
+ */
+class TrackerEventLog {
+    // A broadcast was received. name = action.
+    static final int EVENT_BROADCAST_RECEIVED = 1;
+    // The list of WifiEntries was updated. arg0 = WifiEntriesChangedReason, arg1 = entry count.
+    static final int EVENT_WIFI_ENTRIES_CHANGED = 2;
+    // The saved entries were updated. arg0 = saved entry count, arg1 = subscription entry count.
+    static final int EVENT_SAVED_ENTRIES_CHANGED = 3;
+    // A scan was requested. name = scanner, arg0 = interval to the next scan in ms or -1.
+    static final int EVENT_SCAN_REQUESTED = 4;
+    // A scan request was skipped since another tracker scanned recently.
+    static final int EVENT_SCAN_SKIPPED = 5;
+    // Scan results were received outside of a broadcast. name = source, arg0 = result count.
+    static final int EVENT_SCAN_RESULTS_RECEIVED = 6;
+
+    private final int mCapacity;
+    @GuardedBy("this")
+    private final long[] mTimestampsMillis;
+    @GuardedBy("this")
+    private final int[] mTypes;
+    @GuardedBy("this")
+    private final String[] mNames;
+    @GuardedBy("this")
+    private final long[] mArgs0;
+    @GuardedBy("this")
+    private final long[] mArgs1;
+    // Index of the next event to write, which is the oldest event once the buffer is full.
+    @GuardedBy("this")
+    private int mNext;
+    @GuardedBy("this")
+    private int mSize;
+
+    TrackerEventLog(int capacity) {
+        mCapacity = capacity;
+        mTimestampsMillis = new long[capacity];
+        mTypes = new int[capacity];
+        mNames = new String[capacity];
+        mArgs0 = new long[capacity];
+        mArgs1 = new long[capacity];
+    }
+
+    /**
+     * Records an event, overwriting the oldest event if the buffer is full. The name should be a
+     * constant, since it is kept until the event is overwritten.
+     */
+    @AnyThread
+    synchronized void record(int type, @Nullable String name, long arg0, long arg1) {
+        mTimestampsMillis[mNext] = SystemClock.elapsedRealtime();
+        mTypes[mNext] = type;
+        mNames[mNext] = name;
+        mArgs0[mNext] = arg0;
+        mArgs1[mNext] = arg1;
+        mNext = (mNext + 1) % mCapacity;
+        if (mSize < mCapacity) {
+            mSize++;
+        }
+    }
+
+    /**
+     * Records an event with a name and no numeric arguments.
+     */
+    @AnyThread
+    void record(int type, @Nullable String name) {
+        record(type, name, 0, 0);
+    }
+
+    /**
+     * Records an event with numeric arguments and no name.
+     */
+    @AnyThread
+    void record(int type, long arg0, long arg1) {
+        record(type, null, arg0, arg1);
+    }
+
+    /**
+     * Prints the recorded events from oldest to newest, with their age relative to now.
+     */
+    @AnyThread
+    synchronized void dump(@NonNull PrintWriter pw) {
+        final long nowMillis = SystemClock.elapsedRealtime();
+        pw.println("  Recent events (" + mSize + "):");
+        for (int i = 0; i < mSize; i++) {
+            final int index = (mNext - mSize + i + mCapacity) % mCapacity;
+            pw.println("    -" + (nowMillis - mTimestampsMillis[index]) + "ms "
+                    + formatEvent(mTypes[index], mNames[index], mArgs0[index], mArgs1[index]));
+        }
+    }
+
+    @NonNull
+    private static String formatEvent(int type, @Nullable String name, long arg0, long arg1) {
+        switch (type) {
+            case EVENT_BROADCAST_RECEIVED:
+                return "Received broadcast: " + name;
+            case EVENT_WIFI_ENTRIES_CHANGED:
+                return "onWifiEntriesChanged: reason=" + arg0 + ", entries=" + arg1;
+            case EVENT_SAVED_ENTRIES_CHANGED:
+                return "Updated saved entries: saved=" + arg0 + ", subscriptions=" + arg1;
+            case EVENT_SCAN_REQUESTED:
+                return "Issued scan request from " + name
+                        + (arg0 >= 0 ? ", next scan in " + arg0 + "ms" : "");
+            case EVENT_SCAN_SKIPPED:
+                return "Skipped scan request since another tracker scanned recently";
+            case EVENT_SCAN_RESULTS_RECEIVED:
+                return "Received " + arg0 + " scan results from " + name;
+            default:
+                return "Unknown event " + type + ": name=" + name + ", arg0=" + arg0
+                        + ", arg1=" + arg1;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import android.os.SystemClock;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+
+import java.io.PrintWriter;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Latency histograms of the phases between receiving new scan results and delivering the updated
+ * WifiEntries to the listener.
+ *
+ * Each phase counts its durations into fixed exponential buckets, so recording a duration does
+ * not allocate. Percentiles are reported as the upper bound of the bucket they fall in, capped at
+ * the longest recorded duration.
+ */
+public class TrackerLatencyStats {
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef(value = {
+            PHASE_SCAN_RESULTS_BROADCAST,
+            PHASE_FETCH_SCAN_RESULTS,
+            PHASE_GROUP_SCAN_RESULTS,
+            PHASE_UPDATE_STANDARD_SCANS,
+            PHASE_UPDATE_SUGGESTED_SCANS,
+            PHASE_UPDATE_PASSPOINT_SCANS,
+            PHASE_UPDATE_OSU_SCANS,
+            PHASE_UPDATE_SHARED_CONNECTIVITY_SCANS,
+            PHASE_UPDATE_NETWORK_REQUEST_SCANS,
+            PHASE_UPDATE_CONTEXTUAL_SCANS,
+            PHASE_BUILD_LIST,
+            PHASE_SORT_LIST,
+            PHASE_MAIN_THREAD_DELIVERY,
+    })
+    public @interface Phase {}
+
+    // Handling of a SCAN_RESULTS_AVAILABLE_ACTION broadcast on the worker thread, end to end.
+    public static final int PHASE_SCAN_RESULTS_BROADCAST = 0;
+    // Fetching the scan results from the framework or the shared hub.
+    public static final int PHASE_FETCH_SCAN_RESULTS = 1;
+    // Grouping the scan results by ScanResultKey.
+    public static final int PHASE_GROUP_SCAN_RESULTS = 2;
+    // Updating the scans of each type of WifiEntry.
+    public static final int PHASE_UPDATE_STANDARD_SCANS = 3;
+    public static final int PHASE_UPDATE_SUGGESTED_SCANS = 4;
+    public static final int PHASE_UPDATE_PASSPOINT_SCANS = 5;
+    public static final int PHASE_UPDATE_OSU_SCANS = 6;
+    public static final int PHASE_UPDATE_SHARED_CONNECTIVITY_SCANS = 7;
+    public static final int PHASE_UPDATE_NETWORK_REQUEST_SCANS = 8;
+    public static final int PHASE_UPDATE_CONTEXTUAL_SCANS = 9;
+    // Building the lists returned by the getters, up to sorting the list of WifiEntries.
+    public static final int PHASE_BUILD_LIST = 10;
+    // Sorting the list of WifiEntries.
+    public static final int PHASE_SORT_LIST = 11;
+    // From posting the list change callback until the listener returns on the main thread.
+    public static final int PHASE_MAIN_THREAD_DELIVERY = 12;
+    private static final int NUM_PHASES = 13;
+
+    private static final String[] PHASE_NAMES = {
+            "ScanResultsBroadcast",
+            "FetchScanResults",
+            "GroupScanResults",
+            "UpdateStandardScans",
+            "UpdateSuggestedScans",
+            "UpdatePasspointScans",
+            "UpdateOsuScans",
+            "UpdateSharedConnectivityScans",
+            "UpdateNetworkRequestScans",
+            "UpdateContextualScans",
+            "BuildList",
+            "SortList",
+            "MainThreadDelivery",
+    };
+
+    // Upper bounds of the buckets in microseconds. Longer durations go into a final bucket.
+    private static final long[] BUCKET_UPPER_BOUNDS_MICROS = {
+            50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000,
+            500_000, 1_000_000,
+    };
+    private static final int NUM_BUCKETS = BUCKET_UPPER_BOUNDS_MICROS.length + 1;
+
+    @GuardedBy("this")
+    private final long[][] mBucketCounts = new long[NUM_PHASES][NUM_BUCKETS];
+    @GuardedBy("this")
+    private final long[] mCounts = new long[NUM_PHASES];
+    @GuardedBy("this")
+    private final long[] mMaxMicros = new long[NUM_PHASES];
+
+    TrackerLatencyStats() {
+        // Empty.
+    }
+
+    /**
+     * Returns a copy of these stats, which is not affected by later durations.
+     */
+    @AnyThread
+    @NonNull
+    synchronized TrackerLatencyStats copy() {
+        final TrackerLatencyStats copy = new TrackerLatencyStats();
+        for (int phase = 0; phase < NUM_PHASES; phase++) {
+            System.arraycopy(mBucketCounts[phase], 0, copy.mBucketCounts[phase], 0, NUM_BUCKETS);
+        }
+        System.arraycopy(mCounts, 0, copy.mCounts, 0, NUM_PHASES);
+        System.arraycopy(mMaxMicros, 0, copy.mMaxMicros, 0, NUM_PHASES);
+        return copy;
+    }
+
+    /**
+     * Records the duration of a phase that started at the given
+     * {@link SystemClock#elapsedRealtimeNanos()} and ends now.
+     */
+    @AnyThread
+    void recordSince(@Phase int phase, long startNanos) {
+        record(phase, (SystemClock.elapsedRealtimeNanos() - startNanos) / 1000);
+    }
+
+    /**
+     * Records a duration of a phase in microseconds.
+     */
+    @AnyThread
+    synchronized void record(@Phase int phase, long durationMicros) {
+        int bucket = 0;
+        while (bucket < BUCKET_UPPER_BOUNDS_MICROS.length
+                && durationMicros > BUCKET_UPPER_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        mBucketCounts[phase][bucket]++;
+        mCounts[phase]++;
+        mMaxMicros[phase] = Math.max(mMaxMicros[phase], durationMicros);
+    }
+
+    /**
+     * Returns the number of recorded durations of a phase.
+     */
+    @AnyThread
+    public synchronized long getCount(@Phase int phase) {
+        return mCounts[phase];
+    }
+
+    /**
+     * Returns the longest recorded duration of a phase in microseconds, or 0 if there is none.
+     */
+    @AnyThread
+    public synchronized long getMaxMicros(@Phase int phase) {
+        return mMaxMicros[phase];
+    }
+
+    /**
+     * Returns the given percentile of the durations of a phase in microseconds, or 0 if there is
+     * none.
+     *
+     * @param percentile Percentile between 0 and 100.
+     */
+    @AnyThread
+    public synchronized long getPercentileMicros(@Phase int phase, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        final long count = mCounts[phase];
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long cumulativeCount = 0;
+        for (int bucket = 0; bucket < BUCKET_UPPER_BOUNDS_MICROS.length; bucket++) {
+            cumulativeCount += mBucketCounts[phase][bucket];
+            if (cumulativeCount >= rank) {
+                return Math.min(BUCKET_UPPER_BOUNDS_MICROS[bucket], mMaxMicros[phase]);
+            }
+        }
+        return mMaxMicros[phase];
+    }
+
+    /**
+     * Returns the name of a phase for debugging.
+     */
+    @AnyThread
+    @NonNull
+    public static String getPhaseName(@Phase int phase) {
+        return PHASE_NAMES[phase];
+    }
+
+    /**
+     * Prints the count and percentiles of each phase with at least one duration.
+     */
+    @AnyThread
+    synchronized void dump(@NonNull PrintWriter pw) {
+        pw.println("  Latency (us):");
+        for (int phase = 0; phase < NUM_PHASES; phase++) {
+            if (mCounts[phase] == 0) {
+                continue;
+            }
+            pw.println("    " + PHASE_NAMES[phase]
+                    + ": count=" + mCounts[phase]
+                    + " p50=" + getPercentileMicros(phase, 50)
+                    + " p90=" + getPercentileMicros(phase, 90)
+                    + " p99=" + getPercentileMicros(phase, 99)
+                    + " max=" + mMaxMicros[phase]);
+        }
+    }
+}
@@ -39,6 +39,8 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.content.res.Resources;
 import android.net.ConnectivityDiagnosticsManager;
 import android.net.NetworkCapabilities;
 import android.net.NetworkInfo;
@@ -52,6 +54,7 @@ import android.net.wifi.WifiEnterpriseConfig;
 import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiScanner;
 import android.os.Build;
+import android.os.LocaleList;
 import android.os.PersistableBundle;
 import android.os.UserHandle;
 import android.telephony.CarrierConfigManager;
@@ -60,19 +63,23 @@ import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.text.TextUtils;
 import android.text.format.DateUtils;
+import android.util.LruCache;
 import android.util.Pair;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.core.os.BuildCompat;
 
+import java.lang.ref.WeakReference;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.StringJoiner;
 
 /**
@@ -83,6 +90,18 @@ public class Utils {
     // This reason is added in U and hidden in T, using a hard-coded value first.
     public static final int DISABLED_TRANSITION_DISABLE_INDICATION = 13;
 
+    private static final int APP_LABEL_CACHE_SIZE = 32;
+
+    // Recently loaded app labels by package name, shared by all WifiEntries. The cache is cleared
+    // whenever labels are requested through a different PackageManager or for different locales.
+    private static final LruCache<String, String> sAppLabelCache =
+            new LruCache<>(APP_LABEL_CACHE_SIZE);
+    @GuardedBy("sAppLabelCache")
+    @NonNull private static WeakReference<PackageManager> sAppLabelCachePackageManager =
+            new WeakReference<>(null);
+    @GuardedBy("sAppLabelCache")
+    @Nullable private static LocaleList sAppLabelCacheLocales;
+
     // Returns the ScanResult with the best RSSI from a list of ScanResults.
     @Nullable
     public static ScanResult getBestScanResultByLevel(@NonNull List<ScanResult> scanResults) {
@@ -239,16 +258,49 @@ public class Utils {
      * Get the app label for a suggestion/specifier package name, or an empty String if none exist
      */
     static String getAppLabel(Context context, String packageName) {
+        final PackageManager packageManager = context.getPackageManager();
+        final LocaleList locales = getLocales(context);
+        synchronized (sAppLabelCache) {
+            if (sAppLabelCachePackageManager.get() != packageManager
+                    || !Objects.equals(sAppLabelCacheLocales, locales)) {
+                sAppLabelCache.evictAll();
+                sAppLabelCachePackageManager = new WeakReference<>(packageManager);
+                sAppLabelCacheLocales = locales;
+            }
+            final String appLabel = sAppLabelCache.get(packageName);
+            if (appLabel != null) {
+                return appLabel;
+            }
+        }
         try {
-            ApplicationInfo appInfo = context.getPackageManager().getApplicationInfo(
+            ApplicationInfo appInfo = packageManager.getApplicationInfo(
                     packageName,
                     0 /* flags */);
-            return appInfo.loadLabel(context.getPackageManager()).toString();
+            final String appLabel = appInfo.loadLabel(packageManager).toString();
+            synchronized (sAppLabelCache) {
+                if (sAppLabelCachePackageManager.get() == packageManager) {
+                    sAppLabelCache.put(packageName, appLabel);
+                }
+            }
+            return appLabel;
         } catch (PackageManager.NameNotFoundException e) {
             return "";
         }
     }
 
+    /**
+     * Returns the locales of the given context, or null if they are unavailable.
+     */
+    @Nullable
+    static LocaleList getLocales(@NonNull Context context) {
+        final Resources resources = context.getResources();
+        if (resources == null) {
+            return null;
+        }
+        final Configuration configuration = resources.getConfiguration();
+        return configuration == null ? null : configuration.getLocales();
+    }
+
     static String getConnectedDescription(@NonNull Context context,
             @Nullable WifiConfiguration wifiConfiguration,
             @NonNull NetworkCapabilities networkCapabilities,
@@ -256,6 +308,19 @@ public class Utils {
             boolean isDefaultNetwork,
             boolean isLowQuality,
             @Nullable ConnectivityDiagnosticsManager.ConnectivityReport connectivityReport) {
+        return getConnectedDescription(null /* injector */, context, wifiConfiguration,
+                networkCapabilities, wifiInfo, isDefaultNetwork, isLowQuality,
+                connectivityReport);
+    }
+
+    static String getConnectedDescription(@Nullable WifiTrackerInjector injector,
+            @NonNull Context context,
+            @Nullable WifiConfiguration wifiConfiguration,
+            @NonNull NetworkCapabilities networkCapabilities,
+            @Nullable WifiInfo wifiInfo,
+            boolean isDefaultNetwork,
+            boolean isLowQuality,
+            @Nullable ConnectivityDiagnosticsManager.ConnectivityReport connectivityReport) {
         final StringJoiner sj = new StringJoiner(context.getString(
                 R.string.wifitrackerlib_summary_separator));
 
@@ -275,7 +340,8 @@ public class Utils {
         if (wifiConfiguration != null
                 && (wifiConfiguration.fromWifiNetworkSuggestion
                 || wifiConfiguration.fromWifiNetworkSpecifier)) {
-            suggestionOrSpecifierLabel = getSuggestionOrSpecifierLabel(context, wifiConfiguration);
+            suggestionOrSpecifierLabel = getSuggestionOrSpecifierLabel(injector, context,
+                    wifiConfiguration);
         }
         final boolean shouldShowConnected;
         if (isValidated) {
@@ -387,7 +453,7 @@ public class Utils {
         } else {
             if (wifiConfiguration.fromWifiNetworkSuggestion) {
                 final String suggestionOrSpecifierLabel =
-                        getSuggestionOrSpecifierLabel(context, wifiConfiguration);
+                        getSuggestionOrSpecifierLabel(injector, context, wifiConfiguration);
                 if (!TextUtils.isEmpty(suggestionOrSpecifierLabel)) {
                     sj.add(context.getString(
                             R.string.wifitrackerlib_available_via_app,
@@ -408,14 +474,18 @@ public class Utils {
         return sj.toString();
     }
 
-    private static String getSuggestionOrSpecifierLabel(
+    private static String getSuggestionOrSpecifierLabel(@Nullable WifiTrackerInjector injector,
             Context context, WifiConfiguration wifiConfiguration) {
         if (context == null || wifiConfiguration == null) {
             return "";
         }
 
-        final String carrierName = getCarrierNameForSubId(context,
-                getSubIdForConfig(context, wifiConfiguration));
+        final SubscriptionStateCache subscriptionStateCache =
+                injector == null ? null : injector.getSubscriptionStateCache();
+        final String carrierName = subscriptionStateCache != null
+                ? subscriptionStateCache.getCarrierNameForSubId(
+                        subscriptionStateCache.getSubIdForConfig(wifiConfiguration))
+                : getCarrierNameForSubId(context, getSubIdForConfig(context, wifiConfiguration));
         if (!TextUtils.isEmpty(carrierName)) {
             return carrierName;
         }
@@ -625,11 +695,13 @@ public class Utils {
      * present.
      */
     static boolean isSimPresent(@NonNull Context context, int carrierId) {
-        SubscriptionManager subscriptionManager =
-                (SubscriptionManager) context.getSystemService(
-                        Context.TELEPHONY_SUBSCRIPTION_SERVICE);
-        if (subscriptionManager == null) return false;
-        List<SubscriptionInfo> subInfoList = subscriptionManager.getActiveSubscriptionInfoList();
+        return isSimPresent(getActiveSubscriptionInfoList(context), carrierId);
+    }
+
+    /**
+     * Check if the SIM is present for target carrier Id among the given active subscriptions.
+     */
+    static boolean isSimPresent(@Nullable List<SubscriptionInfo> subInfoList, int carrierId) {
         if (subInfoList == null || subInfoList.isEmpty()) {
             return false;
         }
@@ -675,19 +747,21 @@ public class Utils {
         if (config.carrierId == TelephonyManager.UNKNOWN_CARRIER_ID) {
             return SubscriptionManager.INVALID_SUBSCRIPTION_ID;
         }
-        SubscriptionManager subscriptionManager =
-                (SubscriptionManager) context.getSystemService(
-                        Context.TELEPHONY_SUBSCRIPTION_SERVICE);
-        if (subscriptionManager == null) {
-            return SubscriptionManager.INVALID_SUBSCRIPTION_ID;
-        }
-        List<SubscriptionInfo> subInfoList = subscriptionManager.getActiveSubscriptionInfoList();
+        List<SubscriptionInfo> subInfoList = getActiveSubscriptionInfoList(context);
         if (subInfoList == null || subInfoList.isEmpty()) {
             return SubscriptionManager.INVALID_SUBSCRIPTION_ID;
         }
+        return getSubIdForConfig(subInfoList, SubscriptionManager.getDefaultDataSubscriptionId(),
+                config);
+    }
 
+    /**
+     * Get the best match subscription Id for target WifiConfiguration among the given active
+     * subscriptions, preferring the default data subscription.
+     */
+    static int getSubIdForConfig(@NonNull List<SubscriptionInfo> subInfoList, int dataSubId,
+            @NonNull WifiConfiguration config) {
         int matchSubId = SubscriptionManager.INVALID_SUBSCRIPTION_ID;
-        int dataSubId = SubscriptionManager.getDefaultDataSubscriptionId();
         for (SubscriptionInfo subInfo : subInfoList) {
             if (subInfo.getCarrierId() == config.carrierId) {
                 matchSubId = subInfo.getSubscriptionId();
@@ -700,6 +774,20 @@ public class Utils {
         return matchSubId;
     }
 
+    /**
+     * Get the list of active subscriptions, or null if it is unavailable.
+     */
+    @Nullable
+    static List<SubscriptionInfo> getActiveSubscriptionInfoList(@NonNull Context context) {
+        SubscriptionManager subscriptionManager =
+                (SubscriptionManager) context.getSystemService(
+                        Context.TELEPHONY_SUBSCRIPTION_SERVICE);
+        if (subscriptionManager == null) {
+            return null;
+        }
+        return subscriptionManager.getActiveSubscriptionInfoList();
+    }
+
     /**
      * Check if target subscription Id requires IMSI privacy protection.
      */
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import android.net.wifi.ScanResult;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * On-disk snapshot of the scan cache and displayed entry keys of a WifiPickerTracker.
+ *
+ * The snapshot is written when the tracker stops and read back through a memory-mapped file when
+ * it starts again, so that a provisional list can be shown before the binder fetches and the first
+ * scan complete.
+ *
+ * File layout (big-endian):
+ *   int magic, int version, long savedElapsedMillis, long savedWallMillis,
+ *   int scanCount, scanCount * {str SSID, str BSSID, str capabilities, int level,
+ *                               int frequency, long timestampMicros},
+ *   int keyCount, keyCount * {str key}
+ * where str is an int byte length (-1 for null) followed by UTF-8 bytes.
+ */
+class WarmStartSnapshot {
+    private static final String TAG = "WarmStartSnapshot";
+
+    private static final int MAGIC = 0x57545353; // "WTSS"
+    private static final int VERSION = 1;
+
+    // Max difference between elapsed and wall clock deltas before we assume a reboot or clock
+    // change happened and the scan timestamps can no longer be trusted.
+    private static final long MAX_CLOCK_SKEW_MILLIS = 10_000;
+
+    // Upper bounds used to reject corrupt files before allocating anything.
+    private static final int MAX_SCAN_COUNT = 10_000;
+    private static final int MAX_KEY_COUNT = 10_000;
+    private static final int MAX_STRING_BYTES = 4096;
+
+    @NonNull private final AtomicFile mFile;
+
+    private final long mSavedElapsedMillis;
+    @NonNull private final List<ScanResult> mScanResults;
+    @NonNull private final List<String> mEntryKeys;
+
+    private WarmStartSnapshot(@NonNull AtomicFile file, long savedElapsedMillis,
+            @NonNull List<ScanResult> scanResults, @NonNull List<String> entryKeys) {
+        mFile = file;
+        mSavedElapsedMillis = savedElapsedMillis;
+        mScanResults = scanResults;
+        mEntryKeys = entryKeys;
+    }
+
+    /**
+     * Returns the elapsed realtime in milliseconds at which the snapshot was written.
+     */
+    long getSavedElapsedMillis() {
+        return mSavedElapsedMillis;
+    }
+
+    /**
+     * Returns the scan results stored in the snapshot.
+     */
+    @NonNull
+    List<ScanResult> getScanResults() {
+        return mScanResults;
+    }
+
+    /**
+     * Returns the keys of the WifiEntries that were displayed when the snapshot was written.
+     */
+    @NonNull
+    List<String> getEntryKeys() {
+        return mEntryKeys;
+    }
+
+    /**
+     * Writes a snapshot of the given scans and entry keys to the file, replacing any previous one.
+     */
+    @WorkerThread
+    static void write(@NonNull File file, long elapsedMillis, long wallMillis,
+            @NonNull List<ScanResult> scanResults, @NonNull List<String> entryKeys) {
+        final AtomicFile atomicFile = new AtomicFile(file);
+        FileOutputStream fos = null;
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(elapsedMillis);
+            out.writeLong(wallMillis);
+            out.writeInt(scanResults.size());
+            for (ScanResult scan : scanResults) {
+                writeString(out, scan.SSID);
+                writeString(out, scan.BSSID);
+                writeString(out, scan.capabilities);
+                out.writeInt(scan.level);
+                out.writeInt(scan.frequency);
+                out.writeLong(scan.timestamp);
+            }
+            out.writeInt(entryKeys.size());
+            for (String key : entryKeys) {
+                writeString(out, key);
+            }
+            out.flush();
+            fos = atomicFile.startWrite();
+            fos.write(bytes.toByteArray());
+            atomicFile.finishWrite(fos);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write snapshot: " + e);
+            if (fos != null) {
+                atomicFile.failWrite(fos);
+            }
+        }
+    }
+
+    /**
+     * Reads the snapshot from the file, or returns null if there is no valid snapshot or the
+     * clocks indicate that the device rebooted since it was written.
+     */
+    @WorkerThread
+    @Nullable
+    static WarmStartSnapshot read(@NonNull File file, long elapsedMillis, long wallMillis) {
+        final AtomicFile atomicFile = new AtomicFile(file);
+        final File baseFile = atomicFile.getBaseFile();
+        if (!baseFile.exists()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(baseFile, "r");
+                FileChannel channel = raf.getChannel()) {
+            final MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                Log.w(TAG, "Discarding snapshot with unknown format");
+                atomicFile.delete();
+                return null;
+            }
+            final long savedElapsedMillis = buffer.getLong();
+            final long savedWallMillis = buffer.getLong();
+            final long elapsedDelta = elapsedMillis - savedElapsedMillis;
+            final long wallDelta = wallMillis - savedWallMillis;
+            if (elapsedDelta < 0 || Math.abs(wallDelta - elapsedDelta) > MAX_CLOCK_SKEW_MILLIS) {
+                // Scan timestamps are in elapsed realtime, which restarts on reboot.
+                atomicFile.delete();
+                return null;
+            }
+            final int scanCount = readCount(buffer, MAX_SCAN_COUNT);
+            final List<ScanResult> scanResults = new ArrayList<>(scanCount);
+            for (int i = 0; i < scanCount; i++) {
+                final ScanResult scan = new ScanResult();
+                scan.SSID = readString(buffer);
+                scan.BSSID = readString(buffer);
+                scan.capabilities = readString(buffer);
+                scan.level = buffer.getInt();
+                scan.frequency = buffer.getInt();
+                scan.timestamp = buffer.getLong();
+                scanResults.add(scan);
+            }
+            final int keyCount = readCount(buffer, MAX_KEY_COUNT);
+            final List<String> entryKeys = new ArrayList<>(keyCount);
+            for (int i = 0; i < keyCount; i++) {
+                entryKeys.add(readString(buffer));
+            }
+            return new WarmStartSnapshot(atomicFile, savedElapsedMillis,
+                    Collections.unmodifiableList(scanResults),
+                    Collections.unmodifiableList(entryKeys));
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Log.e(TAG, "Failed to read snapshot: " + e);
+            atomicFile.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the backing file of this snapshot.
+     */
+    @WorkerThread
+    void delete() {
+        mFile.delete();
+    }
+
+    private static void writeString(@NonNull DataOutputStream out, @Nullable String string)
+            throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Nullable
+    private static String readString(@NonNull ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > MAX_STRING_BYTES || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readCount(@NonNull ByteBuffer buffer, int max) {
+        final int count = buffer.getInt();
+        if (count < 0 || count > max) {
+            throw new IllegalArgumentException("Invalid count " + count);
+        }
+        return count;
+    }
+}
@@ -37,10 +37,12 @@ import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiManager;
 import android.os.Handler;
+import android.os.LocaleList;
 import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.AnyThread;
+import androidx.annotation.GuardedBy;
 import androidx.annotation.IntDef;
 import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
@@ -59,8 +61,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -264,6 +268,19 @@ public class WifiEntry {
     protected boolean mCalledConnect = false;
     protected boolean mCalledDisconnect = false;
 
+    // Incremented on every change to the state of this entry, to invalidate the cached summaries.
+    @GuardedBy("this")
+    private int mStateVersion;
+    // Summaries returned by getCachedSummary() for mCachedSummaryFingerprint and the locales.
+    @GuardedBy("this")
+    @Nullable private String mCachedSummary;
+    @GuardedBy("this")
+    @Nullable private String mCachedConciseSummary;
+    @GuardedBy("this")
+    @Nullable private int[] mCachedSummaryFingerprint;
+    @GuardedBy("this")
+    @Nullable private LocaleList mCachedSummaryLocales;
+
 
     private Optional<ManageSubscriptionAction> mManageSubscriptionAction = Optional.empty();
 
@@ -342,6 +359,61 @@ public class WifiEntry {
         return "";
     };
 
+    /**
+     * Returns the summary built by the given builder, reusing the last built summary if neither
+     * the state fingerprint of this entry nor the locales have changed since.
+     */
+    @NonNull
+    protected synchronized String getCachedSummary(boolean concise,
+            @NonNull Supplier<String> summaryBuilder) {
+        if (!concise && isVerboseSummaryEnabled()) {
+            // The verbose summary shows RSSIs and scan ages that change without any update.
+            return summaryBuilder.get();
+        }
+        final int[] fingerprint = getSummaryFingerprint();
+        final LocaleList locales = Utils.getLocales(mContext);
+        if (!Arrays.equals(fingerprint, mCachedSummaryFingerprint)
+                || !Objects.equals(locales, mCachedSummaryLocales)) {
+            mCachedSummary = null;
+            mCachedConciseSummary = null;
+            mCachedSummaryFingerprint = fingerprint;
+            mCachedSummaryLocales = locales;
+        }
+        String summary = concise ? mCachedConciseSummary : mCachedSummary;
+        if (summary == null) {
+            summary = summaryBuilder.get();
+            if (concise) {
+                mCachedConciseSummary = summary;
+            } else {
+                mCachedSummary = summary;
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Returns a fingerprint of the state the summary is built from. Subclasses should add any
+     * state that may change without going through this entry, such as the fields of a
+     * WifiConfiguration that are updated in place.
+     */
+    @GuardedBy("this")
+    @NonNull
+    protected int[] getSummaryFingerprint() {
+        // Summaries may show carrier names from the subscription state.
+        final SubscriptionStateCache subscriptionStateCache =
+                mInjector.getSubscriptionStateCache();
+        return new int[] {mStateVersion,
+                subscriptionStateCache == null ? 0 : subscriptionStateCache.getGeneration()};
+    }
+
+    /**
+     * Invalidates the cached summaries after a change to the state of this entry.
+     */
+    @AnyThread
+    protected synchronized void invalidateCachedSummary() {
+        mStateVersion++;
+    }
+
     /**
      * Returns the signal strength level within [WIFI_LEVEL_MIN, WIFI_LEVEL_MAX].
      * A value of WIFI_LEVEL_UNREACHABLE indicates an out of range network.
@@ -895,6 +967,7 @@ public class WifiEntry {
 
     @AnyThread
     protected void notifyOnUpdated() {
+        invalidateCachedSummary();
         if (mListener != null) {
             mCallbackHandler.post(() -> {
                 final WifiEntryCallback listener = mListener;
@@ -1097,6 +1170,14 @@ public class WifiEntry {
         updateSecurityTypes();
     }
 
+    /**
+     * Returns whether this WifiEntry has a current or previous Network, i.e. whether changes to
+     * any Network may need to be dispatched to it.
+     */
+    synchronized boolean hasNetwork() {
+        return mNetwork != null || mLastNetwork != null;
+    }
+
     /**
      * Updates this WifiEntry as disconnected if the network matches.
      * @param network Network that was lost
@@ -1130,7 +1211,54 @@ public class WifiEntry {
                 }
             });
         }
-        if (notify) notifyOnUpdated();
+        if (notify) {
+            notifyOnUpdated();
+        } else {
+            invalidateCachedSummary();
+        }
+    }
+
+    /**
+     * Copies the connection info of another WifiEntry representing the same network, so that this
+     * entry can be shown before receiving its own NetworkCallbacks.
+     */
+    void copyConnectionInfoFrom(@NonNull WifiEntry other) {
+        final Network network;
+        final Network lastNetwork;
+        final NetworkCapabilities networkCapabilities;
+        final NetworkInfo networkInfo;
+        final WifiInfo wifiInfo;
+        final ConnectedInfo connectedInfo;
+        final Network defaultNetwork;
+        final NetworkCapabilities defaultNetworkCapabilities;
+        final ConnectivityDiagnosticsManager.ConnectivityReport connectivityReport;
+        // Read the other entry under its own lock so the two locks are never held together.
+        synchronized (other) {
+            network = other.mNetwork;
+            lastNetwork = other.mLastNetwork;
+            networkCapabilities = other.mNetworkCapabilities;
+            networkInfo = other.mNetworkInfo;
+            wifiInfo = other.mWifiInfo;
+            connectedInfo = other.mConnectedInfo == null
+                    ? null : new ConnectedInfo(other.mConnectedInfo);
+            defaultNetwork = other.mDefaultNetwork;
+            defaultNetworkCapabilities = other.mDefaultNetworkCapabilities;
+            connectivityReport = other.mConnectivityReport;
+        }
+        synchronized (this) {
+            mNetwork = network;
+            mLastNetwork = lastNetwork;
+            mNetworkCapabilities = networkCapabilities;
+            mNetworkInfo = networkInfo;
+            mDefaultNetwork = defaultNetwork;
+            mDefaultNetworkCapabilities = defaultNetworkCapabilities;
+            mConnectivityReport = connectivityReport;
+            updateWifiInfo(wifiInfo);
+            if (connectedInfo != null) {
+                mConnectedInfo = connectedInfo;
+            }
+            invalidateCachedSummary();
+        }
     }
 
     /**
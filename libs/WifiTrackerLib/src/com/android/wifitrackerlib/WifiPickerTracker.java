@@ -53,11 +53,14 @@ import android.net.wifi.sharedconnectivity.app.HotspotNetworkConnectionStatus;
 import android.net.wifi.sharedconnectivity.app.KnownNetwork;
 import android.net.wifi.sharedconnectivity.app.KnownNetworkConnectionStatus;
 import android.os.Handler;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.telephony.SubscriptionManager;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.Log;
+import android.util.LongSparseArray;
 import android.util.Pair;
 import android.util.SparseArray;
 
@@ -71,17 +74,26 @@ import androidx.annotation.WorkerThread;
 import androidx.core.os.BuildCompat;
 import androidx.lifecycle.Lifecycle;
 
+import java.io.File;
+import java.io.PrintWriter;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringJoiner;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -100,6 +112,29 @@ public class WifiPickerTracker extends BaseWifiTracker {
     private static final String EXTRA_KEY_CONNECTION_STATUS_CONNECTED =
             "connection_status_connected";
 
+    private static final String WARM_START_SNAPSHOT_FILE_NAME =
+            "wifitrackerlib_picker_snapshot.bin";
+    // Default max age of the snapshot scans to publish on start. This is well above the live max
+    // scan age so that the provisional list covers reopening the picker minutes later.
+    private static final long DEFAULT_WARM_START_SNAPSHOT_MAX_AGE_MILLIS = 10 * 60 * 1000;
+
+    // Number of threads used to issue the independent binder fetches of the parallel start.
+    private static final int PARALLEL_START_THREAD_COUNT = 5;
+    private static final long PARALLEL_START_THREAD_KEEP_ALIVE_SECONDS = 10;
+
+    private static final String TRACE_CONDITIONALLY_UPDATE_SCAN_RESULTS =
+            "WifiPickerTracker#conditionallyUpdateScanResults";
+    private static final String TRACE_UPDATE_WIFI_CONFIGURATIONS =
+            "WifiPickerTracker#updateWifiConfigurations";
+    private static final String TRACE_UPDATE_WIFI_ENTRIES = "WifiPickerTracker#updateWifiEntries";
+    private static final String TRACE_COUNTER_SCANS = "WifiPickerTracker:scans";
+    private static final String TRACE_COUNTER_STANDARD_ENTRIES =
+            "WifiPickerTracker:standardEntries";
+    private static final String TRACE_COUNTER_SUGGESTED_ENTRIES =
+            "WifiPickerTracker:suggestedEntries";
+    private static final String TRACE_COUNTER_PASSPOINT_ENTRIES =
+            "WifiPickerTracker:passpointEntries";
+
     private final WifiPickerTrackerCallback mListener;
 
     // The current primary connected entry.
@@ -135,17 +170,50 @@ public class WifiPickerTracker extends BaseWifiTracker {
     private final SparseArray<WifiConfiguration> mPasspointWifiConfigCache = new SparseArray<>();
     // Cache containing visible PasspointWifiEntries. Must be accessed only by the worker thread.
     private final Map<String, PasspointWifiEntry> mPasspointWifiEntryCache = new ArrayMap<>();
+    // Index of the SSIDs seen in the scans of the cached PasspointWifiEntries.
+    private final PasspointSsidIndex mPasspointSsidIndex = new PasspointSsidIndex();
     // Cache containing visible OsuWifiEntries. Must be accessed only by the worker thread.
     private final Map<String, OsuWifiEntry> mOsuWifiEntryCache = new ArrayMap<>();
+    // Index of the cached WifiEntries for dispatching NetworkCallback updates, rebuilt whenever an
+    // entry is added or removed. Must be accessed only by the worker thread.
+    private final ConnectionDispatchIndex mConnectionDispatchIndex = new ConnectionDispatchIndex();
+    private boolean mIsConnectionDispatchIndexDirty = true;
 
     private MergedCarrierEntry mMergedCarrierEntry;
 
     private int mNumSavedNetworks;
 
-    private final List<KnownNetwork> mKnownNetworkDataCache = new ArrayList<>();
+    // KnownNetwork data from the service mapped by ScanResultKey, rebuilt only when the service
+    // delivers new data. Must be accessed only by the worker thread.
+    private final Map<ScanResultKey, KnownNetwork> mKnownNetworkDataByKey = new ArrayMap<>();
     private final List<KnownNetworkEntry> mKnownNetworkEntryCache = new ArrayList<>();
     private final List<HotspotNetwork> mHotspotNetworkDataCache = new ArrayList<>();
     private final List<HotspotNetworkEntry> mHotspotNetworkEntryCache = new ArrayList<>();
+    // Entries of mHotspotNetworkEntryCache mapped by device ID, along with the HotspotNetwork data
+    // each entry was last updated with. Must be accessed only by the worker thread.
+    private final LongSparseArray<HotspotNetworkEntry> mHotspotNetworkEntriesByDeviceId =
+            new LongSparseArray<>();
+    private final LongSparseArray<HotspotNetwork> mAppliedHotspotNetworkData =
+            new LongSparseArray<>();
+    // Whether mHotspotNetworkDataCache or mHotspotNetworkEntryCache changed since the hotspot
+    // entries were last reconciled. Must be accessed only by the worker thread.
+    private boolean mIsHotspotNetworkDataDirty = true;
+
+    // Whether to persist the scan cache on stop and show a provisional list from it on start.
+    private boolean mIsWarmStartSnapshotEnabled = false;
+    // Max age of the snapshot scans to publish on start.
+    private long mWarmStartSnapshotMaxAgeMillis = DEFAULT_WARM_START_SNAPSHOT_MAX_AGE_MILLIS;
+
+    // Whether to issue the binder fetches of handleOnStart() concurrently.
+    private boolean mIsParallelStartEnabled = false;
+    // Lazily created executor for the parallel start. Idle threads time out between starts.
+    @Nullable
+    private ExecutorService mParallelStartExecutor;
+    // Time from the start of the last handleOnStart() until the connected entry was built, or -1
+    // if there was no connected entry.
+    private volatile long mLastStartTimeToConnectedEntryMillis = -1;
+    // Time from the start of the last handleOnStart() until the full list was built.
+    private volatile long mLastStartTimeToFullListMillis = -1;
 
     /**
      * Constructor for WifiPickerTracker.
@@ -192,6 +260,76 @@ public class WifiPickerTracker extends BaseWifiTracker {
         mListener = listener;
     }
 
+    /**
+     * Enables or disables the warm-start snapshot.
+     *
+     * When enabled, the scan cache and the keys of the displayed WifiEntries are written to disk
+     * when the tracker stops. On the next start, entries for the snapshot scans that are at most
+     * 10 minutes old are published as a provisional list as soon as the saved networks are
+     * fetched, before fresh scan results are. The snapshot scans are only used for this list and
+     * don't extend the max scan age of the live entries. When disabled, any existing snapshot is
+     * deleted on the next stop.
+     *
+     * The snapshot holds the SSID, BSSID and RSSI of every cached scan, which is location
+     * sensitive, and is stored unencrypted in {@link Context#getCacheDir()} of the calling app.
+     * Only enable it if the app may keep this data at rest.
+     *
+     * This must be called before {@link #onStart()} to take effect for that start.
+     */
+    @MainThread
+    public void setWarmStartSnapshotEnabled(boolean enabled) {
+        setWarmStartSnapshotEnabled(enabled, DEFAULT_WARM_START_SNAPSHOT_MAX_AGE_MILLIS);
+    }
+
+    /**
+     * Enables or disables the warm-start snapshot as in {@link #setWarmStartSnapshotEnabled(
+     * boolean)}, publishing the entries of the snapshot scans that are at most the given age.
+     *
+     * @param maxAgeMillis Max age of the snapshot scans to publish on start, which is usually
+     *                     well above the max scan age of the tracker.
+     */
+    @MainThread
+    public void setWarmStartSnapshotEnabled(boolean enabled, long maxAgeMillis) {
+        if (maxAgeMillis <= 0) {
+            throw new IllegalArgumentException("Invalid snapshot max age: " + maxAgeMillis);
+        }
+        mIsWarmStartSnapshotEnabled = enabled;
+        mWarmStartSnapshotMaxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Enables or disables the parallel start.
+     *
+     * When enabled, the saved configurations, Passpoint configurations, scan results, current
+     * connection and default subscription are fetched concurrently on start instead of one after
+     * another, and the connected entry is published as soon as the saved configurations and the
+     * current connection are available, before the full list is built.
+     *
+     * This must be called before {@link #onStart()} to take effect for that start.
+     */
+    @MainThread
+    public void setParallelStartEnabled(boolean enabled) {
+        mIsParallelStartEnabled = enabled;
+    }
+
+    /**
+     * Returns the time in milliseconds from the start of the last {@link #onStart()} processing
+     * until the connected entry was built, or -1 if there was no connected entry.
+     */
+    @AnyThread
+    public long getLastStartTimeToConnectedEntryMillis() {
+        return mLastStartTimeToConnectedEntryMillis;
+    }
+
+    /**
+     * Returns the time in milliseconds from the start of the last {@link #onStart()} processing
+     * until the full list of WifiEntries was built, or -1 if the tracker has not started yet.
+     */
+    @AnyThread
+    public long getLastStartTimeToFullListMillis() {
+        return mLastStartTimeToFullListMillis;
+    }
+
     /**
      * Returns the WifiEntry representing the current primary connection.
      */
@@ -254,6 +392,29 @@ public class WifiPickerTracker extends BaseWifiTracker {
         return mPasspointConfigCache.size();
     }
 
+    /**
+     * Prints the state and recent events of the tracker, followed by the current WifiEntries.
+     */
+    @Override
+    @AnyThread
+    public void dump(@NonNull PrintWriter pw) {
+        super.dump(pw);
+        final List<WifiEntry> activeWifiEntries = getActiveWifiEntries();
+        final List<WifiEntry> wifiEntries = getWifiEntries();
+        final int numEntries = activeWifiEntries.size() + wifiEntries.size();
+        pw.println("  WifiEntries (" + numEntries + "):");
+        int index = 1;
+        for (WifiEntry entry : activeWifiEntries) {
+            pw.println("    Entry " + index + "/" + numEntries + ": " + entry);
+            index++;
+        }
+        for (WifiEntry entry : wifiEntries) {
+            pw.println("    Entry " + index + "/" + numEntries + ": " + entry);
+            index++;
+        }
+        pw.println("  MergedCarrierEntry: " + mMergedCarrierEntry);
+    }
+
     private List<WifiEntry> getAllWifiEntries() {
         List<WifiEntry> allEntries = new ArrayList<>();
         allEntries.addAll(mStandardWifiEntryCache);
@@ -274,13 +435,15 @@ public class WifiPickerTracker extends BaseWifiTracker {
     }
 
     private void clearAllWifiEntries() {
+        mIsConnectionDispatchIndexDirty = true;
         mStandardWifiEntryCache.clear();
         mSuggestedWifiEntryCache.clear();
         mPasspointWifiEntryCache.clear();
+        mPasspointSsidIndex.clear();
         mOsuWifiEntryCache.clear();
         if (mInjector.isSharedConnectivityFeatureEnabled()) {
             mKnownNetworkEntryCache.clear();
-            mHotspotNetworkEntryCache.clear();
+            clearHotspotNetworkEntries();
         }
         mNetworkRequestEntry = null;
     }
@@ -288,10 +451,30 @@ public class WifiPickerTracker extends BaseWifiTracker {
     @WorkerThread
     @Override
     protected void handleOnStart() {
+        final long startMillis = SystemClock.elapsedRealtime();
+        mLastStartTimeToConnectedEntryMillis = -1;
+        if (mIsParallelStartEnabled) {
+            handleOnStartParallel(startMillis);
+        } else {
+            handleOnStartSerial(startMillis);
+        }
+        mLastStartTimeToFullListMillis = SystemClock.elapsedRealtime() - startMillis;
+        if (isVerboseLoggingEnabled()) {
+            Log.v(TAG, "Start took " + mLastStartTimeToConnectedEntryMillis
+                    + "ms to connected entry, " + mLastStartTimeToFullListMillis
+                    + "ms to full list");
+        }
+    }
+
+    @WorkerThread
+    private void handleOnStartSerial(long startMillis) {
         // Update configs and scans
         updateWifiConfigurationsInternal();
+        if (mIsWarmStartSnapshotEnabled) {
+            publishWarmStartWifiEntries();
+        }
         updatePasspointConfigurations(mWifiManager.getPasspointConfigurations());
-        mScanResultUpdater.update(mWifiManager.getScanResults());
+        mScanResultUpdater.update(fetchScanResults());
         conditionallyUpdateScanResults(true /* lastScanSucceeded */);
 
         // Trigger callbacks manually now to avoid waiting until the first calls to update state.
@@ -302,28 +485,166 @@ public class WifiPickerTracker extends BaseWifiTracker {
         for (WifiEntry entry : getAllWifiEntries()) {
             entry.clearConnectionInfo(false);
         }
-        Network currentNetwork = mWifiManager.getCurrentNetwork();
-        if (currentNetwork != null) {
-            NetworkCapabilities networkCapabilities =
-                    mConnectivityManager.getNetworkCapabilities(currentNetwork);
-            if (networkCapabilities != null) {
-                // getNetworkCapabilities(Network) obfuscates location info such as SSID and
-                // networkId, so we need to set the WifiInfo directly from WifiManager.
-                handleNetworkCapabilitiesChanged(currentNetwork,
-                        new NetworkCapabilities.Builder(networkCapabilities)
-                                .setTransportInfo(mWifiManager.getConnectionInfo())
-                                .build());
-            }
-            LinkProperties linkProperties = mConnectivityManager.getLinkProperties(currentNetwork);
-            if (linkProperties != null) {
-                handleLinkPropertiesChanged(currentNetwork, linkProperties);
-            }
+        handleStartConnectionInfo(fetchStartConnectionInfo(), startMillis);
+        notifyOnNumSavedNetworksChanged();
+        notifyOnNumSavedSubscriptionsChanged();
+        updateWifiEntries();
+    }
+
+    /**
+     * Issues the independent binder fetches of the start concurrently, then applies them in the
+     * order that lets the connected entry be published first: saved configs and the current
+     * connection, followed by Passpoint configs and scans for the full list.
+     */
+    @WorkerThread
+    private void handleOnStartParallel(long startMillis) {
+        if (mParallelStartExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    PARALLEL_START_THREAD_COUNT, PARALLEL_START_THREAD_COUNT,
+                    PARALLEL_START_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            executor.allowCoreThreadTimeOut(true);
+            mParallelStartExecutor = executor;
+        }
+        final Future<List<WifiConfiguration>> configsFuture =
+                mParallelStartExecutor.submit(this::fetchWifiConfigurations);
+        final Future<ConnectivityStateStore.State> connectionInfoFuture =
+                mParallelStartExecutor.submit(this::fetchStartConnectionInfo);
+        final Future<Integer> subIdFuture =
+                mParallelStartExecutor.submit(SubscriptionManager::getDefaultDataSubscriptionId);
+        final Future<List<PasspointConfiguration>> passpointConfigsFuture =
+                mParallelStartExecutor.submit(mWifiManager::getPasspointConfigurations);
+        final Future<List<ScanResult>> scanResultsFuture =
+                mParallelStartExecutor.submit(this::fetchScanResults);
+
+        // Connected entry
+        updateWifiConfigurations(getStartResult(configsFuture, this::fetchWifiConfigurations));
+        if (mIsWarmStartSnapshotEnabled) {
+            publishWarmStartWifiEntries();
+        }
+        handleDefaultSubscriptionChanged(getStartResult(subIdFuture,
+                SubscriptionManager::getDefaultDataSubscriptionId));
+        for (WifiEntry entry : getAllWifiEntries()) {
+            entry.clearConnectionInfo(false);
         }
+        handleStartConnectionInfo(
+                getStartResult(connectionInfoFuture, this::fetchStartConnectionInfo),
+                startMillis);
+
+        // Full list
+        updatePasspointConfigurations(getStartResult(passpointConfigsFuture,
+                mWifiManager::getPasspointConfigurations));
+        conditionallyUpdateScanResults(true /* lastScanSucceeded */,
+                getStartResult(scanResultsFuture, this::fetchScanResults));
         notifyOnNumSavedNetworksChanged();
         notifyOnNumSavedSubscriptionsChanged();
         updateWifiEntries();
     }
 
+    /**
+     * Waits for the result of a parallel start fetch, falling back to fetching it directly on the
+     * worker thread if the fetch failed.
+     */
+    @WorkerThread
+    private <T> T getStartResult(@NonNull Future<T> future, @NonNull Supplier<T> fallback) {
+        try {
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.e(TAG, "Parallel start fetch failed, fetching directly: " + e);
+            return fallback.get();
+        }
+    }
+
+    /**
+     * Fetches the current network and its capabilities and link properties.
+     */
+    @AnyThread
+    @NonNull
+    private ConnectivityStateStore.State fetchStartConnectionInfo() {
+        return mConnectivityStateStore.getState();
+    }
+
+    @WorkerThread
+    private void handleStartConnectionInfo(@NonNull ConnectivityStateStore.State info,
+            long startMillis) {
+        if (info.network == null) {
+            return;
+        }
+        if (info.networkCapabilities != null) {
+            handleNetworkCapabilitiesChanged(info.network, info.networkCapabilities);
+            if (mConnectedWifiEntry != null) {
+                mLastStartTimeToConnectedEntryMillis =
+                        SystemClock.elapsedRealtime() - startMillis;
+            }
+        }
+        if (info.linkProperties != null) {
+            handleLinkPropertiesChanged(info.network, info.linkProperties);
+        }
+    }
+
+    @WorkerThread
+    @Override
+    protected void handleOnStop() {
+        final File snapshotFile = new File(mContext.getCacheDir(), WARM_START_SNAPSHOT_FILE_NAME);
+        if (!mIsWarmStartSnapshotEnabled) {
+            if (snapshotFile.exists()) {
+                snapshotFile.delete();
+            }
+            return;
+        }
+        // Only persist the disconnected entries, since the connection info is re-fetched on start
+        // and we don't want to show the connected network in the wrong section.
+        final List<String> entryKeys = new ArrayList<>();
+        for (WifiEntry entry : mWifiEntries) {
+            entryKeys.add(entry.getKey());
+        }
+        WarmStartSnapshot.write(snapshotFile, SystemClock.elapsedRealtime(),
+                System.currentTimeMillis(), mScanResultUpdater.getScanResults(), entryKeys);
+    }
+
+    /**
+     * Reads the warm-start snapshot and publishes a provisional list of the StandardWifiEntries
+     * that were displayed when it was written and are still in range of the persisted scans.
+     * This must be called after the saved configs are loaded, so that saved entries aren't shown
+     * as unsaved.
+     */
+    @WorkerThread
+    private void publishWarmStartWifiEntries() {
+        final WarmStartSnapshot snapshot = WarmStartSnapshot.read(
+                new File(mContext.getCacheDir(), WARM_START_SNAPSHOT_FILE_NAME),
+                SystemClock.elapsedRealtime(), System.currentTimeMillis());
+        if (snapshot == null) {
+            return;
+        }
+        if (mWifiManager.getWifiState() != WifiManager.WIFI_STATE_ENABLED) {
+            snapshot.delete();
+            return;
+        }
+        // Filter out the scans older than the snapshot max age. The snapshot scans are kept out
+        // of mScanResultUpdater so that they don't outlive the provisional list.
+        final ScanResultUpdater snapshotScanResultUpdater =
+                new ScanResultUpdater(mClock, mWarmStartSnapshotMaxAgeMillis);
+        snapshotScanResultUpdater.update(snapshot.getScanResults());
+        updateStandardWifiEntryScans(snapshotScanResultUpdater.getScanResults());
+        final Set<String> entryKeys = new ArraySet<>(snapshot.getEntryKeys());
+        final List<WifiEntry> wifiEntries = new ArrayList<>();
+        for (StandardWifiEntry entry : mStandardWifiEntryCache) {
+            if (entryKeys.contains(entry.getKey())) {
+                wifiEntries.add(entry);
+            }
+        }
+        if (wifiEntries.isEmpty()) {
+            return;
+        }
+        Collections.sort(wifiEntries, WifiEntry.WIFI_PICKER_COMPARATOR);
+        if (isVerboseLoggingEnabled()) {
+            Log.v(TAG, "Publishing " + wifiEntries.size() + " entries from warm-start snapshot"
+                    + " saved at " + snapshot.getSavedElapsedMillis());
+        }
+        mWifiEntries = wifiEntries;
+        notifyOnWifiEntriesChanged(WIFI_ENTRIES_CHANGED_REASON_SCAN_RESULTS);
+    }
+
     @WorkerThread
     @Override
     protected void handleWifiStateChangedAction() {
@@ -342,6 +663,43 @@ public class WifiPickerTracker extends BaseWifiTracker {
         updateWifiEntries(WIFI_ENTRIES_CHANGED_REASON_SCAN_RESULTS);
     }
 
+    /**
+     * Returns the frequencies where saved, suggested or Passpoint networks were seen within the
+     * scan cache.
+     */
+    @WorkerThread
+    @Override
+    @NonNull
+    protected Set<Integer> getTargetedScanFrequencies() {
+        final Set<ScanResultKey> knownScanKeys = new ArraySet<>();
+        for (StandardWifiEntryKey key : mStandardWifiConfigCache.keySet()) {
+            knownScanKeys.add(key.getScanResultKey());
+        }
+        for (StandardWifiEntryKey key : mSuggestedConfigCache.keySet()) {
+            knownScanKeys.add(key.getScanResultKey());
+        }
+        final Set<Integer> frequencies = new ArraySet<>();
+        for (ScanResult scan : mScanResultUpdater.getScanResults()) {
+            if (TextUtils.isEmpty(scan.SSID)) {
+                continue;
+            }
+            if (mPasspointSsidIndex.contains(scan.SSID)
+                    || knownScanKeys.contains(new ScanResultKey(scan))) {
+                frequencies.add(scan.frequency);
+            }
+        }
+        return frequencies;
+    }
+
+    @WorkerThread
+    @Override
+    protected void handleScanResultsPartiallyAvailable() {
+        // Only update the standard entries since the other entry types require additional IPCs to
+        // match scans. Those are picked up once the complete results arrive.
+        updateStandardWifiEntryScans(mScanResultUpdater.getScanResults(mMaxScanAgeMillis));
+        updateWifiEntries(WIFI_ENTRIES_CHANGED_REASON_SCAN_RESULTS);
+    }
+
     @WorkerThread
     @Override
     protected void handleConfiguredNetworksChangedAction(@NonNull Intent intent) {
@@ -391,7 +749,7 @@ public class WifiPickerTracker extends BaseWifiTracker {
     @Override
     protected void handleLinkPropertiesChanged(
             @NonNull Network network, @Nullable LinkProperties linkProperties) {
-        for (WifiEntry entry : getAllWifiEntries()) {
+        for (WifiEntry entry : getConnectionDispatchEntries(null /* wifiInfo */)) {
             entry.updateLinkProperties(network, linkProperties);
         }
     }
@@ -407,9 +765,11 @@ public class WifiPickerTracker extends BaseWifiTracker {
     @WorkerThread
     @Override
     protected void handleNetworkLost(@NonNull Network network) {
-        for (WifiEntry entry : getAllWifiEntries()) {
+        final Collection<WifiEntry> entries = getConnectionDispatchEntries(null /* wifiInfo */);
+        for (WifiEntry entry : entries) {
             entry.onNetworkLost(network);
         }
+        mConnectionDispatchIndex.onDispatched(entries);
         if (mNetworkRequestEntry != null
                 && mNetworkRequestEntry.getConnectedState() == CONNECTED_STATE_DISCONNECTED) {
             mNetworkRequestEntry = null;
@@ -450,28 +810,47 @@ public class WifiPickerTracker extends BaseWifiTracker {
         updateMergedCarrierEntry(defaultSubId);
     }
 
+    @WorkerThread
+    @Override
+    protected void handleAdminPolicyChanged() {
+        updateWifiEntries();
+    }
+
     @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
     @WorkerThread
     @Override
     protected void handleKnownNetworksUpdated(List<KnownNetwork> networks) {
-        if (mInjector.isSharedConnectivityFeatureEnabled()) {
-            mKnownNetworkDataCache.clear();
-            mKnownNetworkDataCache.addAll(networks);
-            updateKnownNetworkEntryScans(mScanResultUpdater.getScanResults());
-            updateWifiEntries();
-        }
+        handleSharedConnectivityNetworksUpdated(null /* hotspotNetworks */, networks);
     }
 
     @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
     @WorkerThread
     @Override
     protected void handleHotspotNetworksUpdated(List<HotspotNetwork> networks) {
-        if (mInjector.isSharedConnectivityFeatureEnabled()) {
+        handleSharedConnectivityNetworksUpdated(networks, null /* knownNetworks */);
+    }
+
+    @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
+    @WorkerThread
+    @Override
+    protected void handleSharedConnectivityNetworksUpdated(
+            @Nullable List<HotspotNetwork> hotspotNetworks,
+            @Nullable List<KnownNetwork> knownNetworks) {
+        if (!mInjector.isSharedConnectivityFeatureEnabled()) {
+            return;
+        }
+        if (knownNetworks != null) {
+            updateKnownNetworkData(knownNetworks);
+            updateKnownNetworkEntryScans(
+                    groupScanResultsByKey(mScanResultUpdater.getScanResults()));
+        }
+        if (hotspotNetworks != null) {
             mHotspotNetworkDataCache.clear();
-            mHotspotNetworkDataCache.addAll(networks);
+            mHotspotNetworkDataCache.addAll(hotspotNetworks);
+            mIsHotspotNetworkDataDirty = true;
             updateHotspotNetworkEntries();
-            updateWifiEntries();
         }
+        updateWifiEntries();
     }
 
   @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
@@ -510,17 +889,15 @@ public class WifiPickerTracker extends BaseWifiTracker {
     @Override
     protected void handleServiceConnected() {
         if (mInjector.isSharedConnectivityFeatureEnabled()) {
-            mKnownNetworkDataCache.clear();
-            List<KnownNetwork> knownNetworks = mSharedConnectivityManager.getKnownNetworks();
-            if (knownNetworks != null) {
-                mKnownNetworkDataCache.addAll(knownNetworks);
-            }
+            updateKnownNetworkData(mSharedConnectivityManager.getKnownNetworks());
             mHotspotNetworkDataCache.clear();
             List<HotspotNetwork> hotspotNetworks = mSharedConnectivityManager.getHotspotNetworks();
             if (hotspotNetworks != null) {
                 mHotspotNetworkDataCache.addAll(hotspotNetworks);
             }
-            updateKnownNetworkEntryScans(mScanResultUpdater.getScanResults());
+            mIsHotspotNetworkDataDirty = true;
+            updateKnownNetworkEntryScans(
+                    groupScanResultsByKey(mScanResultUpdater.getScanResults()));
             updateHotspotNetworkEntries();
             HotspotNetworkConnectionStatus status =
                     mSharedConnectivityManager.getHotspotNetworkConnectionStatus();
@@ -536,16 +913,28 @@ public class WifiPickerTracker extends BaseWifiTracker {
     @Override
     protected void handleServiceDisconnected() {
         if (mInjector.isSharedConnectivityFeatureEnabled()) {
-            mKnownNetworkDataCache.clear();
+            updateKnownNetworkData(null /* knownNetworks */);
             mHotspotNetworkDataCache.clear();
             mKnownNetworkEntryCache.clear();
-            mHotspotNetworkEntryCache.clear();
+            mIsConnectionDispatchIndexDirty = true;
+            clearHotspotNetworkEntries();
             updateWifiEntries();
         }
     }
 
     @WorkerThread
     protected void updateWifiEntries(@WifiEntriesChangedReason int reason) {
+        Trace.beginSection(TRACE_UPDATE_WIFI_ENTRIES);
+        try {
+            updateWifiEntriesInternal(reason);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    @WorkerThread
+    private void updateWifiEntriesInternal(@WifiEntriesChangedReason int reason) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
         List<WifiEntry> activeWifiEntries = new ArrayList<>();
         List<WifiEntry> wifiEntries = new ArrayList<>();
         activeWifiEntries.addAll(mStandardWifiEntryCache);
@@ -582,10 +971,6 @@ public class WifiPickerTracker extends BaseWifiTracker {
                         })
                         .map(entry -> entry.getStandardWifiEntryKey().getScanResultKey())
                         .collect(Collectors.toSet());
-        Set<String> passpointUtf8Ssids = new ArraySet<>();
-        for (PasspointWifiEntry passpointWifiEntry : mPasspointWifiEntryCache.values()) {
-            passpointUtf8Ssids.addAll(passpointWifiEntry.getAllUtf8Ssids());
-        }
         Set<ScanResultKey> knownNetworkKeys = new ArraySet<>();
         for (KnownNetworkEntry knownNetworkEntry : mKnownNetworkEntryCache) {
             knownNetworkKeys.add(
@@ -599,8 +984,9 @@ public class WifiPickerTracker extends BaseWifiTracker {
             }
         }
         Set<ScanResultKey> savedEntryKeys = new ArraySet<>();
+        final AdminPolicySnapshot adminPolicy = getAdminPolicySnapshot();
         for (StandardWifiEntry entry : mStandardWifiEntryCache) {
-            entry.updateAdminRestrictions();
+            entry.updateAdminRestrictions(adminPolicy);
             if (activeWifiEntries.contains(entry)) {
                 continue;
             }
@@ -610,7 +996,7 @@ public class WifiPickerTracker extends BaseWifiTracker {
                     continue;
                 }
                 // Filter out any unsaved entries that are already provisioned with Passpoint
-                if (passpointUtf8Ssids.contains(entry.getSsid())) {
+                if (mPasspointSsidIndex.contains(entry.getSsid())) {
                     continue;
                 }
                 if (mInjector.isSharedConnectivityFeatureEnabled()) {
@@ -660,26 +1046,12 @@ public class WifiPickerTracker extends BaseWifiTracker {
                     toList()));
             }
         }
+        startNanos = recordPhase(TrackerLatencyStats.PHASE_BUILD_LIST, startNanos);
         Collections.sort(wifiEntries, WifiEntry.WIFI_PICKER_COMPARATOR);
-        if (isVerboseLoggingEnabled()) {
-            Log.v(TAG, "onWifiEntriesChanged: reason=" + reason);
-            StringJoiner entryLog = new StringJoiner("\n");
-            int numEntries = activeWifiEntries.size() + wifiEntries.size();
-            if (numEntries == 0) {
-                entryLog.add("No entries!");
-            }
-            int index = 1;
-            for (WifiEntry entry : activeWifiEntries) {
-                entryLog.add("Entry " + index + "/" + numEntries + ": " + entry);
-                index++;
-            }
-            for (WifiEntry entry : wifiEntries) {
-                entryLog.add("Entry " + index + "/" + numEntries + ": " + entry);
-                index++;
-            }
-            Log.v(TAG, entryLog.toString());
-            Log.v(TAG, "MergedCarrierEntry: " + mMergedCarrierEntry);
-        }
+        recordPhase(TrackerLatencyStats.PHASE_SORT_LIST, startNanos);
+        // The entries themselves are only formatted on dump().
+        mEventLog.record(TrackerEventLog.EVENT_WIFI_ENTRIES_CHANGED, reason,
+                activeWifiEntries.size() + wifiEntries.size());
         WifiEntry connectedWifiEntry = null;
         if (!activeWifiEntries.isEmpty()) {
             // Primary entry is sorted to be first.
@@ -691,6 +1063,11 @@ public class WifiPickerTracker extends BaseWifiTracker {
         mConnectedWifiEntry = connectedWifiEntry;
         mActiveWifiEntries = activeWifiEntries;
         mWifiEntries = wifiEntries;
+        if (Trace.isEnabled()) {
+            Trace.setCounter(TRACE_COUNTER_STANDARD_ENTRIES, mStandardWifiEntryCache.size());
+            Trace.setCounter(TRACE_COUNTER_SUGGESTED_ENTRIES, mSuggestedWifiEntryCache.size());
+            Trace.setCounter(TRACE_COUNTER_PASSPOINT_ENTRIES, mPasspointWifiEntryCache.size());
+        }
         notifyOnWifiEntriesChanged(reason);
     }
 
@@ -719,22 +1096,14 @@ public class WifiPickerTracker extends BaseWifiTracker {
             }
             mMergedCarrierEntry = new MergedCarrierEntry(mInjector, mWorkerHandler, mWifiManager,
                     /* forSavedNetworksPage */ false, subId);
-            Network currentNetwork = mWifiManager.getCurrentNetwork();
-            if (currentNetwork != null) {
-                NetworkCapabilities networkCapabilities =
-                        mConnectivityManager.getNetworkCapabilities(currentNetwork);
-                if (networkCapabilities != null) {
-                    // getNetworkCapabilities(Network) obfuscates location info such as SSID and
-                    // networkId, so we need to set the WifiInfo directly from WifiManager.
-                    mMergedCarrierEntry.onNetworkCapabilitiesChanged(currentNetwork,
-                            new NetworkCapabilities.Builder(networkCapabilities)
-                                    .setTransportInfo(mWifiManager.getConnectionInfo())
-                                    .build());
+            final ConnectivityStateStore.State state = mConnectivityStateStore.getState();
+            if (state.network != null) {
+                if (state.networkCapabilities != null) {
+                    mMergedCarrierEntry.onNetworkCapabilitiesChanged(state.network,
+                            state.networkCapabilities);
                 }
-                LinkProperties linkProperties =
-                        mConnectivityManager.getLinkProperties(currentNetwork);
-                if (linkProperties != null) {
-                    mMergedCarrierEntry.updateLinkProperties(currentNetwork, linkProperties);
+                if (state.linkProperties != null) {
+                    mMergedCarrierEntry.updateLinkProperties(state.network, state.linkProperties);
                 }
             }
         }
@@ -765,11 +1134,17 @@ public class WifiPickerTracker extends BaseWifiTracker {
     @WorkerThread
     private void updateStandardWifiEntryScans(@NonNull List<ScanResult> scanResults) {
         checkNotNull(scanResults, "Scan Result list should not be null!");
+        updateStandardWifiEntryScans(groupScanResultsByKey(scanResults));
+    }
 
-        // Group scans by ScanResultKey key
-        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey = scanResults.stream()
-                .filter(scan -> !TextUtils.isEmpty(scan.SSID))
-                .collect(Collectors.groupingBy(ScanResultKey::new));
+    /**
+     * Same as {@link #updateStandardWifiEntryScans(List)} with the scans already grouped by
+     * ScanResultKey.
+     */
+    @WorkerThread
+    private void updateStandardWifiEntryScans(
+            @NonNull Map<ScanResultKey, List<ScanResult>> scanResultsByKey) {
+        mIsConnectionDispatchIndexDirty = true;
         final Set<ScanResultKey> newScanKeys = new ArraySet<>(scanResultsByKey.keySet());
 
         // Iterate through current entries and update each entry's scan results
@@ -786,7 +1161,7 @@ public class WifiPickerTracker extends BaseWifiTracker {
             final StandardWifiEntry newEntry = new StandardWifiEntry(mInjector,
                     mMainHandler, entryKey, mStandardWifiConfigCache.get(entryKey),
                     scanResultsByKey.get(scanKey), mWifiManager,
-                    false /* forSavedNetworksPage */);
+                    false /* forSavedNetworksPage */, getAdminPolicySnapshot());
             mStandardWifiEntryCache.add(newEntry);
         }
 
@@ -806,7 +1181,17 @@ public class WifiPickerTracker extends BaseWifiTracker {
     @WorkerThread
     private void updateSuggestedWifiEntryScans(@NonNull List<ScanResult> scanResults) {
         checkNotNull(scanResults, "Scan Result list should not be null!");
+        updateSuggestedWifiEntryScans(scanResults, groupScanResultsByKey(scanResults));
+    }
 
+    /**
+     * Same as {@link #updateSuggestedWifiEntryScans(List)} with the scans also grouped by
+     * ScanResultKey.
+     */
+    @WorkerThread
+    private void updateSuggestedWifiEntryScans(@NonNull List<ScanResult> scanResults,
+            @NonNull Map<ScanResultKey, List<ScanResult>> scanResultsByKey) {
+        mIsConnectionDispatchIndexDirty = true;
         // Get every ScanResultKey that is user shareable
         final Set<StandardWifiEntryKey> userSharedEntryKeys =
                 mWifiManager.getWifiConfigForMatchedNetworkSuggestionsSharedWithUser(scanResults)
@@ -814,11 +1199,6 @@ public class WifiPickerTracker extends BaseWifiTracker {
                         .map(StandardWifiEntryKey::new)
                         .collect(Collectors.toSet());
 
-        // Group scans by ScanResultKey key
-        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey = scanResults.stream()
-                .filter(scan -> !TextUtils.isEmpty(scan.SSID))
-                .collect(Collectors.groupingBy(ScanResultKey::new));
-
         // Iterate through current entries and update each entry's scan results and shareability.
         final Set<StandardWifiEntryKey> seenEntryKeys = new ArraySet<>();
         mSuggestedWifiEntryCache.forEach(entry -> {
@@ -838,7 +1218,7 @@ public class WifiPickerTracker extends BaseWifiTracker {
             final StandardWifiEntry newEntry = new StandardWifiEntry(mInjector,
                     mMainHandler, entryKey, mSuggestedConfigCache.get(entryKey),
                     scanResultsByKey.get(scanKey), mWifiManager,
-                    false /* forSavedNetworksPage */);
+                    false /* forSavedNetworksPage */, getAdminPolicySnapshot());
             newEntry.setUserShareable(userSharedEntryKeys.contains(entryKey));
             mSuggestedWifiEntryCache.add(newEntry);
         }
@@ -851,6 +1231,7 @@ public class WifiPickerTracker extends BaseWifiTracker {
     @WorkerThread
     private void updatePasspointWifiEntryScans(@NonNull List<ScanResult> scanResults) {
         checkNotNull(scanResults, "Scan Result list should not be null!");
+        mIsConnectionDispatchIndexDirty = true;
 
         Set<String> seenKeys = new TreeSet<>();
         List<Pair<WifiConfiguration, Map<Integer, List<ScanResult>>>> matchingWifiConfigs =
@@ -867,33 +1248,41 @@ public class WifiPickerTracker extends BaseWifiTracker {
 
             // Create PasspointWifiEntry if one doesn't exist for the seen key yet.
             if (!mPasspointWifiEntryCache.containsKey(key)) {
+                final PasspointWifiEntry newEntry;
                 if (wifiConfig.fromWifiNetworkSuggestion) {
-                    mPasspointWifiEntryCache.put(key, new PasspointWifiEntry(mInjector, mContext,
-                            mMainHandler, wifiConfig, mWifiManager,
-                            false /* forSavedNetworksPage */));
+                    newEntry = new PasspointWifiEntry(mInjector, mContext, mMainHandler,
+                            wifiConfig, mWifiManager, false /* forSavedNetworksPage */);
                 } else if (mPasspointConfigCache.containsKey(key)) {
-                    mPasspointWifiEntryCache.put(key, new PasspointWifiEntry(mInjector,
-                            mMainHandler, mPasspointConfigCache.get(key), mWifiManager,
-                            false /* forSavedNetworksPage */));
+                    newEntry = new PasspointWifiEntry(mInjector, mMainHandler,
+                            mPasspointConfigCache.get(key), mWifiManager,
+                            false /* forSavedNetworksPage */);
                 } else {
                     // Failed to find PasspointConfig for a provisioned Passpoint network
                     continue;
                 }
+                newEntry.setSsidIndex(mPasspointSsidIndex);
+                mPasspointWifiEntryCache.put(key, newEntry);
             }
             mPasspointWifiEntryCache.get(key).updateScanResultInfo(wifiConfig,
                     homeScans, roamingScans);
         }
 
         // Remove entries that are now unreachable
-        mPasspointWifiEntryCache.entrySet()
-                .removeIf(entry -> entry.getValue().getLevel() == WIFI_LEVEL_UNREACHABLE
-                        || (!seenKeys.contains(entry.getKey()))
-                        && entry.getValue().getConnectedState() == CONNECTED_STATE_DISCONNECTED);
+        mPasspointWifiEntryCache.entrySet().removeIf(entry -> {
+            final boolean shouldRemove = entry.getValue().getLevel() == WIFI_LEVEL_UNREACHABLE
+                    || (!seenKeys.contains(entry.getKey()))
+                    && entry.getValue().getConnectedState() == CONNECTED_STATE_DISCONNECTED;
+            if (shouldRemove) {
+                entry.getValue().setSsidIndex(null);
+            }
+            return shouldRemove;
+        });
     }
 
     @WorkerThread
     private void updateOsuWifiEntryScans(@NonNull List<ScanResult> scanResults) {
         checkNotNull(scanResults, "Scan Result list should not be null!");
+        mIsConnectionDispatchIndexDirty = true;
 
         Map<OsuProvider, List<ScanResult>> osuProviderToScans =
                 mWifiManager.getMatchingOsuProviders(scanResults);
@@ -938,70 +1327,36 @@ public class WifiPickerTracker extends BaseWifiTracker {
 
     @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
     @WorkerThread
-    private void updateKnownNetworkEntryScans(@NonNull List<ScanResult> scanResults) {
-        checkNotNull(scanResults, "Scan Result list should not be null!");
-
-        // Group scans by ScanResultKey key
-        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey = scanResults.stream()
-                .filter(scan -> !TextUtils.isEmpty(scan.SSID))
-                .collect(Collectors.groupingBy(ScanResultKey::new));
-
-        // Create a map of KnownNetwork data by ScanResultKey
-        final Map<ScanResultKey, KnownNetwork> knownNetworkDataByKey =
-                mKnownNetworkDataCache.stream().collect(Collectors.toMap(
-                        data -> new ScanResultKey(data.getSsid(),
-                                new ArrayList<>(data.getSecurityTypes())),
-                        data -> data,
-                        (data1, data2) -> {
-                            Log.e(TAG,
-                                    "Encountered duplicate key data in "
-                                            + "updateKnownNetworkEntryScans");
-                            return data1; // When duplicate data is encountered, use first one.
-                        }));
-
+    private void updateKnownNetworkEntryScans(
+            @NonNull Map<ScanResultKey, List<ScanResult>> scanResultsByKey) {
+        mIsConnectionDispatchIndexDirty = true;
         // Remove entries not in latest data set from service
-        mKnownNetworkEntryCache.removeIf(entry -> !knownNetworkDataByKey.keySet().contains(
+        mKnownNetworkEntryCache.removeIf(entry -> !mKnownNetworkDataByKey.containsKey(
                 entry.getStandardWifiEntryKey().getScanResultKey()));
 
-        // Create set of ScanResultKeys for known networks from service that are included in scan
-        final Set<ScanResultKey> newScanKeys = knownNetworkDataByKey.keySet().stream().filter(
-                scanResultsByKey::containsKey).collect(Collectors.toSet());
-
         // Iterate through current entries and update each entry's scan results
-        mKnownNetworkEntryCache.forEach(entry -> {
+        final Set<ScanResultKey> seenScanKeys = new ArraySet<>(mKnownNetworkEntryCache.size());
+        for (KnownNetworkEntry entry : mKnownNetworkEntryCache) {
             final ScanResultKey scanKey = entry.getStandardWifiEntryKey().getScanResultKey();
-            newScanKeys.remove(scanKey);
+            seenScanKeys.add(scanKey);
             // Update scan results if available, or set to null.
             entry.updateScanResultInfo(scanResultsByKey.get(scanKey));
-        });
-
-        // Get network and capabilities if new network entries are being created
-        Network network = null;
-        NetworkCapabilities capabilities = null;
-        if (!newScanKeys.isEmpty()) {
-            network = mWifiManager.getCurrentNetwork();
-            if (network != null) {
-                capabilities = mConnectivityManager.getNetworkCapabilities(network);
-                if (capabilities != null) {
-                    // getNetworkCapabilities(Network) obfuscates location info such as SSID and
-                    // networkId, so we need to set the WifiInfo directly from WifiManager.
-                    capabilities = new NetworkCapabilities.Builder(capabilities).setTransportInfo(
-                            mWifiManager.getConnectionInfo()).build();
-                }
-            }
         }
 
-        // Create new KnownNetworkEntry objects for each leftover group of scan results.
-        for (ScanResultKey scanKey : newScanKeys) {
+        // Create new KnownNetworkEntry objects for each known network from service that is
+        // included in scan.
+        for (Map.Entry<ScanResultKey, KnownNetwork> data : mKnownNetworkDataByKey.entrySet()) {
+            final ScanResultKey scanKey = data.getKey();
+            final List<ScanResult> scans = scanResultsByKey.get(scanKey);
+            if (scans == null || seenScanKeys.contains(scanKey)) {
+                continue;
+            }
             final StandardWifiEntryKey entryKey =
                     new StandardWifiEntryKey(scanKey, true /* isTargetingNewNetworks */);
             final KnownNetworkEntry newEntry = new KnownNetworkEntry(mInjector,
-                    mMainHandler, entryKey, null /* configs */,
-                    scanResultsByKey.get(scanKey), mWifiManager,
-                    mSharedConnectivityManager, knownNetworkDataByKey.get(scanKey));
-            if (network != null && capabilities != null) {
-                newEntry.onNetworkCapabilitiesChanged(network, capabilities);
-            }
+                    mMainHandler, entryKey, null /* configs */, scans, mWifiManager,
+                    mSharedConnectivityManager, data.getValue());
+            initializeSharedConnectivityEntryConnectionInfo(newEntry);
             mKnownNetworkEntryCache.add(newEntry);
         }
 
@@ -1011,61 +1366,129 @@ public class WifiPickerTracker extends BaseWifiTracker {
                 entry -> entry.getLevel() == WIFI_LEVEL_UNREACHABLE);
     }
 
+    /**
+     * Reconciles the HotspotNetworkEntries if their data changed, then notifies every entry so
+     * that listeners re-read its state. This is cheap enough to run on every scan.
+     */
+    @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
+    @WorkerThread
+    private void refreshHotspotNetworkEntries() {
+        updateHotspotNetworkEntries();
+        for (HotspotNetworkEntry entry : mHotspotNetworkEntryCache) {
+            entry.notifyOnUpdated();
+        }
+    }
+
     @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
     @WorkerThread
     private void updateHotspotNetworkEntries() {
+        if (!mIsHotspotNetworkDataDirty) {
+            return;
+        }
+        mIsHotspotNetworkDataDirty = false;
+        mIsConnectionDispatchIndexDirty = true;
+
         // Map HotspotNetwork data by deviceID
-        final Map<Long, HotspotNetwork> hotspotNetworkDataById =
-                mHotspotNetworkDataCache.stream().collect(Collectors.toMap(
-                        HotspotNetwork::getDeviceId,
-                        data -> data,
-                        (data1, data2) -> {
-                            Log.e(TAG,
-                                    "Encountered duplicate key data in "
-                                            + "updateHotspotNetworkEntries");
-                            return data1; // When duplicate data is encountered, use first one.
-                        }));
-        final Set<Long> newDeviceIds = new ArraySet<>(hotspotNetworkDataById.keySet());
+        final LongSparseArray<HotspotNetwork> hotspotNetworkDataById =
+                new LongSparseArray<>(mHotspotNetworkDataCache.size());
+        for (HotspotNetwork data : mHotspotNetworkDataCache) {
+            if (hotspotNetworkDataById.indexOfKey(data.getDeviceId()) >= 0) {
+                // When duplicate data is encountered, use first one.
+                Log.e(TAG, "Encountered duplicate key data in updateHotspotNetworkEntries");
+                continue;
+            }
+            hotspotNetworkDataById.put(data.getDeviceId(), data);
+        }
 
         // Remove entries not in latest data set from service
-        mHotspotNetworkEntryCache.removeIf(
-                entry -> !newDeviceIds.contains(entry.getHotspotNetworkEntryKey().getDeviceId()));
-
-        // Iterate through entries and update HotspotNetwork data
-        mHotspotNetworkEntryCache.forEach(entry -> {
-            final Long deviceId = entry.getHotspotNetworkEntryKey().getDeviceId();
-            newDeviceIds.remove(deviceId);
-            entry.updateHotspotNetworkData(hotspotNetworkDataById.get(deviceId));
+        mHotspotNetworkEntryCache.removeIf(entry -> {
+            final long deviceId = entry.getHotspotNetworkEntryKey().getDeviceId();
+            if (hotspotNetworkDataById.indexOfKey(deviceId) >= 0) {
+                return false;
+            }
+            mHotspotNetworkEntriesByDeviceId.remove(deviceId);
+            mAppliedHotspotNetworkData.remove(deviceId);
+            return true;
         });
 
-        // Get network and capabilities if new network entries are being created
-        Network network = null;
-        NetworkCapabilities capabilities = null;
-        if (!newDeviceIds.isEmpty()) {
-            network = mWifiManager.getCurrentNetwork();
-            if (network != null) {
-                capabilities = mConnectivityManager.getNetworkCapabilities(network);
-                if (capabilities != null) {
-                    // getNetworkCapabilities(Network) obfuscates location info such as SSID and
-                    // networkId, so we need to set the WifiInfo directly from WifiManager.
-                    capabilities = new NetworkCapabilities.Builder(capabilities).setTransportInfo(
-                            mWifiManager.getConnectionInfo()).build();
-                }
+        // Update the entries whose HotspotNetwork data changed, and create entries for new device
+        // IDs.
+        for (int i = 0; i < hotspotNetworkDataById.size(); i++) {
+            final long deviceId = hotspotNetworkDataById.keyAt(i);
+            final HotspotNetwork data = hotspotNetworkDataById.valueAt(i);
+            final HotspotNetworkEntry entry = mHotspotNetworkEntriesByDeviceId.get(deviceId);
+            if (entry == null) {
+                final HotspotNetworkEntry newEntry = new HotspotNetworkEntry(mInjector, mContext,
+                        mMainHandler, mWifiManager, mSharedConnectivityManager, data);
+                initializeSharedConnectivityEntryConnectionInfo(newEntry);
+                mHotspotNetworkEntryCache.add(newEntry);
+                mHotspotNetworkEntriesByDeviceId.put(deviceId, newEntry);
+            } else if (!data.equals(mAppliedHotspotNetworkData.get(deviceId))) {
+                entry.updateHotspotNetworkData(data);
             }
+            mAppliedHotspotNetworkData.put(deviceId, data);
         }
+    }
+
+    /**
+     * Sets the current connection info of a new KnownNetworkEntry or HotspotNetworkEntry from the
+     * ConnectivityStateStore.
+     */
+    @WorkerThread
+    private void initializeSharedConnectivityEntryConnectionInfo(@NonNull WifiEntry entry) {
+        final ConnectivityStateStore.State state = mConnectivityStateStore.getState();
+        if (state.network != null && state.networkCapabilities != null) {
+            entry.onNetworkCapabilitiesChanged(state.network, state.networkCapabilities);
+        }
+    }
 
-        // Create new HotspotNetworkEntry objects for each new device ID
-        for (Long deviceId : newDeviceIds) {
-            final HotspotNetworkEntry newEntry = new HotspotNetworkEntry(mInjector, mContext,
-                    mMainHandler, mWifiManager, mSharedConnectivityManager,
-                    hotspotNetworkDataById.get(deviceId));
-            if (network != null && capabilities != null) {
-                newEntry.onNetworkCapabilitiesChanged(network, capabilities);
+    /**
+     * Replaces the KnownNetwork data from the service and rebuilds its index by ScanResultKey.
+     */
+    @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
+    @WorkerThread
+    private void updateKnownNetworkData(@Nullable List<KnownNetwork> knownNetworks) {
+        mKnownNetworkDataByKey.clear();
+        if (knownNetworks == null) {
+            return;
+        }
+        for (KnownNetwork data : knownNetworks) {
+            final ScanResultKey scanKey = new ScanResultKey(data.getSsid(),
+                    new ArrayList<>(data.getSecurityTypes()));
+            if (mKnownNetworkDataByKey.containsKey(scanKey)) {
+                // When duplicate data is encountered, use first one.
+                Log.e(TAG, "Encountered duplicate key data in updateKnownNetworkData");
+                continue;
             }
-            mHotspotNetworkEntryCache.add(newEntry);
+            mKnownNetworkDataByKey.put(scanKey, data);
         }
     }
 
+    /**
+     * Groups the scans with an SSID by ScanResultKey.
+     */
+    @NonNull
+    @VisibleForTesting
+    static Map<ScanResultKey, List<ScanResult>> groupScanResultsByKey(
+            @NonNull List<ScanResult> scanResults) {
+        return scanResults.stream()
+                .filter(scan -> !TextUtils.isEmpty(scan.SSID))
+                .collect(Collectors.groupingBy(ScanResultKey::new));
+    }
+
+    /**
+     * Clears the HotspotNetworkEntries so that they are recreated from the cached HotspotNetwork
+     * data on the next update.
+     */
+    @WorkerThread
+    private void clearHotspotNetworkEntries() {
+        mHotspotNetworkEntryCache.clear();
+        mHotspotNetworkEntriesByDeviceId.clear();
+        mAppliedHotspotNetworkData.clear();
+        mIsHotspotNetworkDataDirty = true;
+        mIsConnectionDispatchIndexDirty = true;
+    }
+
     @WorkerThread
     private void updateNetworkRequestEntryScans(@NonNull List<ScanResult> scanResults) {
         checkNotNull(scanResults, "Scan Result list should not be null!");
@@ -1087,6 +1510,27 @@ public class WifiPickerTracker extends BaseWifiTracker {
      */
     @WorkerThread
     private void conditionallyUpdateScanResults(boolean lastScanSucceeded) {
+        conditionallyUpdateScanResults(lastScanSucceeded, null /* fetchedScanResults */);
+    }
+
+    /**
+     * Updates the scan results of the entries, using the already fetched scan results if the last
+     * scan succeeded and they are non-null.
+     */
+    @WorkerThread
+    private void conditionallyUpdateScanResults(boolean lastScanSucceeded,
+            @Nullable List<ScanResult> fetchedScanResults) {
+        Trace.beginSection(TRACE_CONDITIONALLY_UPDATE_SCAN_RESULTS);
+        try {
+            conditionallyUpdateScanResultsInternal(lastScanSucceeded, fetchedScanResults);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    @WorkerThread
+    private void conditionallyUpdateScanResultsInternal(boolean lastScanSucceeded,
+            @Nullable List<ScanResult> fetchedScanResults) {
         if (mWifiManager.getWifiState() == WifiManager.WIFI_STATE_DISABLED) {
             updateStandardWifiEntryScans(Collections.emptyList());
             updateSuggestedWifiEntryScans(Collections.emptyList());
@@ -1094,7 +1538,7 @@ public class WifiPickerTracker extends BaseWifiTracker {
             updateOsuWifiEntryScans(Collections.emptyList());
             if (mInjector.isSharedConnectivityFeatureEnabled() && BuildCompat.isAtLeastU()) {
                 mKnownNetworkEntryCache.clear();
-                mHotspotNetworkEntryCache.clear();
+                clearHotspotNetworkEntries();
             }
             updateNetworkRequestEntryScans(Collections.emptyList());
             updateContextualWifiEntryScans(Collections.emptyList());
@@ -1104,7 +1548,8 @@ public class WifiPickerTracker extends BaseWifiTracker {
         long scanAgeWindow = mMaxScanAgeMillis;
         if (lastScanSucceeded) {
             // Scan succeeded, cache new scans
-            mScanResultUpdater.update(mWifiManager.getScanResults());
+            mScanResultUpdater.update(fetchedScanResults != null
+                    ? fetchedScanResults : fetchScanResults());
         } else {
             // Scan failed, increase scan age window to prevent WifiEntry list from
             // clearing prematurely.
@@ -1112,18 +1557,46 @@ public class WifiPickerTracker extends BaseWifiTracker {
         }
 
         List<ScanResult> scanResults = mScanResultUpdater.getScanResults(scanAgeWindow);
-        updateStandardWifiEntryScans(scanResults);
-        updateSuggestedWifiEntryScans(scanResults);
+        if (Trace.isEnabled()) {
+            Trace.setCounter(TRACE_COUNTER_SCANS, scanResults.size());
+        }
+        // Group the scans once for all entry types matched by ScanResultKey.
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey =
+                groupScanResultsByKey(scanResults);
+        startNanos = recordPhase(TrackerLatencyStats.PHASE_GROUP_SCAN_RESULTS, startNanos);
+        updateStandardWifiEntryScans(scanResultsByKey);
+        startNanos = recordPhase(TrackerLatencyStats.PHASE_UPDATE_STANDARD_SCANS, startNanos);
+        updateSuggestedWifiEntryScans(scanResults, scanResultsByKey);
+        startNanos = recordPhase(TrackerLatencyStats.PHASE_UPDATE_SUGGESTED_SCANS, startNanos);
         updatePasspointWifiEntryScans(scanResults);
+        startNanos = recordPhase(TrackerLatencyStats.PHASE_UPDATE_PASSPOINT_SCANS, startNanos);
         updateOsuWifiEntryScans(scanResults);
+        startNanos = recordPhase(TrackerLatencyStats.PHASE_UPDATE_OSU_SCANS, startNanos);
         if (mInjector.isSharedConnectivityFeatureEnabled() && BuildCompat.isAtLeastU()) {
-            updateKnownNetworkEntryScans(scanResults);
-            // Updating the hotspot entries here makes the UI more reliable when switching pages or
-            // when toggling settings while the internet picker is shown.
-            updateHotspotNetworkEntries();
+            updateKnownNetworkEntryScans(scanResultsByKey);
+            // Refreshing the hotspot entries here makes the UI more reliable when switching pages
+            // or when toggling settings while the internet picker is shown.
+            refreshHotspotNetworkEntries();
+            startNanos = recordPhase(
+                    TrackerLatencyStats.PHASE_UPDATE_SHARED_CONNECTIVITY_SCANS, startNanos);
         }
         updateNetworkRequestEntryScans(scanResults);
+        startNanos = recordPhase(
+                TrackerLatencyStats.PHASE_UPDATE_NETWORK_REQUEST_SCANS, startNanos);
         updateContextualWifiEntryScans(scanResults);
+        recordPhase(TrackerLatencyStats.PHASE_UPDATE_CONTEXTUAL_SCANS, startNanos);
+    }
+
+    /**
+     * Records the duration of a phase that started at startNanos and returns the end of the phase
+     * as the start of the next one.
+     */
+    @WorkerThread
+    private long recordPhase(@TrackerLatencyStats.Phase int phase, long startNanos) {
+        final long endNanos = SystemClock.elapsedRealtimeNanos();
+        mLatencyStats.record(phase, (endNanos - startNanos) / 1000);
+        return endNanos;
     }
 
     /**
@@ -1134,7 +1607,18 @@ public class WifiPickerTracker extends BaseWifiTracker {
      */
     @WorkerThread
     private void updateWifiConfigurations(@NonNull List<WifiConfiguration> configs) {
+        Trace.beginSection(TRACE_UPDATE_WIFI_CONFIGURATIONS);
+        try {
+            applyWifiConfigurations(configs);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    @WorkerThread
+    private void applyWifiConfigurations(@NonNull List<WifiConfiguration> configs) {
         checkNotNull(configs, "Config list should not be null!");
+        mIsConnectionDispatchIndexDirty = true;
         mStandardWifiConfigCache.clear();
         mSuggestedConfigCache.clear();
         mNetworkRequestConfigCache.clear();
@@ -1191,17 +1675,24 @@ public class WifiPickerTracker extends BaseWifiTracker {
 
     @WorkerThread
     private void updateWifiConfigurationsInternal() {
+        updateWifiConfigurations(fetchWifiConfigurations());
+    }
+
+    @AnyThread
+    @NonNull
+    private List<WifiConfiguration> fetchWifiConfigurations() {
         if (mContext.checkSelfPermission(Manifest.permission.READ_WIFI_CREDENTIAL)
             == PackageManager.PERMISSION_GRANTED) {
-            updateWifiConfigurations(mWifiManager.getPrivilegedConfiguredNetworks());
+            return mWifiManager.getPrivilegedConfiguredNetworks();
         } else {
-            updateWifiConfigurations(mWifiManager.getConfiguredNetworks());
+            return mWifiManager.getConfiguredNetworks();
         }
     }
 
     @WorkerThread
     private void updatePasspointConfigurations(@NonNull List<PasspointConfiguration> configs) {
         checkNotNull(configs, "Config list should not be null!");
+        mIsConnectionDispatchIndexDirty = true;
         mPasspointConfigCache.clear();
         mPasspointConfigCache.putAll(configs.stream().collect(
                 toMap(config -> uniqueIdToPasspointWifiEntryKey(
@@ -1213,7 +1704,11 @@ public class WifiPickerTracker extends BaseWifiTracker {
             final PasspointWifiEntry wifiEntry = entry.getValue();
             final String key = wifiEntry.getKey();
             wifiEntry.updatePasspointConfig(mPasspointConfigCache.get(key));
-            return !wifiEntry.isSubscription() && !wifiEntry.isSuggestion();
+            if (!wifiEntry.isSubscription() && !wifiEntry.isSuggestion()) {
+                wifiEntry.setSsidIndex(null);
+                return true;
+            }
+            return false;
         });
     }
 
@@ -1234,11 +1729,44 @@ public class WifiPickerTracker extends BaseWifiTracker {
             // thread times out waiting for driver restart and returns an empty list of networks.
             updateWifiConfigurationsInternal();
         }
+        final WifiInfo wifiInfo = Utils.getWifiInfo(capabilities);
         // Create a WifiEntry for the current connection if there are no scan results yet.
-        conditionallyCreateConnectedWifiEntry(Utils.getWifiInfo(capabilities));
-        for (WifiEntry entry : getAllWifiEntries()) {
+        conditionallyCreateConnectedWifiEntry(wifiInfo);
+        final Collection<WifiEntry> entries = getConnectionDispatchEntries(wifiInfo);
+        for (WifiEntry entry : entries) {
             entry.onNetworkCapabilitiesChanged(network, capabilities);
         }
+        mConnectionDispatchIndex.onDispatched(entries);
+    }
+
+    /**
+     * Returns the WifiEntries that a NetworkCallback update may apply to: the entries that may
+     * match the given WifiInfo, if any, and the entries that currently have a Network. Falls back
+     * to all WifiEntries if the WifiInfo cannot be looked up.
+     */
+    @WorkerThread
+    @NonNull
+    private Collection<WifiEntry> getConnectionDispatchEntries(@Nullable WifiInfo wifiInfo) {
+        if (mIsConnectionDispatchIndexDirty) {
+            mConnectionDispatchIndex.clear();
+            for (WifiEntry entry : getAllWifiEntries()) {
+                mConnectionDispatchIndex.add(entry);
+            }
+            mIsConnectionDispatchIndexDirty = false;
+        }
+        final Set<WifiEntry> entries = new ArraySet<>();
+        if (wifiInfo == null) {
+            mConnectionDispatchIndex.getEntriesWithNetwork(entries);
+        } else if (!mConnectionDispatchIndex.getCandidates(wifiInfo, entries)) {
+            return getAllWifiEntries();
+        }
+        if (mNetworkRequestEntry != null) {
+            entries.add(mNetworkRequestEntry);
+        }
+        if (mMergedCarrierEntry != null) {
+            entries.add(mMergedCarrierEntry);
+        }
+        return entries;
     }
 
     private void conditionallyCreateConnectedWifiEntry(@Nullable WifiInfo wifiInfo) {
@@ -1308,8 +1836,10 @@ public class WifiPickerTracker extends BaseWifiTracker {
             }
             final StandardWifiEntry connectedEntry =
                     new StandardWifiEntry(mInjector, mMainHandler, entryKey, configs,
-                            null, mWifiManager, false /* forSavedNetworksPage */);
+                            null, mWifiManager, false /* forSavedNetworksPage */,
+                            getAdminPolicySnapshot());
             mStandardWifiEntryCache.add(connectedEntry);
+            mIsConnectionDispatchIndexDirty = true;
             return;
         }
     }
@@ -1337,8 +1867,10 @@ public class WifiPickerTracker extends BaseWifiTracker {
             }
             final StandardWifiEntry connectedEntry =
                     new StandardWifiEntry(mInjector, mMainHandler, entryKey, configs,
-                            null, mWifiManager, false /* forSavedNetworksPage */);
+                            null, mWifiManager, false /* forSavedNetworksPage */,
+                            getAdminPolicySnapshot());
             mSuggestedWifiEntryCache.add(connectedEntry);
+            mIsConnectionDispatchIndexDirty = true;
             return;
         }
     }
@@ -1375,7 +1907,9 @@ public class WifiPickerTracker extends BaseWifiTracker {
                     cachedWifiConfig, mWifiManager,
                     false /* forSavedNetworksPage */);
         }
+        connectedEntry.setSsidIndex(mPasspointSsidIndex);
         mPasspointWifiEntryCache.put(connectedEntry.getKey(), connectedEntry);
+        mIsConnectionDispatchIndexDirty = true;
     }
 
     /**
@@ -1384,7 +1918,12 @@ public class WifiPickerTracker extends BaseWifiTracker {
     @WorkerThread
     private void notifyOnWifiEntriesChanged(@WifiEntriesChangedReason int reason) {
         if (mListener != null) {
-            mMainHandler.post(() -> mListener.onWifiEntriesChanged(reason));
+            final long postNanos = SystemClock.elapsedRealtimeNanos();
+            mMainHandler.post(() -> {
+                mListener.onWifiEntriesChanged(reason);
+                mLatencyStats.recordSince(
+                        TrackerLatencyStats.PHASE_MAIN_THREAD_DELIVERY, postNanos);
+            });
         }
     }
 
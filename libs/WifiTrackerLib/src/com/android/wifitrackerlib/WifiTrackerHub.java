@@ -0,0 +1,678 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static android.net.NetworkCapabilities.TRANSPORT_WIFI;
+import static android.os.Build.VERSION_CODES;
+
+import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityDiagnosticsManager;
+import android.net.ConnectivityManager;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import android.net.wifi.sharedconnectivity.app.HotspotNetwork;
+import android.net.wifi.sharedconnectivity.app.HotspotNetworkConnectionStatus;
+import android.net.wifi.sharedconnectivity.app.KnownNetwork;
+import android.net.wifi.sharedconnectivity.app.KnownNetworkConnectionStatus;
+import android.net.wifi.sharedconnectivity.app.SharedConnectivityClientCallback;
+import android.net.wifi.sharedconnectivity.app.SharedConnectivityManager;
+import android.net.wifi.sharedconnectivity.app.SharedConnectivitySettingsState;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.core.os.BuildCompat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide owner of the broadcast receiver, network callbacks and shared connectivity callback
+ * used by BaseWifiTracker, so that any number of trackers alive at once cost a single set of
+ * registrations.
+ *
+ * The hub registers when the first client attaches and unregisters when the last one detaches.
+ * The broadcast receiver is registered for the union of the actions of the attached clients, and
+ * re-registered whenever a client attaching or detaching changes that union.
+ * Registering and unregistering both run on a single hub thread that lives as long as the hub, so
+ * that a quick detach and attach of the only client is always handled in order.
+ * Each event is forwarded to every attached client on that client's worker handler, through the
+ * same callback objects the tracker would otherwise register itself. Clients attaching while
+ * others are already attached are replayed the last sticky state (Wi-Fi state, network state,
+ * tracked networks and shared connectivity data), as a fresh registration would have delivered.
+ *
+ * The hub also caches the scan results fetched once per SCAN_RESULTS_AVAILABLE broadcast and
+ * throttles scan requests across clients.
+ */
+public class WifiTrackerHub {
+    private static final String TAG = "WifiTrackerHub";
+
+    private static final Object sInstanceLock = new Object();
+    @GuardedBy("sInstanceLock")
+    private static WifiTrackerHub sInstance;
+
+    /**
+     * Interface for a tracker to receive the events of the hub.
+     */
+    interface Client {
+        /** Handler the events are forwarded on. */
+        @NonNull Handler getWorkerHandler();
+
+        /** Filter of the broadcast actions the client wants. */
+        @NonNull IntentFilter getIntentFilter();
+
+        @NonNull BroadcastReceiver getBroadcastReceiver();
+
+        @NonNull ConnectivityManager.NetworkCallback getNetworkCallback();
+
+        @NonNull ConnectivityManager.NetworkCallback getDefaultNetworkCallback();
+
+        @NonNull ConnectivityDiagnosticsManager.ConnectivityDiagnosticsCallback
+                getConnectivityDiagnosticsCallback();
+
+        /** Shared connectivity callback, or null if the client does not use the feature. */
+        @Nullable SharedConnectivityClientCallback getSharedConnectivityCallback();
+    }
+
+    @NonNull private final Context mContext;
+    @NonNull private final WifiManager mWifiManager;
+    @NonNull private final ConnectivityManager mConnectivityManager;
+    @NonNull private final ConnectivityDiagnosticsManager mConnectivityDiagnosticsManager;
+    // Looper to run on instead of a dedicated HandlerThread, for testing.
+    @Nullable private final Looper mLooper;
+
+    private final NetworkRequest mNetworkRequest = new NetworkRequest.Builder()
+            .clearCapabilities()
+            .addCapability(NetworkCapabilities.NET_CAPABILITY_NOT_VPN)
+            .addTransportType(TRANSPORT_WIFI)
+            .build();
+
+    private final Object mLock = new Object();
+    @GuardedBy("mLock")
+    private final List<Client> mClients = new ArrayList<>();
+    // Hub thread, started on the first attach and kept for the lifetime of the hub.
+    @GuardedBy("mLock")
+    @Nullable private HandlerThread mHandlerThread;
+    @GuardedBy("mLock")
+    @Nullable private Handler mHandler;
+    @GuardedBy("mLock")
+    private long mLastScanRequestMillis = -1;
+
+    // Cached scan results of the last SCAN_RESULTS_AVAILABLE broadcast, or null if not fetched.
+    @Nullable private volatile List<ScanResult> mScanResults;
+
+    // Actions the broadcast receiver is registered for, or null if it is not registered. Only
+    // accessed on the hub thread.
+    @Nullable private Set<String> mRegisteredActions;
+
+    // Sticky state replayed to late clients. Only accessed on the hub thread.
+    private final Map<String, Intent> mStickyIntents = new ArrayMap<>();
+    private final Map<Network, NetworkCapabilities> mNetworkCapabilities = new ArrayMap<>();
+    private final Map<Network, LinkProperties> mLinkProperties = new ArrayMap<>();
+    @Nullable private Network mDefaultNetwork;
+    @Nullable private NetworkCapabilities mDefaultNetworkCapabilities;
+    private boolean mIsSharedConnectivityServiceConnected;
+    @Nullable private List<HotspotNetwork> mHotspotNetworks;
+    @Nullable private List<KnownNetwork> mKnownNetworks;
+    @Nullable private SharedConnectivitySettingsState mSharedConnectivitySettingsState;
+    @Nullable private SharedConnectivityManager mSharedConnectivityManager;
+
+    private final BroadcastReceiver mBroadcastReceiver = new BroadcastReceiver() {
+        @Override
+        @WorkerThread
+        public void onReceive(Context context, Intent intent) {
+            final String action = intent.getAction();
+            if (WifiManager.WIFI_STATE_CHANGED_ACTION.equals(action)
+                    || WifiManager.NETWORK_STATE_CHANGED_ACTION.equals(action)) {
+                // Re-registering for a new filter redelivers the sticky intents the clients
+                // already got.
+                final boolean isRedelivered =
+                        isInitialStickyBroadcast() && mStickyIntents.containsKey(action);
+                mStickyIntents.put(action, intent);
+                if (isRedelivered) {
+                    return;
+                }
+            }
+            if (WifiManager.WIFI_STATE_CHANGED_ACTION.equals(action)
+                    && intent.getIntExtra(WifiManager.EXTRA_WIFI_STATE,
+                            WifiManager.WIFI_STATE_DISABLED) != WifiManager.WIFI_STATE_ENABLED) {
+                mScanResults = null;
+            } else if (WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(action)
+                    && intent.getBooleanExtra(WifiManager.EXTRA_RESULTS_UPDATED, true)) {
+                // Fetch once for all clients before they handle the broadcast.
+                mScanResults = mWifiManager.getScanResults();
+            }
+            forEachClient(client -> {
+                if (client.getIntentFilter().hasAction(action)) {
+                    client.getBroadcastReceiver().onReceive(context, intent);
+                }
+            });
+        }
+    };
+
+    private final ConnectivityManager.NetworkCallback mNetworkCallback =
+            new ConnectivityManager.NetworkCallback(
+                    ConnectivityManager.NetworkCallback.FLAG_INCLUDE_LOCATION_INFO) {
+                @Override
+                @WorkerThread
+                public void onLinkPropertiesChanged(@NonNull Network network,
+                        @NonNull LinkProperties lp) {
+                    mLinkProperties.put(network, lp);
+                    forEachClient(client ->
+                            client.getNetworkCallback().onLinkPropertiesChanged(network, lp));
+                }
+
+                @Override
+                @WorkerThread
+                public void onCapabilitiesChanged(@NonNull Network network,
+                        @NonNull NetworkCapabilities networkCapabilities) {
+                    mNetworkCapabilities.put(network, networkCapabilities);
+                    forEachClient(client -> client.getNetworkCallback()
+                            .onCapabilitiesChanged(network, networkCapabilities));
+                }
+
+                @Override
+                @WorkerThread
+                public void onLost(@NonNull Network network) {
+                    mNetworkCapabilities.remove(network);
+                    mLinkProperties.remove(network);
+                    forEachClient(client -> client.getNetworkCallback().onLost(network));
+                }
+            };
+
+    private final ConnectivityManager.NetworkCallback mDefaultNetworkCallback =
+            new ConnectivityManager.NetworkCallback(
+                    ConnectivityManager.NetworkCallback.FLAG_INCLUDE_LOCATION_INFO) {
+                @Override
+                @WorkerThread
+                public void onCapabilitiesChanged(@NonNull Network network,
+                        @NonNull NetworkCapabilities networkCapabilities) {
+                    mDefaultNetwork = network;
+                    mDefaultNetworkCapabilities = networkCapabilities;
+                    forEachClient(client -> client.getDefaultNetworkCallback()
+                            .onCapabilitiesChanged(network, networkCapabilities));
+                }
+
+                @Override
+                @WorkerThread
+                public void onLost(@NonNull Network network) {
+                    mDefaultNetwork = null;
+                    mDefaultNetworkCapabilities = null;
+                    forEachClient(client -> client.getDefaultNetworkCallback().onLost(network));
+                }
+            };
+
+    private final ConnectivityDiagnosticsManager.ConnectivityDiagnosticsCallback
+            mConnectivityDiagnosticsCallback =
+            new ConnectivityDiagnosticsManager.ConnectivityDiagnosticsCallback() {
+        @Override
+        public void onConnectivityReportAvailable(
+                @NonNull ConnectivityDiagnosticsManager.ConnectivityReport report) {
+            forEachClient(client -> client.getConnectivityDiagnosticsCallback()
+                    .onConnectivityReportAvailable(report));
+        }
+    };
+
+    private final Executor mExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            synchronized (mLock) {
+                // Drop late callbacks of a registration that is being torn down.
+                if (mHandler != null && !mClients.isEmpty()) {
+                    mHandler.post(command);
+                }
+            }
+        }
+    };
+
+    @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
+    @Nullable
+    private SharedConnectivityClientCallback mSharedConnectivityCallback;
+
+    @TargetApi(VERSION_CODES.UPSIDE_DOWN_CAKE)
+    @NonNull
+    private SharedConnectivityClientCallback createSharedConnectivityCallback() {
+        return new SharedConnectivityClientCallback() {
+            @Override
+            public void onHotspotNetworksUpdated(@NonNull List<HotspotNetwork> networks) {
+                mHotspotNetworks = networks;
+                forEachSharedConnectivityClient(
+                        callback -> callback.onHotspotNetworksUpdated(networks));
+            }
+
+            @Override
+            public void onKnownNetworksUpdated(@NonNull List<KnownNetwork> networks) {
+                mKnownNetworks = networks;
+                forEachSharedConnectivityClient(
+                        callback -> callback.onKnownNetworksUpdated(networks));
+            }
+
+            @Override
+            public void onSharedConnectivitySettingsChanged(
+                    @NonNull SharedConnectivitySettingsState state) {
+                mSharedConnectivitySettingsState = state;
+                forEachSharedConnectivityClient(
+                        callback -> callback.onSharedConnectivitySettingsChanged(state));
+            }
+
+            @Override
+            public void onHotspotNetworkConnectionStatusChanged(
+                    @NonNull HotspotNetworkConnectionStatus status) {
+                forEachSharedConnectivityClient(
+                        callback -> callback.onHotspotNetworkConnectionStatusChanged(status));
+            }
+
+            @Override
+            public void onKnownNetworkConnectionStatusChanged(
+                    @NonNull KnownNetworkConnectionStatus status) {
+                forEachSharedConnectivityClient(
+                        callback -> callback.onKnownNetworkConnectionStatusChanged(status));
+            }
+
+            @Override
+            public void onServiceConnected() {
+                mIsSharedConnectivityServiceConnected = true;
+                forEachSharedConnectivityClient(
+                        SharedConnectivityClientCallback::onServiceConnected);
+            }
+
+            @Override
+            public void onServiceDisconnected() {
+                mIsSharedConnectivityServiceConnected = false;
+                mHotspotNetworks = null;
+                mKnownNetworks = null;
+                mSharedConnectivitySettingsState = null;
+                forEachSharedConnectivityClient(
+                        SharedConnectivityClientCallback::onServiceDisconnected);
+            }
+
+            @Override
+            public void onRegisterCallbackFailed(Exception exception) {
+                forEachSharedConnectivityClient(
+                        callback -> callback.onRegisterCallbackFailed(exception));
+            }
+        };
+    }
+
+    /**
+     * Returns the process-wide instance of the hub.
+     */
+    @AnyThread
+    @NonNull
+    public static WifiTrackerHub getInstance(@NonNull Context context) {
+        synchronized (sInstanceLock) {
+            if (sInstance == null) {
+                final Context appContext = context.getApplicationContext() != null
+                        ? context.getApplicationContext() : context;
+                sInstance = new WifiTrackerHub(appContext,
+                        appContext.getSystemService(WifiManager.class),
+                        appContext.getSystemService(ConnectivityManager.class),
+                        appContext.getSystemService(ConnectivityDiagnosticsManager.class),
+                        null /* looper */);
+            }
+            return sInstance;
+        }
+    }
+
+    @VisibleForTesting
+    WifiTrackerHub(@NonNull Context context, @NonNull WifiManager wifiManager,
+            @NonNull ConnectivityManager connectivityManager,
+            @NonNull ConnectivityDiagnosticsManager connectivityDiagnosticsManager,
+            @Nullable Looper looper) {
+        mContext = context;
+        mWifiManager = wifiManager;
+        mConnectivityManager = connectivityManager;
+        mConnectivityDiagnosticsManager = connectivityDiagnosticsManager;
+        mLooper = looper;
+    }
+
+    /**
+     * Attaches a client, registering the callbacks if it is the first client. Does nothing if the
+     * client is already attached.
+     */
+    @AnyThread
+    void attach(@NonNull Client client) {
+        final Handler handler;
+        final boolean isFirstClient;
+        synchronized (mLock) {
+            if (mClients.contains(client)) {
+                return;
+            }
+            isFirstClient = mClients.isEmpty();
+            mClients.add(client);
+            if (mHandler == null) {
+                if (mLooper != null) {
+                    mHandler = new Handler(mLooper);
+                } else {
+                    mHandlerThread = new HandlerThread(TAG);
+                    mHandlerThread.start();
+                    mHandler = new Handler(mHandlerThread.getLooper());
+                }
+            }
+            handler = mHandler;
+        }
+        if (isFirstClient) {
+            handler.post(this::register);
+        }
+        handler.post(this::updateReceiverRegistration);
+        handler.post(() -> {
+            if (client.getSharedConnectivityCallback() != null) {
+                registerSharedConnectivityCallback();
+            }
+            replayStickyState(client);
+        });
+    }
+
+    /**
+     * Detaches a client, unregistering the callbacks if it was the last client. Does nothing if
+     * the client is not attached.
+     */
+    @AnyThread
+    void detach(@NonNull Client client) {
+        synchronized (mLock) {
+            if (!mClients.remove(client)) {
+                return;
+            }
+            if (!mClients.isEmpty()) {
+                mHandler.post(this::updateReceiverRegistration);
+                return;
+            }
+            // The thread is kept, so that a register() posted by the next attach() always runs
+            // after this unregister().
+            mHandler.post(this::unregister);
+        }
+    }
+
+    /**
+     * Returns the Looper of the hub thread, or null if no client has attached yet.
+     */
+    @VisibleForTesting
+    @AnyThread
+    @Nullable
+    Looper getLooper() {
+        synchronized (mLock) {
+            return mHandler != null ? mHandler.getLooper() : null;
+        }
+    }
+
+    /**
+     * Returns the number of attached clients.
+     */
+    @AnyThread
+    int getNumClients() {
+        synchronized (mLock) {
+            return mClients.size();
+        }
+    }
+
+    /**
+     * Returns the scan results fetched for the last SCAN_RESULTS_AVAILABLE broadcast, or null if
+     * they have not been fetched since the hub registered.
+     */
+    @AnyThread
+    @Nullable
+    List<ScanResult> getScanResults() {
+        return mScanResults;
+    }
+
+    /**
+     * Returns true and records the request if no client requested a scan within half of the given
+     * interval, or false if the client should skip its scan and rely on the other scan's results.
+     */
+    @AnyThread
+    boolean shouldRequestScan(long scanIntervalMillis) {
+        synchronized (mLock) {
+            final long nowMillis = SystemClock.elapsedRealtime();
+            if (mLastScanRequestMillis >= 0
+                    && nowMillis - mLastScanRequestMillis < scanIntervalMillis / 2) {
+                return false;
+            }
+            mLastScanRequestMillis = nowMillis;
+            return true;
+        }
+    }
+
+    /**
+     * Records a scan request that is made without asking {@link #shouldRequestScan(long)}, so that
+     * the other clients skip their scans for it.
+     */
+    @AnyThread
+    void noteScanRequested() {
+        synchronized (mLock) {
+            mLastScanRequestMillis = SystemClock.elapsedRealtime();
+        }
+    }
+
+    @WorkerThread
+    @SuppressLint("NewApi")
+    private void register() {
+        final Handler handler;
+        synchronized (mLock) {
+            handler = mHandler;
+        }
+        if (handler == null) {
+            return;
+        }
+        mConnectivityManager.registerNetworkCallback(mNetworkRequest, mNetworkCallback, handler);
+        mConnectivityManager.registerDefaultNetworkCallback(mDefaultNetworkCallback, handler);
+        mConnectivityDiagnosticsManager.registerConnectivityDiagnosticsCallback(mNetworkRequest,
+                mExecutor, mConnectivityDiagnosticsCallback);
+    }
+
+    /**
+     * Registers the broadcast receiver for the union of the actions of the attached clients, if
+     * it is not already registered for exactly those actions, or unregisters it if that union is
+     * empty.
+     */
+    @WorkerThread
+    private void updateReceiverRegistration() {
+        final Handler handler;
+        final Set<String> actions = new ArraySet<>();
+        synchronized (mLock) {
+            handler = mHandler;
+            for (Client client : mClients) {
+                final Iterator<String> it = client.getIntentFilter().actionsIterator();
+                while (it != null && it.hasNext()) {
+                    actions.add(it.next());
+                }
+            }
+        }
+        if (handler == null || actions.equals(mRegisteredActions)) {
+            return;
+        }
+        if (mRegisteredActions != null) {
+            mRegisteredActions = null;
+            mContext.unregisterReceiver(mBroadcastReceiver);
+        }
+        // The sticky intents of the dropped actions would go stale.
+        mStickyIntents.keySet().retainAll(actions);
+        if (actions.isEmpty()) {
+            return;
+        }
+        final IntentFilter filter = new IntentFilter();
+        for (String action : actions) {
+            filter.addAction(action);
+        }
+        filter.setPriority(IntentFilter.SYSTEM_HIGH_PRIORITY);
+        mContext.registerReceiver(mBroadcastReceiver, filter,
+                /* broadcastPermission */ null, handler);
+        mRegisteredActions = actions;
+    }
+
+    @WorkerThread
+    @SuppressLint("NewApi")
+    private void registerSharedConnectivityCallback() {
+        if (mSharedConnectivityCallback != null || !BuildCompat.isAtLeastU()) {
+            return;
+        }
+        mSharedConnectivityManager = mContext.getSystemService(SharedConnectivityManager.class);
+        if (mSharedConnectivityManager == null) {
+            return;
+        }
+        mSharedConnectivityCallback = createSharedConnectivityCallback();
+        mSharedConnectivityManager.registerCallback(mExecutor, mSharedConnectivityCallback);
+    }
+
+    @WorkerThread
+    @SuppressLint("NewApi")
+    private void unregister() {
+        try {
+            if (mRegisteredActions != null) {
+                mRegisteredActions = null;
+                mContext.unregisterReceiver(mBroadcastReceiver);
+            }
+            mConnectivityManager.unregisterNetworkCallback(mNetworkCallback);
+            mConnectivityManager.unregisterNetworkCallback(mDefaultNetworkCallback);
+            mConnectivityDiagnosticsManager.unregisterConnectivityDiagnosticsCallback(
+                    mConnectivityDiagnosticsCallback);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Failed to unregister: " + e);
+        }
+        if (mSharedConnectivityManager != null && mSharedConnectivityCallback != null
+                && BuildCompat.isAtLeastU()) {
+            if (!mSharedConnectivityManager.unregisterCallback(mSharedConnectivityCallback)) {
+                Log.e(TAG, "unregisterCallback failed");
+            }
+        }
+        mSharedConnectivityManager = null;
+        mSharedConnectivityCallback = null;
+        mScanResults = null;
+        mStickyIntents.clear();
+        mNetworkCapabilities.clear();
+        mLinkProperties.clear();
+        mDefaultNetwork = null;
+        mDefaultNetworkCapabilities = null;
+        mIsSharedConnectivityServiceConnected = false;
+        mHotspotNetworks = null;
+        mKnownNetworks = null;
+        mSharedConnectivitySettingsState = null;
+    }
+
+    /**
+     * Delivers the last sticky state to a newly attached client, as a fresh registration would.
+     */
+    @WorkerThread
+    @SuppressLint("NewApi")
+    private void replayStickyState(@NonNull Client client) {
+        final Map<String, Intent> stickyIntents = new ArrayMap<>(mStickyIntents);
+        final Map<Network, NetworkCapabilities> networkCapabilities =
+                new ArrayMap<>(mNetworkCapabilities);
+        final Map<Network, LinkProperties> linkProperties = new ArrayMap<>(mLinkProperties);
+        final Network defaultNetwork = mDefaultNetwork;
+        final NetworkCapabilities defaultNetworkCapabilities = mDefaultNetworkCapabilities;
+        final boolean isServiceConnected = mIsSharedConnectivityServiceConnected;
+        final List<HotspotNetwork> hotspotNetworks = mHotspotNetworks;
+        final List<KnownNetwork> knownNetworks = mKnownNetworks;
+        final SharedConnectivitySettingsState settingsState = mSharedConnectivitySettingsState;
+        postToClient(client, () -> {
+            for (Intent intent : stickyIntents.values()) {
+                if (client.getIntentFilter().hasAction(intent.getAction())) {
+                    client.getBroadcastReceiver().onReceive(mContext, intent);
+                }
+            }
+            for (Map.Entry<Network, NetworkCapabilities> entry : networkCapabilities.entrySet()) {
+                client.getNetworkCallback().onCapabilitiesChanged(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<Network, LinkProperties> entry : linkProperties.entrySet()) {
+                client.getNetworkCallback().onLinkPropertiesChanged(
+                        entry.getKey(), entry.getValue());
+            }
+            if (defaultNetwork != null && defaultNetworkCapabilities != null) {
+                client.getDefaultNetworkCallback().onCapabilitiesChanged(
+                        defaultNetwork, defaultNetworkCapabilities);
+            }
+            final SharedConnectivityClientCallback callback =
+                    client.getSharedConnectivityCallback();
+            if (callback != null && isServiceConnected && BuildCompat.isAtLeastU()) {
+                callback.onServiceConnected();
+                if (settingsState != null) {
+                    callback.onSharedConnectivitySettingsChanged(settingsState);
+                }
+                if (hotspotNetworks != null) {
+                    callback.onHotspotNetworksUpdated(hotspotNetworks);
+                }
+                if (knownNetworks != null) {
+                    callback.onKnownNetworksUpdated(knownNetworks);
+                }
+            }
+        });
+    }
+
+    @WorkerThread
+    private void forEachClient(@NonNull Consumer<Client> consumer) {
+        final List<Client> clients;
+        synchronized (mLock) {
+            clients = new ArrayList<>(mClients);
+        }
+        for (Client client : clients) {
+            postToClient(client, () -> consumer.accept(client));
+        }
+    }
+
+    @WorkerThread
+    @SuppressLint("NewApi")
+    private void forEachSharedConnectivityClient(
+            @NonNull Consumer<SharedConnectivityClientCallback> consumer) {
+        forEachClient(client -> {
+            final SharedConnectivityClientCallback callback =
+                    client.getSharedConnectivityCallback();
+            if (callback != null) {
+                consumer.accept(callback);
+            }
+        });
+    }
+
+    /**
+     * Posts to the client's worker handler, dropping the event if the client detached in the
+     * meantime.
+     */
+    @AnyThread
+    private void postToClient(@NonNull Client client, @NonNull Runnable runnable) {
+        client.getWorkerHandler().post(() -> {
+            synchronized (mLock) {
+                if (!mClients.contains(client)) {
+                    return;
+                }
+            }
+            runnable.run();
+        });
+    }
+}
@@ -44,6 +44,7 @@ public class WifiTrackerInjector {
     private final UserManager mUserManager;
     private final DevicePolicyManager mDevicePolicyManager;
     @NonNull private final Set<String> mNoAttributionAnnotationPackages;
+    @NonNull private final SubscriptionStateCache mSubscriptionStateCache;
     private boolean mIsUserDebugVerboseLoggingEnabled;
     private boolean mVerboseLoggingDisabledOverride = false;
 
@@ -55,6 +56,7 @@ public class WifiTrackerInjector {
         mIsDemoMode = NonSdkApiWrapper.isDemoMode(context);
         mUserManager = context.getSystemService(UserManager.class);
         mDevicePolicyManager = context.getSystemService(DevicePolicyManager.class);
+        mSubscriptionStateCache = new SubscriptionStateCache(context);
         mNoAttributionAnnotationPackages = new ArraySet<>();
         String[] noAttributionAnnotationPackages = context.getString(
                 R.string.wifitrackerlib_no_attribution_annotation_packages).split(",");
@@ -89,6 +91,13 @@ public class WifiTrackerInjector {
         return mNoAttributionAnnotationPackages;
     }
 
+    /**
+     * Returns the subscription state shared by the tracker and its WifiEntries.
+     */
+    @NonNull SubscriptionStateCache getSubscriptionStateCache() {
+        return mSubscriptionStateCache;
+    }
+
     public boolean isSharedConnectivityFeatureEnabled() {
         return DeviceConfig.getBoolean(DEVICE_CONFIG_NAMESPACE,
                 "shared_connectivity_enabled", false);
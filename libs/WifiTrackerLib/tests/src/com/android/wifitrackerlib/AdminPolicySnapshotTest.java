@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.admin.DevicePolicyManager;
+import android.content.Context;
+import android.net.wifi.WifiInfo;
+import android.os.UserManager;
+
+import androidx.core.os.BuildCompat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+
+public class AdminPolicySnapshotTest {
+    @Mock private Context mMockContext;
+    @Mock private UserManager mMockUserManager;
+    @Mock private DevicePolicyManager mMockDevicePolicyManager;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    /**
+     * Verify that the policies are fetched once and reused for every evaluated network.
+     */
+    @Test
+    public void testIsAdminRestricted_policiesFetchedOnce() {
+        assumeTrue(BuildCompat.isAtLeastT());
+        when(mMockDevicePolicyManager.getMinimumRequiredWifiSecurityLevel()).thenReturn(
+                DevicePolicyManager.WIFI_SECURITY_PERSONAL);
+        final AdminPolicySnapshot snapshot = new AdminPolicySnapshot(
+                mMockContext, mMockUserManager, mMockDevicePolicyManager);
+
+        assertThat(snapshot.isAdminRestricted("open",
+                Collections.singletonList(WifiInfo.SECURITY_TYPE_OPEN))).isTrue();
+        assertThat(snapshot.isAdminRestricted("psk",
+                Collections.singletonList(WifiInfo.SECURITY_TYPE_PSK))).isFalse();
+        verify(mMockDevicePolicyManager, times(1)).getMinimumRequiredWifiSecurityLevel();
+        verify(mMockUserManager, times(1))
+                .hasUserRestriction(UserManager.DISALLOW_ADD_WIFI_CONFIG);
+    }
+
+    /**
+     * Verify that the sharing restriction is looked up once per config creator.
+     */
+    @Test
+    public void testIsSharingRestricted_cachedPerCreator() {
+        assumeTrue(BuildCompat.isAtLeastT());
+        final AdminPolicySnapshot snapshot = new AdminPolicySnapshot(
+                mMockContext, mMockUserManager, mMockDevicePolicyManager);
+
+        assertThat(snapshot.isSharingRestricted(1, "package1")).isFalse();
+        assertThat(snapshot.isSharingRestricted(1, "package1")).isFalse();
+        assertThat(snapshot.isSharingRestricted(2, "package2")).isFalse();
+        verify(mMockUserManager, times(2)).hasUserRestrictionForUser(
+                eq(UserManager.DISALLOW_SHARING_ADMIN_CONFIGURED_WIFI), any());
+    }
+}
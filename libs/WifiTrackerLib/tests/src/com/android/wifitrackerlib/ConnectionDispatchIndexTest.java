@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.util.ArraySet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+public class ConnectionDispatchIndexTest {
+    private ConnectionDispatchIndex mIndex;
+    private StandardWifiEntry mEntry1;
+    private StandardWifiEntry mEntry2;
+    private PasspointWifiEntry mPasspointEntry;
+
+    private static WifiInfo buildWifiInfo(String ssid) {
+        final WifiInfo wifiInfo = mock(WifiInfo.class);
+        when(wifiInfo.getSSID()).thenReturn(ssid);
+        return wifiInfo;
+    }
+
+    @Before
+    public void setUp() {
+        mEntry1 = mock(StandardWifiEntry.class);
+        when(mEntry1.getSsid()).thenReturn("ssid1");
+        mEntry2 = mock(StandardWifiEntry.class);
+        when(mEntry2.getSsid()).thenReturn("ssid2");
+        mPasspointEntry = mock(PasspointWifiEntry.class);
+        when(mPasspointEntry.getFqdn()).thenReturn("fqdn");
+
+        mIndex = new ConnectionDispatchIndex();
+        mIndex.add(mEntry1);
+        mIndex.add(mEntry2);
+        mIndex.add(mPasspointEntry);
+    }
+
+    /**
+     * Verify that only the entries matching the SSID of the WifiInfo are returned.
+     */
+    @Test
+    public void testGetCandidates_ssid_returnsMatchingEntries() {
+        final Set<WifiEntry> candidates = new ArraySet<>();
+
+        assertThat(mIndex.getCandidates(buildWifiInfo("\"ssid1\""), candidates)).isTrue();
+        assertThat(candidates).containsExactly(mEntry1);
+    }
+
+    /**
+     * Verify that only the entries matching the FQDN of a Passpoint WifiInfo are returned.
+     */
+    @Test
+    public void testGetCandidates_passpoint_returnsMatchingEntries() {
+        final WifiInfo wifiInfo = buildWifiInfo("\"ssid1\"");
+        when(wifiInfo.isPasspointAp()).thenReturn(true);
+        when(wifiInfo.getPasspointFqdn()).thenReturn("fqdn");
+        final Set<WifiEntry> candidates = new ArraySet<>();
+
+        assertThat(mIndex.getCandidates(wifiInfo, candidates)).isTrue();
+        assertThat(candidates).containsExactly(mPasspointEntry);
+    }
+
+    /**
+     * Verify that entries with a Network are returned for any WifiInfo until they lose it.
+     */
+    @Test
+    public void testGetCandidates_entryWithNetwork_returnedUntilNetworkLost() {
+        when(mEntry2.hasNetwork()).thenReturn(true);
+        mIndex.onDispatched(Collections.singletonList(mEntry2));
+        Set<WifiEntry> candidates = new ArraySet<>();
+
+        assertThat(mIndex.getCandidates(buildWifiInfo("\"ssid1\""), candidates)).isTrue();
+        assertThat(candidates).containsExactly(mEntry1, mEntry2);
+
+        when(mEntry2.hasNetwork()).thenReturn(false);
+        mIndex.onDispatched(Collections.singletonList(mEntry2));
+        candidates = new ArraySet<>();
+
+        assertThat(mIndex.getCandidates(buildWifiInfo("\"ssid1\""), candidates)).isTrue();
+        assertThat(candidates).containsExactly(mEntry1);
+    }
+
+    /**
+     * Verify that a WifiInfo that can't be looked up falls back to dispatching to every entry.
+     */
+    @Test
+    public void testGetCandidates_unknownOrUnindexedSsid_returnsFalse() {
+        assertThat(mIndex.getCandidates(buildWifiInfo(WifiManager.UNKNOWN_SSID),
+                new ArraySet<>())).isFalse();
+        assertThat(mIndex.getCandidates(buildWifiInfo("\"other\""), new ArraySet<>())).isFalse();
+        assertThat(mIndex.getCandidates(buildWifiInfo(null), new ArraySet<>())).isFalse();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.net.ConnectivityManager;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class ConnectivityStateStoreTest {
+    @Mock private WifiManager mMockWifiManager;
+    @Mock private ConnectivityManager mMockConnectivityManager;
+    @Mock private Network mMockNetwork;
+    @Mock private WifiInfo mMockWifiInfo;
+    @Mock private NetworkCapabilities mMockNetworkCapabilities;
+    @Mock private LinkProperties mMockLinkProperties;
+
+    private ConnectivityStateStore mStore;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(mMockWifiInfo.isPrimary()).thenReturn(true);
+        when(mMockWifiInfo.makeCopy(anyLong())).thenReturn(mMockWifiInfo);
+        when(mMockWifiManager.getCurrentNetwork()).thenReturn(mMockNetwork);
+        when(mMockWifiManager.getConnectionInfo()).thenReturn(mMockWifiInfo);
+        // A real NetworkCapabilities is needed in order to create a copy with the WifiInfo.
+        when(mMockConnectivityManager.getNetworkCapabilities(mMockNetwork)).thenReturn(
+                new NetworkCapabilities.Builder()
+                        .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+                        .build());
+        when(mMockConnectivityManager.getLinkProperties(mMockNetwork))
+                .thenReturn(mMockLinkProperties);
+        when(mMockNetworkCapabilities.getTransportInfo()).thenReturn(mMockWifiInfo);
+
+        mStore = new ConnectivityStateStore(mMockWifiManager, mMockConnectivityManager);
+    }
+
+    /**
+     * Verify that the connection is fetched on every read while stopped.
+     */
+    @Test
+    public void testGetState_stopped_fetchesEveryTime() {
+        mStore.getState();
+        final ConnectivityStateStore.State state = mStore.getState();
+
+        assertThat(state.network).isEqualTo(mMockNetwork);
+        assertThat(state.linkProperties).isEqualTo(mMockLinkProperties);
+        verify(mMockWifiManager, times(2)).getCurrentNetwork();
+    }
+
+    /**
+     * Verify that the connection is fetched once after start and then updated from the
+     * NetworkCallback without any IPC.
+     */
+    @Test
+    public void testGetState_started_fetchesOnceAndUpdatesFromCallbacks() {
+        mStore.onStart();
+        assertThat(mStore.getState().network).isEqualTo(mMockNetwork);
+
+        final Network newNetwork = mock(Network.class);
+        final LinkProperties newLinkProperties = mock(LinkProperties.class);
+        mStore.onCapabilitiesChanged(newNetwork, mMockNetworkCapabilities);
+        mStore.onLinkPropertiesChanged(newNetwork, newLinkProperties);
+        ConnectivityStateStore.State state = mStore.getState();
+
+        assertThat(state.network).isEqualTo(newNetwork);
+        assertThat(state.networkCapabilities).isEqualTo(mMockNetworkCapabilities);
+        assertThat(state.linkProperties).isEqualTo(newLinkProperties);
+
+        mStore.onNetworkLost(newNetwork);
+        state = mStore.getState();
+
+        assertThat(state.network).isNull();
+        assertThat(state.networkCapabilities).isNull();
+        assertThat(state.linkProperties).isNull();
+        verify(mMockWifiManager, times(1)).getCurrentNetwork();
+        verify(mMockConnectivityManager, times(1)).getNetworkCapabilities(mMockNetwork);
+        verify(mMockConnectivityManager, times(1)).getLinkProperties(mMockNetwork);
+    }
+
+    /**
+     * Verify that capabilities of a secondary network do not replace the primary network.
+     */
+    @Test
+    public void testOnCapabilitiesChanged_secondaryNetwork_ignored() {
+        mStore.onStart();
+        mStore.getState();
+        final WifiInfo secondaryWifiInfo = mock(WifiInfo.class);
+        when(secondaryWifiInfo.isPrimary()).thenReturn(false);
+        final NetworkCapabilities secondaryCapabilities = mock(NetworkCapabilities.class);
+        when(secondaryCapabilities.getTransportInfo()).thenReturn(secondaryWifiInfo);
+
+        mStore.onCapabilitiesChanged(mock(Network.class), secondaryCapabilities);
+
+        assertThat(mStore.getState().network).isEqualTo(mMockNetwork);
+    }
+
+    /**
+     * Verify that the connection is fetched again after the store is stopped and restarted.
+     */
+    @Test
+    public void testOnStop_fetchesAgainAfterRestart() {
+        mStore.onStart();
+        mStore.getState();
+        mStore.onStop();
+        when(mMockWifiManager.getCurrentNetwork()).thenReturn(null);
+        mStore.onStart();
+
+        assertThat(mStore.getState().network).isNull();
+        verify(mMockWifiManager, times(2)).getCurrentNetwork();
+    }
+}
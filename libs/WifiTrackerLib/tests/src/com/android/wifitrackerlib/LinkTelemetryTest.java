@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.android.wifitrackerlib.LinkTelemetry.METRIC_FREQUENCY_MHZ;
+import static com.android.wifitrackerlib.LinkTelemetry.METRIC_RSSI;
+import static com.android.wifitrackerlib.LinkTelemetry.METRIC_TX_LINK_SPEED_MBPS;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+public class LinkTelemetryTest {
+    /**
+     * Verify that the values are returned from oldest to newest after the buffer wraps around.
+     */
+    @Test
+    public void testGetValues_full_overwritesOldestSamples() {
+        LinkTelemetry telemetry = new LinkTelemetry(3);
+        for (int i = 0; i < 5; i++) {
+            telemetry.addSample(i, -50 - i, 100 + i, 200 + i, 5180);
+        }
+
+        int[] values = new int[telemetry.getCapacity()];
+        long[] timestamps = new long[telemetry.getCapacity()];
+
+        assertThat(telemetry.getNumSamples()).isEqualTo(3);
+        assertThat(telemetry.getValues(METRIC_RSSI, values)).isEqualTo(3);
+        assertThat(values).asList().containsExactly(-52, -53, -54).inOrder();
+        assertThat(telemetry.getTimestampsMillis(timestamps)).isEqualTo(3);
+        assertThat(timestamps).asList().containsExactly(2L, 3L, 4L).inOrder();
+    }
+
+    /**
+     * Verify the min, max and percentile summaries.
+     */
+    @Test
+    public void testSummaries() {
+        LinkTelemetry telemetry = new LinkTelemetry(10);
+        int[] txLinkSpeeds = {50, 10, 40, 20, 30};
+        for (int i = 0; i < txLinkSpeeds.length; i++) {
+            telemetry.addSample(i, -60, txLinkSpeeds[i], 0, 2412);
+        }
+
+        assertThat(telemetry.getMin(METRIC_TX_LINK_SPEED_MBPS)).isEqualTo(10);
+        assertThat(telemetry.getMax(METRIC_TX_LINK_SPEED_MBPS)).isEqualTo(50);
+        assertThat(telemetry.getPercentile(METRIC_TX_LINK_SPEED_MBPS, 50)).isEqualTo(30);
+        assertThat(telemetry.getPercentile(METRIC_TX_LINK_SPEED_MBPS, 90)).isEqualTo(50);
+        assertThat(telemetry.getPercentile(METRIC_TX_LINK_SPEED_MBPS, 0)).isEqualTo(10);
+        assertThat(telemetry.getMax(METRIC_FREQUENCY_MHZ)).isEqualTo(2412);
+    }
+
+    /**
+     * Verify that clear() removes all samples.
+     */
+    @Test
+    public void testClear_removesSamples() {
+        LinkTelemetry telemetry = new LinkTelemetry(3);
+        telemetry.addSample(0, -50, 100, 100, 5180);
+
+        telemetry.clear();
+
+        assertThat(telemetry.getNumSamples()).isEqualTo(0);
+        assertThat(telemetry.getMax(METRIC_RSSI)).isEqualTo(0);
+        assertThat(telemetry.getPercentile(METRIC_RSSI, 50)).isEqualTo(0);
+    }
+
+    /**
+     * Verify that invalid arguments are rejected.
+     */
+    @Test
+    public void testInvalidArguments_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new LinkTelemetry(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LinkTelemetry(1).getPercentile(METRIC_RSSI, 101));
+    }
+}
@@ -18,6 +18,7 @@ package com.android.wifitrackerlib;
 
 import static com.android.dx.mockito.inline.extended.ExtendedMockito.mockitoSession;
 import static com.android.dx.mockito.inline.extended.ExtendedMockito.verify;
+import static com.android.wifitrackerlib.TestUtils.buildScanResult;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -374,4 +375,30 @@ public class PasspointWifiEntryTest {
         verify(mMockWifiManager).disableEphemeralNetwork(FQDN);
         verify(mMockWifiManager).disconnect();
     }
+
+    @Test
+    public void testUpdateScanResultInfo_ssidIndexSet_updatesSsidIndex() {
+        PasspointSsidIndex ssidIndex = new PasspointSsidIndex();
+        PasspointWifiEntry entry = new PasspointWifiEntry(mMockInjector, mTestHandler,
+                getPasspointConfiguration(), mMockWifiManager,
+                false /* forSavedNetworksPage */);
+        entry.setSsidIndex(ssidIndex);
+
+        entry.updateScanResultInfo(mock(WifiConfiguration.class),
+                Arrays.asList(buildScanResult("home", "bssid1", 0)),
+                Arrays.asList(buildScanResult("roaming", "bssid2", 0)));
+
+        assertThat(ssidIndex.contains("home")).isTrue();
+        assertThat(ssidIndex.contains("roaming")).isTrue();
+
+        entry.updateScanResultInfo(mock(WifiConfiguration.class),
+                Arrays.asList(buildScanResult("home", "bssid1", 0)), null);
+
+        assertThat(ssidIndex.contains("home")).isTrue();
+        assertThat(ssidIndex.contains("roaming")).isFalse();
+
+        entry.setSsidIndex(null);
+
+        assertThat(ssidIndex.contains("home")).isFalse();
+    }
 }
@@ -28,11 +28,15 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -50,6 +54,7 @@ import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiEnterpriseConfig;
 import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiManager;
+import android.net.wifi.WifiNetworkSuggestion;
 import android.net.wifi.hotspot2.PasspointConfiguration;
 import android.net.wifi.hotspot2.pps.Credential;
 import android.net.wifi.hotspot2.pps.HomeSp;
@@ -83,6 +88,7 @@ public class SavedNetworkTrackerTest {
     private static final long SCAN_INTERVAL_MILLIS = 10_000;
 
     private static final String TEST_CACERT_NOT_REQUIRED_ALIAS = "cacert_not_required";
+    private static final String TEST_CACERT_REQUIRED_ALIAS = "cacert_required";
 
     @Mock private WifiTrackerInjector mInjector;
     @Mock private Lifecycle mMockLifecycle;
@@ -249,6 +255,63 @@ public class SavedNetworkTrackerTest {
                 .containsExactly("ssid0", "ssid1", "ssid2");
     }
 
+    /**
+     * Tests that querySavedWifiEntries() returns the requested page of the matching entries sorted
+     * by title ignoring case, along with the total number of matches.
+     */
+    @Test
+    public void testQuerySavedWifiEntries_prefixAndPage_returnsSortedPage() {
+        when(mMockWifiManager.getConfiguredNetworks()).thenReturn(Arrays.asList(
+                buildWifiConfiguration("Office-2"),
+                buildWifiConfiguration("home"),
+                buildWifiConfiguration("office-1"),
+                buildWifiConfiguration("Office-3")
+        ));
+        final SavedNetworkTracker savedNetworkTracker = createTestSavedNetworkTracker();
+        savedNetworkTracker.onStart();
+        mTestLooper.dispatchAll();
+
+        final SavedNetworkTracker.SavedNetworkPage page = savedNetworkTracker.querySavedWifiEntries(
+                new SavedNetworkTracker.SavedNetworkQuery.Builder()
+                        .setTitlePrefix("OFFICE")
+                        .setOffset(1)
+                        .setLimit(1)
+                        .build());
+
+        assertThat(page.getTotalCount()).isEqualTo(3);
+        assertThat(page.getWifiEntries().stream()
+                .map(WifiEntry::getTitle)
+                .collect(Collectors.toList()))
+                .containsExactly("Office-2");
+    }
+
+    /**
+     * Tests that querySavedWifiEntries() reflects entries removed by a CONFIGURED_NETWORKS_CHANGED
+     * broadcast.
+     */
+    @Test
+    public void testQuerySavedWifiEntries_configuredNetworksChanged_removesEntry() {
+        final WifiConfiguration config0 = buildWifiConfiguration("ssid0");
+        final WifiConfiguration config1 = buildWifiConfiguration("ssid1");
+        when(mMockWifiManager.getConfiguredNetworks()).thenReturn(Arrays.asList(config0, config1));
+        final SavedNetworkTracker savedNetworkTracker = createTestSavedNetworkTracker();
+        savedNetworkTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+
+        when(mMockWifiManager.getConfiguredNetworks())
+                .thenReturn(Collections.singletonList(config1));
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION));
+        mTestLooper.dispatchAll();
+
+        final SavedNetworkTracker.SavedNetworkPage page = savedNetworkTracker.querySavedWifiEntries(
+                new SavedNetworkTracker.SavedNetworkQuery.Builder().build());
+        assertThat(page.getTotalCount()).isEqualTo(1);
+        assertThat(page.getWifiEntries().get(0).getTitle()).isEqualTo("ssid1");
+    }
+
     /**
      * Tests that a CONFIGURED_NETWORKS_CHANGED broadcast after adding a config
      * adds the corresponding WifiEntry from getSavedWifiEntries().
@@ -765,6 +828,157 @@ public class SavedNetworkTrackerTest {
                 .getCertificateRequesterNames(TEST_CACERT_NOT_REQUIRED_ALIAS).size());
     }
 
+    /**
+     * Tests that certificate queries are answered from the index built on start and refreshed on
+     * CONFIGURED_NETWORKS_CHANGED_ACTION without fetching the configurations again.
+     */
+    @Test
+    public void testCertificateRequired_started_usesIndexWithoutFetchingConfigs() {
+        final SavedNetworkTracker savedNetworkTracker = createTestSavedNetworkTracker();
+        final WifiConfiguration config = new WifiConfiguration();
+        config.SSID = "\"ssid\"";
+        config.networkId = 1;
+        config.setSecurityParams(WifiConfiguration.SECURITY_TYPE_EAP);
+        config.enterpriseConfig.setEapMethod(WifiEnterpriseConfig.Eap.PEAP);
+        config.enterpriseConfig.setCaCertificateAliases(new String[] {TEST_CACERT_REQUIRED_ALIAS});
+        when(mMockWifiManager.getConfiguredNetworks())
+                .thenReturn(Collections.singletonList(config));
+        savedNetworkTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+
+        assertTrue(savedNetworkTracker.isCertificateRequired(TEST_CACERT_REQUIRED_ALIAS));
+        assertFalse(savedNetworkTracker.isCertificateRequired(TEST_CACERT_NOT_REQUIRED_ALIAS));
+        assertEquals(Collections.singletonList("\"ssid\""),
+                savedNetworkTracker.getCertificateRequesterNames(TEST_CACERT_REQUIRED_ALIAS));
+        verify(mMockWifiManager, times(1)).getConfiguredNetworks();
+
+        when(mMockWifiManager.getConfiguredNetworks()).thenReturn(Collections.emptyList());
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION));
+        mTestLooper.dispatchAll();
+
+        assertFalse(savedNetworkTracker.isCertificateRequired(TEST_CACERT_REQUIRED_ALIAS));
+        assertEquals(0, savedNetworkTracker
+                .getCertificateRequesterNames(TEST_CACERT_REQUIRED_ALIAS).size());
+    }
+
+    /**
+     * Tests that certificate queries see network suggestions added while started, even though no
+     * CONFIGURED_NETWORKS_CHANGED_ACTION is sent for them.
+     */
+    @Test
+    public void testCertificateRequired_suggestionAddedWhileStarted_isRequired() {
+        final SavedNetworkTracker savedNetworkTracker = createTestSavedNetworkTracker();
+        savedNetworkTracker.onStart();
+        mTestLooper.dispatchAll();
+        assertFalse(savedNetworkTracker.isCertificateRequired(TEST_CACERT_REQUIRED_ALIAS));
+
+        final WifiConfiguration config = new WifiConfiguration();
+        config.SSID = "\"suggestion\"";
+        config.setSecurityParams(WifiConfiguration.SECURITY_TYPE_EAP);
+        config.enterpriseConfig.setEapMethod(WifiEnterpriseConfig.Eap.PEAP);
+        config.enterpriseConfig.setCaCertificateAliases(new String[] {TEST_CACERT_REQUIRED_ALIAS});
+        final WifiNetworkSuggestion suggestion = mock(WifiNetworkSuggestion.class);
+        when(suggestion.getWifiConfiguration()).thenReturn(config);
+        when(mMockWifiManager.getNetworkSuggestions())
+                .thenReturn(Collections.singletonList(suggestion));
+
+        assertTrue(savedNetworkTracker.isCertificateRequired(TEST_CACERT_REQUIRED_ALIAS));
+        assertEquals(Collections.singletonList("\"suggestion\""),
+                savedNetworkTracker.getCertificateRequesterNames(TEST_CACERT_REQUIRED_ALIAS));
+
+        when(mMockWifiManager.getNetworkSuggestions()).thenReturn(Collections.emptyList());
+
+        assertFalse(savedNetworkTracker.isCertificateRequired(TEST_CACERT_REQUIRED_ALIAS));
+        assertEquals(0, savedNetworkTracker
+                .getCertificateRequesterNames(TEST_CACERT_REQUIRED_ALIAS).size());
+    }
+
+    /**
+     * Tests that a bulk forget rebuilds the saved networks only once for all of the resulting
+     * CONFIGURED_NETWORKS_CHANGED broadcasts, and then notifies the bulk operation callback.
+     */
+    @Test
+    public void testForget_bulkOperation_reconcilesOnce() {
+        when(mMockWifiManager.getConfiguredNetworks()).thenReturn(Arrays.asList(
+                buildWifiConfiguration("ssid0"),
+                buildWifiConfiguration("ssid1"),
+                buildWifiConfiguration("ssid2")
+        ));
+        final SavedNetworkTracker savedNetworkTracker = createTestSavedNetworkTracker();
+        savedNetworkTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+        final SavedNetworkTracker.BulkOperationCallback bulkCallback =
+                mock(SavedNetworkTracker.BulkOperationCallback.class);
+        Mockito.clearInvocations(mMockWifiManager, mMockCallback);
+
+        savedNetworkTracker.forget(savedNetworkTracker.getSavedWifiEntries(), bulkCallback);
+        mTestLooper.dispatchAll();
+        when(mMockWifiManager.getConfiguredNetworks()).thenReturn(Collections.emptyList());
+        for (int i = 0; i < 3; i++) {
+            mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                    new Intent(WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION));
+        }
+        mTestLooper.dispatchAll();
+
+        verify(mMockWifiManager, times(3)).forget(anyInt(), any());
+        verify(mMockWifiManager, never()).getConfiguredNetworks();
+        verify(bulkCallback, never()).onBulkOperationCompleted(anyInt());
+
+        mTestLooper.moveTimeForward(1000);
+        mTestLooper.dispatchAll();
+
+        verify(mMockWifiManager, times(1)).getConfiguredNetworks();
+        verify(mMockCallback, times(1)).onSavedWifiEntriesChanged();
+        verify(bulkCallback).onBulkOperationCompleted(3);
+        assertThat(savedNetworkTracker.getSavedWifiEntries()).isEmpty();
+    }
+
+    /**
+     * Tests that CONFIGURED_NETWORKS_CHANGED broadcasts that keep arriving during a bulk operation
+     * don't postpone the reconciliation past the max settle time.
+     */
+    @Test
+    public void testForget_bulkOperationBroadcastsPastMaxSettle_reconcilesAtMaxSettle() {
+        when(mMockWifiManager.getConfiguredNetworks()).thenReturn(Arrays.asList(
+                buildWifiConfiguration("ssid0"),
+                buildWifiConfiguration("ssid1")
+        ));
+        final SavedNetworkTracker savedNetworkTracker = createTestSavedNetworkTracker();
+        savedNetworkTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+        final SavedNetworkTracker.BulkOperationCallback bulkCallback =
+                mock(SavedNetworkTracker.BulkOperationCallback.class);
+        Mockito.clearInvocations(mMockWifiManager, mMockCallback);
+
+        savedNetworkTracker.forget(savedNetworkTracker.getSavedWifiEntries(), bulkCallback);
+        mTestLooper.dispatchAll();
+        when(mMockWifiManager.getConfiguredNetworks()).thenReturn(Collections.emptyList());
+        // A broadcast every 400ms keeps restarting the 500ms settle wait until the 3s cap.
+        long elapsedMillis = 0;
+        while (elapsedMillis < 3000) {
+            mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                    new Intent(WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION));
+            mTestLooper.dispatchAll();
+            verify(bulkCallback, never()).onBulkOperationCompleted(anyInt());
+            elapsedMillis += 400;
+            when(mMockClock.millis()).thenReturn(START_MILLIS + elapsedMillis);
+            mTestLooper.moveTimeForward(400);
+            mTestLooper.dispatchAll();
+        }
+
+        // The last broadcast at 2800ms only waited until the 3s cap instead of until 3300ms.
+        verify(mMockWifiManager, times(1)).getConfiguredNetworks();
+        verify(bulkCallback).onBulkOperationCompleted(2);
+        assertThat(savedNetworkTracker.getSavedWifiEntries()).isEmpty();
+    }
+
     /**
      * Tests that a connected WifiEntry's isDefaultNetwork() will reflect updates from the default
      * network changing.
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.android.wifitrackerlib.TestUtils.buildScanResult;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertThrows;
+
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiInfo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ScanIntervalGovernorTest {
+    private static final long MIN_INTERVAL_MILLIS = 10_000;
+    private static final long MAX_INTERVAL_MILLIS = 40_000;
+    private static final long TIMESTAMP_MILLIS = 123_456_789;
+
+    private static List<ScanResult> buildScans(int rssi, String... bssids) {
+        ScanResult[] scans = new ScanResult[bssids.length];
+        for (int i = 0; i < bssids.length; i++) {
+            scans[i] = buildScanResult("ssid", bssids[i], TIMESTAMP_MILLIS, rssi);
+        }
+        return Arrays.asList(scans);
+    }
+
+    /**
+     * Verify that the interval doubles up to the max bound while the scan results are stable.
+     */
+    @Test
+    public void testOnScanResults_stableResults_lengthensIntervalUpToMax() {
+        ScanIntervalGovernor governor =
+                new ScanIntervalGovernor(MIN_INTERVAL_MILLIS, MAX_INTERVAL_MILLIS);
+
+        governor.onScanResults(buildScans(-50, "bssid1", "bssid2"));
+        assertThat(governor.getIntervalMillis()).isEqualTo(MIN_INTERVAL_MILLIS);
+
+        governor.onScanResults(buildScans(-52, "bssid1", "bssid2"));
+        assertThat(governor.getIntervalMillis()).isEqualTo(MIN_INTERVAL_MILLIS * 2);
+        governor.onScanResults(buildScans(-50, "bssid1", "bssid2"));
+        assertThat(governor.getIntervalMillis()).isEqualTo(MAX_INTERVAL_MILLIS);
+        governor.onScanResults(buildScans(-50, "bssid1", "bssid2"));
+        assertThat(governor.getIntervalMillis()).isEqualTo(MAX_INTERVAL_MILLIS);
+
+        assertThat(governor.getNumLengthenedDecisions()).isEqualTo(2);
+        assertThat(governor.getNumUnchangedDecisions()).isEqualTo(2);
+    }
+
+    /**
+     * Verify that the interval resets to the min bound if BSSIDs come and go.
+     */
+    @Test
+    public void testOnScanResults_churn_shortensIntervalToMin() {
+        ScanIntervalGovernor governor =
+                new ScanIntervalGovernor(MIN_INTERVAL_MILLIS, MAX_INTERVAL_MILLIS);
+        governor.onScanResults(buildScans(-50, "bssid1", "bssid2"));
+        governor.onScanResults(buildScans(-50, "bssid1", "bssid2"));
+        assertThat(governor.getIntervalMillis()).isEqualTo(MIN_INTERVAL_MILLIS * 2);
+
+        governor.onScanResults(buildScans(-50, "bssid1", "bssid3"));
+
+        assertThat(governor.getIntervalMillis()).isEqualTo(MIN_INTERVAL_MILLIS);
+        assertThat(governor.getNumShortenedDecisions()).isEqualTo(1);
+    }
+
+    /**
+     * Verify that the interval does not lengthen if the RSSIs change significantly.
+     */
+    @Test
+    public void testOnScanResults_rssiChanged_doesNotLengthenInterval() {
+        ScanIntervalGovernor governor =
+                new ScanIntervalGovernor(MIN_INTERVAL_MILLIS, MAX_INTERVAL_MILLIS);
+        governor.onScanResults(buildScans(-50, "bssid1", "bssid2"));
+
+        governor.onScanResults(buildScans(-70, "bssid1", "bssid2"));
+
+        assertThat(governor.getIntervalMillis()).isEqualTo(MIN_INTERVAL_MILLIS);
+        assertThat(governor.getNumLengthenedDecisions()).isEqualTo(0);
+    }
+
+    /**
+     * Verify that the interval stays at the min bound while the connected RSSI is weak.
+     */
+    @Test
+    public void testOnScanResults_weakConnectedRssi_keepsMinInterval() {
+        ScanIntervalGovernor governor =
+                new ScanIntervalGovernor(MIN_INTERVAL_MILLIS, MAX_INTERVAL_MILLIS);
+        governor.onConnectedRssiChanged(-85);
+        governor.onScanResults(buildScans(-50, "bssid1", "bssid2"));
+        governor.onScanResults(buildScans(-50, "bssid1", "bssid2"));
+        assertThat(governor.getIntervalMillis()).isEqualTo(MIN_INTERVAL_MILLIS);
+
+        governor.onConnectedRssiChanged(WifiInfo.INVALID_RSSI);
+        governor.onScanResults(buildScans(-50, "bssid1", "bssid2"));
+        assertThat(governor.getIntervalMillis()).isEqualTo(MIN_INTERVAL_MILLIS * 2);
+    }
+
+    /**
+     * Verify that reset() returns to the min interval and forgets the previous results.
+     */
+    @Test
+    public void testReset_returnsToMinInterval() {
+        ScanIntervalGovernor governor =
+                new ScanIntervalGovernor(MIN_INTERVAL_MILLIS, MAX_INTERVAL_MILLIS);
+        governor.onScanResults(buildScans(-50, "bssid1"));
+        governor.onScanResults(buildScans(-50, "bssid1"));
+
+        governor.reset();
+        governor.onScanResults(buildScans(-50, "bssid1"));
+
+        assertThat(governor.getIntervalMillis()).isEqualTo(MIN_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Verify that invalid bounds are rejected.
+     */
+    @Test
+    public void testConstructor_invalidBounds_throwsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ScanIntervalGovernor(0, MAX_INTERVAL_MILLIS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ScanIntervalGovernor(MAX_INTERVAL_MILLIS, MIN_INTERVAL_MILLIS));
+    }
+}
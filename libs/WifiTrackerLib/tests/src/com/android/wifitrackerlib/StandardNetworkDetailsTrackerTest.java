@@ -22,6 +22,7 @@ import static com.android.wifitrackerlib.StandardWifiEntry.StandardWifiEntryKey;
 import static com.android.wifitrackerlib.StandardWifiEntry.ssidAndSecurityTypeToStandardWifiEntryKey;
 import static com.android.wifitrackerlib.TestUtils.BAD_LEVEL;
 import static com.android.wifitrackerlib.TestUtils.BAD_RSSI;
+import static com.android.wifitrackerlib.TestUtils.GOOD_LEVEL;
 import static com.android.wifitrackerlib.TestUtils.GOOD_RSSI;
 import static com.android.wifitrackerlib.TestUtils.buildScanResult;
 import static com.android.wifitrackerlib.TestUtils.buildWifiConfiguration;
@@ -33,6 +34,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -354,4 +356,32 @@ public class StandardNetworkDetailsTrackerTest {
         // Updated with the correct SSID and ignored the different SSID.
         assertThat(tracker.getWifiEntry().getLevel()).isEqualTo(BAD_LEVEL);
     }
+
+    /**
+     * Tests that a tracker seeded from another entry with the same key shows the state of that
+     * entry without fetching the configs and scans again on construction or on the first start.
+     */
+    @Test
+    public void testConstructor_seedEntry_copiesStateWithoutFetching() {
+        final String ssid = "ssid";
+        final StandardWifiEntryKey key = ssidAndSecurityTypeToStandardWifiEntryKey(ssid,
+                SECURITY_NONE);
+        final StandardWifiEntry seedEntry = new StandardWifiEntry(mInjector, mMainHandler, key,
+                Collections.singletonList(buildWifiConfiguration(ssid)),
+                Collections.singletonList(buildScanResult(ssid, "bssid", START_MILLIS, GOOD_RSSI)),
+                mMockWifiManager, false /* forSavedNetworksPage */);
+
+        final StandardNetworkDetailsTracker tracker = new StandardNetworkDetailsTracker(
+                mInjector, mMockLifecycle, mMockContext, mMockWifiManager,
+                mMockConnectivityManager, mMainHandler, mWorkerHandler, mMockClock,
+                MAX_SCAN_AGE_MILLIS, SCAN_INTERVAL_MILLIS, key.toString(), seedEntry);
+        tracker.onStart();
+        mTestLooper.dispatchAll();
+
+        assertThat(tracker.getWifiEntry()).isNotSameInstanceAs(seedEntry);
+        assertThat(tracker.getWifiEntry().isSaved()).isTrue();
+        assertThat(tracker.getWifiEntry().getLevel()).isEqualTo(GOOD_LEVEL);
+        verify(mMockWifiManager, never()).getPrivilegedConfiguredNetworks();
+        verify(mMockWifiManager, never()).getScanResults();
+    }
 }
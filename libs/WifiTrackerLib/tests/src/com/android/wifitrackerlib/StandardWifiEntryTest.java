@@ -47,6 +47,7 @@ import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.admin.DevicePolicyManager;
@@ -1896,4 +1897,51 @@ public class StandardWifiEntryTest {
         entry.onNetworkCapabilitiesChanged(otherNetwork, mMockNetworkCapabilities);
         assertThat(entry.isDefaultNetwork()).isTrue();
     }
+
+    @Test
+    public void testGetSummary_unchangedState_reusesSummary() {
+        when(mMockContext.getString(R.string.wifitrackerlib_summary_separator)).thenReturn(" / ");
+        when(mMockContext.getString(R.string.wifitrackerlib_wifi_disconnected))
+                .thenReturn("Saved");
+        final WifiConfiguration config = new WifiConfiguration();
+        config.SSID = "\"ssid\"";
+        final StandardWifiEntry entry = new StandardWifiEntry(
+                mMockInjector, mTestHandler,
+                ssidAndSecurityTypeToStandardWifiEntryKey("ssid", SECURITY_TYPE_OPEN),
+                Collections.singletonList(config), null, mMockWifiManager,
+                false /* forSavedNetworksPage */);
+
+        assertThat(entry.getSummary()).isEqualTo("Saved");
+        assertThat(entry.getSummary()).isEqualTo("Saved");
+        verify(mMockContext, times(1)).getString(R.string.wifitrackerlib_wifi_disconnected);
+
+        when(mMockContext.getString(R.string.wifitrackerlib_wifi_disconnected))
+                .thenReturn("Disconnected");
+        entry.updateConfig(Collections.singletonList(config));
+
+        assertThat(entry.getSummary()).isEqualTo("Disconnected");
+    }
+
+    @Test
+    public void testGetScanResultDescription_groupsByBandSortedByRssi() {
+        final ScanResult weak24Ghz = buildScanResult("ssid", "bssid0", 0, TestUtils.BAD_RSSI);
+        weak24Ghz.frequency = 2412;
+        final ScanResult strong24Ghz = buildScanResult("ssid", "bssid1", 0, TestUtils.GOOD_RSSI);
+        strong24Ghz.frequency = 2437;
+        final ScanResult scan5Ghz = buildScanResult("ssid", "bssid2", 0, TestUtils.GOOD_RSSI);
+        scan5Ghz.frequency = 5180;
+        final StandardWifiEntry entry = new StandardWifiEntry(
+                mMockInjector, mTestHandler,
+                ssidAndSecurityTypeToStandardWifiEntryKey("ssid", SECURITY_TYPE_OPEN),
+                null, Arrays.asList(weak24Ghz, strong24Ghz, scan5Ghz), mMockWifiManager,
+                false /* forSavedNetworksPage */);
+
+        final String description = entry.getScanResultDescription();
+
+        assertThat(description).startsWith("[(2) \n{bssid1=2437");
+        assertThat(description.indexOf("{bssid0=2412")).isGreaterThan(
+                description.indexOf("{bssid1=2437"));
+        assertThat(description).contains(";(1) \n{bssid2=5180");
+        assertThat(description).endsWith("s};;]");
+    }
 }
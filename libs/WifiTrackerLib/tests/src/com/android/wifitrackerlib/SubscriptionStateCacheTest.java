@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+
+public class SubscriptionStateCacheTest {
+    private static final int TEST_CARRIER_ID = 1911;
+    private static final int TEST_SUB_ID = 2;
+    private static final String TEST_CARRIER_NAME = "carrierName";
+
+    @Mock private Context mMockContext;
+    @Mock private SubscriptionManager mMockSubscriptionManager;
+    @Mock private TelephonyManager mMockTelephonyManager;
+    @Mock private TelephonyManager mMockSpecifiedTelephonyManager;
+    @Mock private SubscriptionInfo mMockSubscriptionInfo;
+
+    private SubscriptionStateCache mCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(mMockContext.getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE))
+                .thenReturn(mMockSubscriptionManager);
+        when(mMockContext.getSystemService(Context.TELEPHONY_SERVICE))
+                .thenReturn(mMockTelephonyManager);
+        when(mMockTelephonyManager.createForSubscriptionId(TEST_SUB_ID))
+                .thenReturn(mMockSpecifiedTelephonyManager);
+        when(mMockSpecifiedTelephonyManager.getSimOperatorName()).thenReturn(TEST_CARRIER_NAME);
+        when(mMockSubscriptionInfo.getCarrierId()).thenReturn(TEST_CARRIER_ID);
+        when(mMockSubscriptionManager.getActiveSubscriptionInfoList())
+                .thenReturn(Collections.singletonList(mMockSubscriptionInfo));
+
+        mCache = new SubscriptionStateCache(mMockContext);
+    }
+
+    /**
+     * Verify that the subscriptions are fetched on every lookup while stopped.
+     */
+    @Test
+    public void testIsSimPresent_stopped_fetchesEveryTime() {
+        assertThat(mCache.isSimPresent(TEST_CARRIER_ID)).isTrue();
+        assertThat(mCache.isSimPresent(TEST_CARRIER_ID)).isTrue();
+
+        verify(mMockSubscriptionManager, times(2)).getActiveSubscriptionInfoList();
+    }
+
+    /**
+     * Verify that the subscriptions are fetched once after start until they change.
+     */
+    @Test
+    public void testIsSimPresent_started_fetchesOnceUntilSubscriptionsChanged() {
+        mCache.onStart();
+
+        assertThat(mCache.isSimPresent(TEST_CARRIER_ID)).isTrue();
+        assertThat(mCache.isSimPresent(TEST_CARRIER_ID)).isTrue();
+        verify(mMockSubscriptionManager, times(1)).getActiveSubscriptionInfoList();
+
+        when(mMockSubscriptionManager.getActiveSubscriptionInfoList())
+                .thenReturn(Collections.emptyList());
+        mCache.onSubscriptionsChanged();
+
+        assertThat(mCache.isSimPresent(TEST_CARRIER_ID)).isFalse();
+        verify(mMockSubscriptionManager, times(2)).getActiveSubscriptionInfoList();
+    }
+
+    /**
+     * Verify that carrier names are cached per subscription until the carrier config changes.
+     */
+    @Test
+    public void testGetCarrierNameForSubId_started_cachedUntilCarrierConfigChanged() {
+        mCache.onStart();
+        final int generation = mCache.getGeneration();
+
+        assertThat(mCache.getCarrierNameForSubId(TEST_SUB_ID)).isEqualTo(TEST_CARRIER_NAME);
+        assertThat(mCache.getCarrierNameForSubId(TEST_SUB_ID)).isEqualTo(TEST_CARRIER_NAME);
+        verify(mMockSpecifiedTelephonyManager, times(1)).getSimOperatorName();
+
+        mCache.onCarrierConfigChanged();
+
+        assertThat(mCache.getGeneration()).isNotEqualTo(generation);
+        assertThat(mCache.getCarrierNameForSubId(TEST_SUB_ID)).isEqualTo(TEST_CARRIER_NAME);
+        verify(mMockSpecifiedTelephonyManager, times(2)).getSimOperatorName();
+    }
+}
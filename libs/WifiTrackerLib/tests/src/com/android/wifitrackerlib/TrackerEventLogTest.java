@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+public class TrackerEventLogTest {
+    private static String dump(TrackerEventLog eventLog) {
+        final StringWriter stringWriter = new StringWriter();
+        final PrintWriter pw = new PrintWriter(stringWriter);
+        eventLog.dump(pw);
+        pw.flush();
+        return stringWriter.toString();
+    }
+
+    /**
+     * Verify that events are dumped from oldest to newest.
+     */
+    @Test
+    public void testDump_printsEventsInOrder() {
+        final TrackerEventLog eventLog = new TrackerEventLog(4);
+        eventLog.record(TrackerEventLog.EVENT_BROADCAST_RECEIVED, "action1");
+        eventLog.record(TrackerEventLog.EVENT_WIFI_ENTRIES_CHANGED, 1, 5);
+
+        final String dump = dump(eventLog);
+
+        assertThat(dump).contains("Recent events (2)");
+        assertThat(dump).contains("Received broadcast: action1");
+        assertThat(dump).contains("onWifiEntriesChanged: reason=1, entries=5");
+        assertThat(dump.indexOf("action1")).isLessThan(dump.indexOf("onWifiEntriesChanged"));
+    }
+
+    /**
+     * Verify that the oldest events are overwritten once the buffer is full.
+     */
+    @Test
+    public void testRecord_full_overwritesOldestEvents() {
+        final TrackerEventLog eventLog = new TrackerEventLog(2);
+        eventLog.record(TrackerEventLog.EVENT_BROADCAST_RECEIVED, "action1");
+        eventLog.record(TrackerEventLog.EVENT_BROADCAST_RECEIVED, "action2");
+        eventLog.record(TrackerEventLog.EVENT_BROADCAST_RECEIVED, "action3");
+
+        final String dump = dump(eventLog);
+
+        assertThat(dump).contains("Recent events (2)");
+        assertThat(dump).doesNotContain("action1");
+        assertThat(dump.indexOf("action2")).isLessThan(dump.indexOf("action3"));
+    }
+}
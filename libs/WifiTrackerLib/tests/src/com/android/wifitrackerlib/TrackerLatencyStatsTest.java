@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.android.wifitrackerlib.TrackerLatencyStats.PHASE_FETCH_SCAN_RESULTS;
+import static com.android.wifitrackerlib.TrackerLatencyStats.PHASE_SORT_LIST;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+public class TrackerLatencyStatsTest {
+    /**
+     * Verify that percentiles report the upper bound of their bucket, capped at the max duration.
+     */
+    @Test
+    public void testGetPercentileMicros_returnsBucketUpperBound() {
+        final TrackerLatencyStats stats = new TrackerLatencyStats();
+        for (int i = 0; i < 98; i++) {
+            stats.record(PHASE_SORT_LIST, 80);
+        }
+        stats.record(PHASE_SORT_LIST, 400);
+        stats.record(PHASE_SORT_LIST, 3_000);
+
+        assertThat(stats.getCount(PHASE_SORT_LIST)).isEqualTo(100);
+        assertThat(stats.getPercentileMicros(PHASE_SORT_LIST, 50)).isEqualTo(100);
+        assertThat(stats.getPercentileMicros(PHASE_SORT_LIST, 99)).isEqualTo(500);
+        assertThat(stats.getPercentileMicros(PHASE_SORT_LIST, 100)).isEqualTo(3_000);
+        assertThat(stats.getMaxMicros(PHASE_SORT_LIST)).isEqualTo(3_000);
+        assertThat(stats.getCount(PHASE_FETCH_SCAN_RESULTS)).isEqualTo(0);
+        assertThat(stats.getPercentileMicros(PHASE_FETCH_SCAN_RESULTS, 50)).isEqualTo(0);
+    }
+
+    /**
+     * Verify that a copy is not affected by later durations.
+     */
+    @Test
+    public void testCopy_notAffectedByLaterDurations() {
+        final TrackerLatencyStats stats = new TrackerLatencyStats();
+        stats.record(PHASE_SORT_LIST, 10);
+
+        final TrackerLatencyStats copy = stats.copy();
+        stats.record(PHASE_SORT_LIST, 10);
+
+        assertThat(copy.getCount(PHASE_SORT_LIST)).isEqualTo(1);
+        assertThat(stats.getCount(PHASE_SORT_LIST)).isEqualTo(2);
+    }
+
+    /**
+     * Verify that only phases with durations are dumped.
+     */
+    @Test
+    public void testDump_printsRecordedPhases() {
+        final TrackerLatencyStats stats = new TrackerLatencyStats();
+        stats.record(PHASE_SORT_LIST, 10);
+        final StringWriter stringWriter = new StringWriter();
+        final PrintWriter pw = new PrintWriter(stringWriter);
+
+        stats.dump(pw);
+        pw.flush();
+
+        assertThat(stringWriter.toString()).contains("SortList: count=1 p50=10 p90=10 p99=10");
+        assertThat(stringWriter.toString()).doesNotContain("FetchScanResults");
+    }
+}
@@ -46,6 +46,8 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.ContentResolver;
@@ -1223,4 +1225,14 @@ public class UtilsTest {
         assertThat(info.caCertificateAliases).isNull();
         assertThat(info.domain).isEqualTo(domain);
     }
+
+    @Test
+    public void testGetAppLabel_cachedPerPackage() throws Exception {
+        when(mApplicationInfo.loadLabel(any())).thenReturn("appLabel");
+
+        assertThat(Utils.getAppLabel(mMockContext, "app")).isEqualTo("appLabel");
+        assertThat(Utils.getAppLabel(mMockContext, "app")).isEqualTo("appLabel");
+
+        verify(mPackageManager, times(1)).getApplicationInfo("app", 0);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.android.wifitrackerlib.TestUtils.buildScanResult;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.net.wifi.ScanResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class WarmStartSnapshotTest {
+    private static final String SSID = "ssid";
+    private static final String BSSID_1 = "11:11:11:11:11:11";
+    private static final String BSSID_2 = "22:22:22:22:22:22";
+    private static final long SAVED_ELAPSED_MILLIS = 100_000;
+    private static final long SAVED_WALL_MILLIS = 1_700_000_000_000L;
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("snapshot", ".bin");
+        mFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    /**
+     * Verify that a written snapshot can be read back with the same scans and keys.
+     */
+    @Test
+    public void testReadWrite_roundTrip() {
+        ScanResult scan1 = buildScanResult(SSID, BSSID_1, SAVED_ELAPSED_MILLIS, -50);
+        scan1.frequency = 2412;
+        scan1.capabilities = "[WPA2-PSK-CCMP][ESS]";
+        ScanResult scan2 = buildScanResult(SSID, BSSID_2, SAVED_ELAPSED_MILLIS - 1000, -70);
+        scan2.frequency = 5180;
+
+        WarmStartSnapshot.write(mFile, SAVED_ELAPSED_MILLIS, SAVED_WALL_MILLIS,
+                Arrays.asList(scan1, scan2), Arrays.asList("key1", "key2"));
+        WarmStartSnapshot snapshot = WarmStartSnapshot.read(
+                mFile, SAVED_ELAPSED_MILLIS + 5000, SAVED_WALL_MILLIS + 5000);
+
+        assertThat(snapshot).isNotNull();
+        assertThat(snapshot.getSavedElapsedMillis()).isEqualTo(SAVED_ELAPSED_MILLIS);
+        assertThat(snapshot.getEntryKeys()).containsExactly("key1", "key2").inOrder();
+        assertThat(snapshot.getScanResults()).hasSize(2);
+        ScanResult restored = snapshot.getScanResults().get(0);
+        assertThat(restored.SSID).isEqualTo(SSID);
+        assertThat(restored.BSSID).isEqualTo(BSSID_1);
+        assertThat(restored.capabilities).isEqualTo("[WPA2-PSK-CCMP][ESS]");
+        assertThat(restored.level).isEqualTo(-50);
+        assertThat(restored.frequency).isEqualTo(2412);
+        assertThat(restored.timestamp).isEqualTo(scan1.timestamp);
+    }
+
+    /**
+     * Verify that the snapshot is discarded if the elapsed realtime went backwards (i.e. reboot).
+     */
+    @Test
+    public void testRead_afterReboot_returnsNull() {
+        WarmStartSnapshot.write(mFile, SAVED_ELAPSED_MILLIS, SAVED_WALL_MILLIS,
+                Arrays.asList(buildScanResult(SSID, BSSID_1, SAVED_ELAPSED_MILLIS)),
+                Arrays.asList("key1"));
+
+        assertThat(WarmStartSnapshot.read(mFile, 1000, SAVED_WALL_MILLIS + 5000)).isNull();
+        assertThat(mFile.exists()).isFalse();
+    }
+
+    /**
+     * Verify that a corrupt file is discarded instead of throwing.
+     */
+    @Test
+    public void testRead_corruptFile_returnsNull() throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(mFile)) {
+            fos.write(new byte[] {1, 2, 3});
+        }
+
+        assertThat(WarmStartSnapshot.read(mFile, SAVED_ELAPSED_MILLIS, SAVED_WALL_MILLIS))
+                .isNull();
+    }
+
+    /**
+     * Verify that reading a missing file returns null.
+     */
+    @Test
+    public void testRead_missingFile_returnsNull() {
+        assertThat(WarmStartSnapshot.read(mFile, SAVED_ELAPSED_MILLIS, SAVED_WALL_MILLIS))
+                .isNull();
+    }
+}
@@ -38,6 +38,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -94,6 +95,8 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.MockitoSession;
 
+import java.io.File;
+import java.io.IOException;
 import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -638,6 +641,32 @@ public class WifiPickerTrackerTest {
         assertThat(wifiPickerTracker.getConnectedWifiEntry()).isNotNull();
     }
 
+    /**
+     * Tests that the parallel start returns the connected WifiEntry and reports the start timings
+     * if we start already connected to a network.
+     */
+    @Test
+    public void testGetConnectedEntry_parallelStartAlreadyConnected_returnsConnectedEntry() {
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        final WifiConfiguration config = new WifiConfiguration();
+        config.SSID = "\"ssid\"";
+        config.networkId = 1;
+        when(mMockWifiManager.getPrivilegedConfiguredNetworks())
+                .thenReturn(Collections.singletonList(config));
+        when(mMockWifiInfo.getNetworkId()).thenReturn(1);
+        when(mMockWifiInfo.getRssi()).thenReturn(-50);
+        wifiPickerTracker.setParallelStartEnabled(true);
+
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+
+        assertThat(wifiPickerTracker.getConnectedWifiEntry()).isNotNull();
+        assertThat(wifiPickerTracker.getLastStartTimeToConnectedEntryMillis())
+                .isAtLeast(0L);
+        assertThat(wifiPickerTracker.getLastStartTimeToFullListMillis())
+                .isAtLeast(wifiPickerTracker.getLastStartTimeToConnectedEntryMillis());
+    }
+
     /**
      * Tests that connecting to a network will update getConnectedEntry() to return the connected
      * WifiEntry and remove that entry from getWifiEntries().
@@ -2606,6 +2635,109 @@ public class WifiPickerTrackerTest {
         verify(mMockWifiManager).startScan();
     }
 
+    /**
+     * Tests that full results streamed in by the first WifiScanner scan are shown before the scan
+     * completes if progressive scan results are enabled.
+     */
+    @Test
+    public void testScanner_progressiveScanResultsEnabled_fullResultsShownBeforeScanCompletes() {
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.setProgressiveScanResultsEnabled(true);
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.WIFI_STATE_CHANGED_ACTION).putExtra(
+                        WifiManager.EXTRA_WIFI_STATE, WifiManager.WIFI_STATE_ENABLED));
+        ArgumentCaptor<WifiScanner.ScanListener> mScanListenerCaptor =
+                ArgumentCaptor.forClass(WifiScanner.ScanListener.class);
+        verify(mWifiScanner).startScan(any(), mScanListenerCaptor.capture());
+
+        mScanListenerCaptor.getValue().onFullResult(
+                buildScanResult("ssid", "bssid", START_MILLIS));
+        mTestLooper.dispatchAll();
+        // Results are coalesced before being shown.
+        assertThat(wifiPickerTracker.getWifiEntries()).isEmpty();
+
+        mTestLooper.moveTimeForward(1000);
+        mTestLooper.dispatchAll();
+        assertThat(wifiPickerTracker.getWifiEntries()).hasSize(1);
+        assertThat(wifiPickerTracker.getWifiEntries().get(0).getTitle()).isEqualTo("ssid");
+        verify(mMockWifiManager, never()).startScan();
+    }
+
+    /**
+     * Tests that full results streamed in by the first WifiScanner scan are ignored if progressive
+     * scan results are not enabled.
+     */
+    @Test
+    public void testScanner_progressiveScanResultsDisabled_fullResultsIgnored() {
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.WIFI_STATE_CHANGED_ACTION).putExtra(
+                        WifiManager.EXTRA_WIFI_STATE, WifiManager.WIFI_STATE_ENABLED));
+        ArgumentCaptor<WifiScanner.ScanListener> mScanListenerCaptor =
+                ArgumentCaptor.forClass(WifiScanner.ScanListener.class);
+        verify(mWifiScanner).startScan(any(), mScanListenerCaptor.capture());
+
+        mScanListenerCaptor.getValue().onFullResult(
+                buildScanResult("ssid", "bssid", START_MILLIS));
+        mTestLooper.moveTimeForward(1000);
+        mTestLooper.dispatchAll();
+
+        assertThat(wifiPickerTracker.getWifiEntries()).isEmpty();
+    }
+
+    /**
+     * Tests that a targeted scan of the channels where saved networks were seen is issued between
+     * full scans if targeted scans are enabled.
+     */
+    @Test
+    public void testScanner_targetedScansEnabled_scansSavedNetworkChannels() {
+        final WifiConfiguration config = buildWifiConfiguration("ssid");
+        config.setSecurityParams(WifiConfiguration.SECURITY_TYPE_OPEN);
+        when(mMockWifiManager.getPrivilegedConfiguredNetworks())
+                .thenReturn(Collections.singletonList(config));
+        final ScanResult savedScan = buildScanResult("ssid", "bssid0", START_MILLIS);
+        savedScan.frequency = 5180;
+        final ScanResult unsavedScan = buildScanResult("other", "bssid1", START_MILLIS);
+        unsavedScan.frequency = 2412;
+        when(mMockWifiManager.getScanResults()).thenReturn(Arrays.asList(savedScan, unsavedScan));
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.setTargetedScansEnabled(true);
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.WIFI_STATE_CHANGED_ACTION).putExtra(
+                        WifiManager.EXTRA_WIFI_STATE, WifiManager.WIFI_STATE_ENABLED));
+        ArgumentCaptor<WifiScanner.ScanListener> mScanListenerCaptor =
+                ArgumentCaptor.forClass(WifiScanner.ScanListener.class);
+        verify(mWifiScanner).startScan(any(), mScanListenerCaptor.capture());
+        mScanListenerCaptor.getValue().onResults(null);
+        mTestLooper.dispatchAll();
+        verify(mMockWifiManager).startScan();
+
+        mTestLooper.moveTimeForward(SCAN_INTERVAL_MILLIS / 2);
+        mTestLooper.dispatchAll();
+
+        ArgumentCaptor<WifiScanner.ScanSettings> scanSettingsCaptor =
+                ArgumentCaptor.forClass(WifiScanner.ScanSettings.class);
+        verify(mWifiScanner, times(2)).startScan(scanSettingsCaptor.capture(), any());
+        final WifiScanner.ScanSettings targetedSettings = scanSettingsCaptor.getValue();
+        assertThat(targetedSettings.band).isEqualTo(WifiScanner.WIFI_BAND_UNSPECIFIED);
+        assertThat(targetedSettings.channels).hasLength(1);
+        assertThat(targetedSettings.channels[0].frequency).isEqualTo(5180);
+        // The next full scan is still issued at the regular interval.
+        verify(mMockWifiManager).startScan();
+    }
+
     /**
      * Tests that the BaseWifiTracker.Scanner does not scan if scanning was disabled.
      */
@@ -3019,6 +3151,109 @@ public class WifiPickerTrackerTest {
                 .isVirtualEntry()).isTrue();
     }
 
+    /**
+     * Verify that updating the hotspot networks keeps the entries of existing devices, and creates
+     * the entries of new devices from the cached connection info instead of querying it.
+     */
+    @Test
+    public void testHotspotNetworks_newDevice_reusesEntriesAndCachedConnectionInfo() {
+        final HotspotNetwork testHotspotNetwork1 = new HotspotNetwork.Builder()
+                .setDeviceId(1)
+                .setNetworkProviderInfo(new NetworkProviderInfo
+                        .Builder("My Phone", "Pixel 7")
+                        .setDeviceType(NetworkProviderInfo.DEVICE_TYPE_PHONE)
+                        .setBatteryPercentage(100)
+                        .setConnectionStrength(3)
+                        .build())
+                .setHostNetworkType(HotspotNetwork.NETWORK_TYPE_CELLULAR)
+                .setNetworkName("Google Fi")
+                .build();
+        final HotspotNetwork testHotspotNetwork2 = new HotspotNetwork.Builder()
+                .setDeviceId(2)
+                .setNetworkProviderInfo(new NetworkProviderInfo
+                        .Builder("My Work Phone", "Pixel 6")
+                        .setDeviceType(NetworkProviderInfo.DEVICE_TYPE_PHONE)
+                        .setBatteryPercentage(90)
+                        .setConnectionStrength(2)
+                        .build())
+                .setHostNetworkType(HotspotNetwork.NETWORK_TYPE_CELLULAR)
+                .setNetworkName("T-Mobile")
+                .build();
+        when(mMockSharedConnectivityManager.getHotspotNetworks()).thenReturn(
+                Collections.singletonList(testHotspotNetwork1));
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockSharedConnectivityManager).registerCallback(any(),
+                mSharedConnectivityCallbackCaptor.capture());
+        verify(mMockConnectivityManager)
+                .registerNetworkCallback(any(), mNetworkCallbackCaptor.capture(), any());
+        mNetworkCallbackCaptor.getValue().onCapabilitiesChanged(
+                mMockNetwork, mMockNetworkCapabilities);
+        mSharedConnectivityCallbackCaptor.getValue().onServiceConnected();
+        mTestLooper.dispatchAll();
+        final WifiEntry entry1 = wifiPickerTracker.getWifiEntries().stream().filter(
+                entry -> entry instanceof HotspotNetworkEntry).findFirst().orElseThrow();
+        Mockito.clearInvocations(mMockWifiManager, mMockConnectivityManager);
+
+        mSharedConnectivityCallbackCaptor.getValue().onHotspotNetworksUpdated(
+                List.of(testHotspotNetwork1, testHotspotNetwork2));
+        mTestLooper.dispatchAll();
+
+        final List<WifiEntry> hotspotEntries = wifiPickerTracker.getWifiEntries().stream()
+                .filter(entry -> entry instanceof HotspotNetworkEntry).toList();
+        assertThat(hotspotEntries).hasSize(2);
+        assertThat(hotspotEntries).contains(entry1);
+        verify(mMockWifiManager, never()).getCurrentNetwork();
+        verify(mMockConnectivityManager, never()).getNetworkCapabilities(any());
+    }
+
+    /**
+     * Verify that a burst of hotspot and known network updates within the coalescing window only
+     * applies the latest payloads, rebuilding the WifiEntries once.
+     */
+    @Test
+    public void testSharedConnectivityCoalescing_burstOfUpdates_rebuildsOnce() {
+        final HotspotNetwork.Builder hotspotNetworkBuilder = new HotspotNetwork.Builder()
+                .setNetworkProviderInfo(new NetworkProviderInfo
+                        .Builder("My Phone", "Pixel 7")
+                        .setDeviceType(NetworkProviderInfo.DEVICE_TYPE_PHONE)
+                        .setBatteryPercentage(100)
+                        .setConnectionStrength(3)
+                        .build())
+                .setHostNetworkType(HotspotNetwork.NETWORK_TYPE_CELLULAR)
+                .setNetworkName("Google Fi");
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.setSharedConnectivityCoalescingWindowMillis(100);
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockSharedConnectivityManager).registerCallback(any(),
+                mSharedConnectivityCallbackCaptor.capture());
+        mSharedConnectivityCallbackCaptor.getValue().onServiceConnected();
+        mTestLooper.dispatchAll();
+        Mockito.clearInvocations(mMockCallback);
+
+        mSharedConnectivityCallbackCaptor.getValue().onHotspotNetworksUpdated(
+                List.of(hotspotNetworkBuilder.setDeviceId(1).build()));
+        mSharedConnectivityCallbackCaptor.getValue().onKnownNetworksUpdated(
+                Collections.emptyList());
+        mSharedConnectivityCallbackCaptor.getValue().onHotspotNetworksUpdated(
+                List.of(hotspotNetworkBuilder.setDeviceId(2).build()));
+        mTestLooper.dispatchAll();
+
+        verify(mMockCallback, never()).onWifiEntriesChanged(anyInt());
+
+        mTestLooper.moveTimeForward(100);
+        mTestLooper.dispatchAll();
+
+        verify(mMockCallback, times(1)).onWifiEntriesChanged(anyInt());
+        final List<WifiEntry> hotspotEntries = wifiPickerTracker.getWifiEntries().stream()
+                .filter(entry -> entry instanceof HotspotNetworkEntry).toList();
+        assertThat(hotspotEntries).hasSize(1);
+        assertThat(((HotspotNetworkEntry) hotspotEntries.get(0)).getHotspotNetworkEntryKey()
+                .getDeviceId()).isEqualTo(2);
+    }
+
     @Test
     public void testHotspotNetworks_activeHotspot_nonVirtualEntryIncluded() {
         final HotspotNetwork testHotspotNetwork = new HotspotNetwork.Builder()
@@ -3409,4 +3644,234 @@ public class WifiPickerTrackerTest {
         assertThat(wifiPickerTracker.getActiveWifiEntries().stream().filter(
                 entry -> entry instanceof HotspotNetworkEntry).toList()).isEmpty();
     }
+
+    /**
+     * Tests that enabling adaptive scan intervals registers for RSSI changes even if verbose
+     * logging is disabled, and that a weak connected RSSI keeps the interval at the min bound.
+     */
+    @Test
+    public void testAdaptiveScanInterval_verboseLoggingDisabled_weakRssiKeepsMinInterval() {
+        when(mInjector.isVerboseLoggingEnabled()).thenReturn(false);
+        when(mMockWifiManager.getScanResults()).thenReturn(Arrays.asList(
+                buildScanResult("ssid", "bssid", START_MILLIS)));
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.enableAdaptiveScanInterval(5_000, MAX_SCAN_AGE_MILLIS);
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        final ArgumentCaptor<IntentFilter> intentFilterCaptor =
+                ArgumentCaptor.forClass(IntentFilter.class);
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                intentFilterCaptor.capture(), any(), any());
+        assertThat(intentFilterCaptor.getValue().hasAction(WifiManager.RSSI_CHANGED_ACTION))
+                .isTrue();
+
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.RSSI_CHANGED_ACTION)
+                        .putExtra(WifiManager.EXTRA_NEW_RSSI, -85));
+        for (int i = 0; i < 3; i++) {
+            mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                    new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        }
+
+        assertThat(wifiPickerTracker.getScanIntervalGovernor().getIntervalMillis())
+                .isEqualTo(5_000);
+        // The verbose summary isn't updated from the RSSI broadcast without verbose logging.
+        verify(mMockWifiManager, never()).getConnectionInfo();
+    }
+
+    /**
+     * Tests that the max adaptive scan interval is clamped to the max scan age.
+     */
+    @Test
+    public void testEnableAdaptiveScanInterval_maxAboveMaxScanAge_clampedToMaxScanAge() {
+        when(mMockWifiManager.getScanResults()).thenReturn(Arrays.asList(
+                buildScanResult("ssid", "bssid", START_MILLIS)));
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.enableAdaptiveScanInterval(5_000, 4 * MAX_SCAN_AGE_MILLIS);
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+
+        for (int i = 0; i < 5; i++) {
+            mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                    new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        }
+
+        assertThat(wifiPickerTracker.getScanIntervalGovernor().getIntervalMillis())
+                .isEqualTo(MAX_SCAN_AGE_MILLIS);
+    }
+
+    /**
+     * Tests that BSSIDs missing from the latest scan count as churn even while they are still
+     * cached from the previous scans.
+     */
+    @Test
+    public void testAdaptiveScanInterval_bssidsMissingFromLatestScan_resetsToMinInterval() {
+        final List<ScanResult> fullScan = Arrays.asList(
+                buildScanResult("ssid", "bssid0", START_MILLIS),
+                buildScanResult("ssid", "bssid1", START_MILLIS),
+                buildScanResult("ssid", "bssid2", START_MILLIS));
+        when(mMockWifiManager.getScanResults()).thenReturn(fullScan);
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.enableAdaptiveScanInterval(5_000, MAX_SCAN_AGE_MILLIS);
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        assertThat(wifiPickerTracker.getScanIntervalGovernor().getIntervalMillis())
+                .isEqualTo(10_000);
+
+        when(mMockWifiManager.getScanResults()).thenReturn(Arrays.asList(
+                buildScanResult("ssid", "bssid0", START_MILLIS)));
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+
+        assertThat(wifiPickerTracker.getScanIntervalGovernor().getIntervalMillis())
+                .isEqualTo(5_000);
+    }
+
+    /**
+     * Runs and stops a tracker with the warm-start snapshot enabled and a saved network in range,
+     * which writes the snapshot to the returned cache dir.
+     */
+    private File writeWarmStartSnapshot() throws IOException {
+        final File cacheDir = File.createTempFile("cache", "");
+        cacheDir.delete();
+        cacheDir.mkdir();
+        when(mMockContext.getCacheDir()).thenReturn(cacheDir);
+        final WifiConfiguration config = new WifiConfiguration();
+        config.SSID = "\"ssid\"";
+        config.networkId = 1;
+        when(mMockWifiManager.getPrivilegedConfiguredNetworks())
+                .thenReturn(Collections.singletonList(config));
+        when(mMockWifiManager.getScanResults()).thenReturn(Arrays.asList(
+                buildScanResult("ssid", "bssid", START_MILLIS)));
+        final WifiPickerTracker stoppedTracker = createTestWifiPickerTracker();
+        stoppedTracker.setWarmStartSnapshotEnabled(true);
+        stoppedTracker.onStart();
+        mTestLooper.dispatchAll();
+        assertThat(stoppedTracker.getWifiEntries()).hasSize(1);
+        stoppedTracker.onStop();
+        mTestLooper.dispatchAll();
+        return cacheDir;
+    }
+
+    /**
+     * Starts the tracker without any fresh scans and returns the provisional list published
+     * from the warm-start snapshot, as seen when the fresh scans are fetched.
+     */
+    private List<WifiEntry> startAndGetProvisionalWifiEntries(WifiPickerTracker wifiPickerTracker) {
+        final List<WifiEntry> provisionalEntries = new ArrayList<>();
+        doAnswer(invocation -> {
+            if (provisionalEntries.isEmpty()) {
+                provisionalEntries.addAll(wifiPickerTracker.getWifiEntries());
+            }
+            return new ArrayList<>();
+        }).when(mMockWifiManager).getScanResults();
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        return provisionalEntries;
+    }
+
+    /**
+     * Tests that the warm-start snapshot is published as a provisional list with the saved state
+     * of its entries, and that the snapshot scans don't outlive the provisional list.
+     */
+    @Test
+    public void testWarmStartSnapshot_publishesSavedEntriesWithoutCachingSnapshotScans()
+            throws IOException {
+        final File cacheDir = writeWarmStartSnapshot();
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.setWarmStartSnapshotEnabled(true);
+
+        final List<WifiEntry> provisionalEntries =
+                startAndGetProvisionalWifiEntries(wifiPickerTracker);
+
+        assertThat(provisionalEntries).hasSize(1);
+        assertThat(provisionalEntries.get(0).getTitle()).isEqualTo("ssid");
+        assertThat(provisionalEntries.get(0).isSaved()).isTrue();
+        assertThat(wifiPickerTracker.getWifiEntries()).isEmpty();
+
+        wifiPickerTracker.setWarmStartSnapshotEnabled(false);
+        wifiPickerTracker.onStop();
+        mTestLooper.dispatchAll();
+        cacheDir.delete();
+    }
+
+    /**
+     * Tests that a warm-start snapshot older than the max scan age is still published if it is
+     * within the snapshot max age, and not once it is older than that.
+     */
+    @Test
+    public void testWarmStartSnapshot_olderThanMaxScanAge_publishedWithinSnapshotMaxAge()
+            throws IOException {
+        final File cacheDir = writeWarmStartSnapshot();
+        when(mMockClock.millis()).thenReturn(START_MILLIS + MAX_SCAN_AGE_MILLIS + 60_000);
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.setWarmStartSnapshotEnabled(true);
+
+        assertThat(startAndGetProvisionalWifiEntries(wifiPickerTracker)).hasSize(1);
+
+        // Stopping writes a new snapshot without the entry, so write the old one again.
+        wifiPickerTracker.setWarmStartSnapshotEnabled(false);
+        wifiPickerTracker.onStop();
+        mTestLooper.dispatchAll();
+        when(mMockClock.millis()).thenReturn(START_MILLIS);
+        writeWarmStartSnapshot();
+        when(mMockClock.millis()).thenReturn(START_MILLIS + MAX_SCAN_AGE_MILLIS + 60_000);
+        final WifiPickerTracker shortMaxAgeTracker = createTestWifiPickerTracker();
+        shortMaxAgeTracker.setWarmStartSnapshotEnabled(true, MAX_SCAN_AGE_MILLIS);
+
+        assertThat(startAndGetProvisionalWifiEntries(shortMaxAgeTracker)).isEmpty();
+
+        shortMaxAgeTracker.setWarmStartSnapshotEnabled(false);
+        shortMaxAgeTracker.onStop();
+        mTestLooper.dispatchAll();
+        cacheDir.delete();
+    }
+
+    /**
+     * Verify that the existing hotspot entries are notified on every scan even if their
+     * HotspotNetwork data didn't change.
+     */
+    @Test
+    public void testHotspotNetworks_scanResultsAvailable_notifiesUnchangedEntries() {
+        final HotspotNetwork testHotspotNetwork = new HotspotNetwork.Builder()
+                .setDeviceId(1)
+                .setNetworkProviderInfo(new NetworkProviderInfo
+                        .Builder("My Phone", "Pixel 7")
+                        .setDeviceType(NetworkProviderInfo.DEVICE_TYPE_PHONE)
+                        .setBatteryPercentage(100)
+                        .setConnectionStrength(3)
+                        .build())
+                .setHostNetworkType(HotspotNetwork.NETWORK_TYPE_CELLULAR)
+                .setNetworkName("Google Fi")
+                .build();
+        when(mMockSharedConnectivityManager.getHotspotNetworks()).thenReturn(
+                Collections.singletonList(testHotspotNetwork));
+        final WifiPickerTracker wifiPickerTracker = createTestWifiPickerTracker();
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+        verify(mMockSharedConnectivityManager).registerCallback(any(),
+                mSharedConnectivityCallbackCaptor.capture());
+        mSharedConnectivityCallbackCaptor.getValue().onServiceConnected();
+        mTestLooper.dispatchAll();
+        final WifiEntry hotspotEntry = wifiPickerTracker.getWifiEntries().stream().filter(
+                entry -> entry instanceof HotspotNetworkEntry).findFirst().orElseThrow();
+        final WifiEntry.WifiEntryCallback mockListener = mock(WifiEntry.WifiEntryCallback.class);
+        hotspotEntry.setListener(mockListener);
+
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        mTestLooper.dispatchAll();
+
+        verify(mockListener, atLeastOnce()).onUpdated();
+    }
 }
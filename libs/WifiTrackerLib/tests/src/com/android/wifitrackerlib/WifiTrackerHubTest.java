@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.android.wifitrackerlib.TestUtils.buildScanResult;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityDiagnosticsManager;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.test.TestLooper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class WifiTrackerHubTest {
+    @Mock private Context mMockContext;
+    @Mock private WifiManager mMockWifiManager;
+    @Mock private ConnectivityManager mMockConnectivityManager;
+    @Mock private ConnectivityDiagnosticsManager mMockConnectivityDiagnosticsManager;
+
+    private TestLooper mHubLooper;
+    private TestLooper mClientLooper;
+    private WifiTrackerHub mHub;
+
+    private final ArgumentCaptor<BroadcastReceiver> mBroadcastReceiverCaptor =
+            ArgumentCaptor.forClass(BroadcastReceiver.class);
+    private final ArgumentCaptor<ConnectivityManager.NetworkCallback> mNetworkCallbackCaptor =
+            ArgumentCaptor.forClass(ConnectivityManager.NetworkCallback.class);
+
+    private WifiTrackerHub.Client createClient() {
+        final WifiTrackerHub.Client client = mock(WifiTrackerHub.Client.class);
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(WifiManager.WIFI_STATE_CHANGED_ACTION);
+        filter.addAction(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION);
+        when(client.getWorkerHandler()).thenReturn(new Handler(mClientLooper.getLooper()));
+        when(client.getIntentFilter()).thenReturn(filter);
+        when(client.getBroadcastReceiver()).thenReturn(mock(BroadcastReceiver.class));
+        when(client.getNetworkCallback())
+                .thenReturn(mock(ConnectivityManager.NetworkCallback.class));
+        when(client.getDefaultNetworkCallback())
+                .thenReturn(mock(ConnectivityManager.NetworkCallback.class));
+        when(client.getConnectivityDiagnosticsCallback()).thenReturn(
+                mock(ConnectivityDiagnosticsManager.ConnectivityDiagnosticsCallback.class));
+        return client;
+    }
+
+    private void dispatchAll() {
+        mHubLooper.dispatchAll();
+        mClientLooper.dispatchAll();
+    }
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mHubLooper = new TestLooper();
+        mClientLooper = new TestLooper();
+        mHub = new WifiTrackerHub(mMockContext, mMockWifiManager, mMockConnectivityManager,
+                mMockConnectivityDiagnosticsManager, mHubLooper.getLooper());
+    }
+
+    /**
+     * Verify that the callbacks are registered once for the first client and unregistered once
+     * the last client detaches.
+     */
+    @Test
+    public void testAttachDetach_multipleClients_registersOnce() {
+        final WifiTrackerHub.Client client1 = createClient();
+        final WifiTrackerHub.Client client2 = createClient();
+
+        mHub.attach(client1);
+        mHub.attach(client2);
+        dispatchAll();
+
+        assertThat(mHub.getNumClients()).isEqualTo(2);
+        verify(mMockContext, times(1)).registerReceiver(any(), any(), any(), any());
+        verify(mMockConnectivityManager, times(1)).registerNetworkCallback(any(), any(), any());
+        verify(mMockConnectivityManager, times(1)).registerDefaultNetworkCallback(any(), any());
+
+        mHub.detach(client1);
+        dispatchAll();
+        verify(mMockContext, never()).unregisterReceiver(any());
+
+        mHub.detach(client2);
+        dispatchAll();
+        assertThat(mHub.getNumClients()).isEqualTo(0);
+        verify(mMockContext).unregisterReceiver(any());
+        verify(mMockConnectivityManager, times(2)).unregisterNetworkCallback(
+                any(ConnectivityManager.NetworkCallback.class));
+    }
+
+    /**
+     * Verify that the receiver is registered for the union of the actions of the attached clients
+     * and re-registered when a detaching client changes it.
+     */
+    @Test
+    public void testAttachDetach_differentFilters_registersForUnionOfActions() {
+        final ArgumentCaptor<IntentFilter> filterCaptor =
+                ArgumentCaptor.forClass(IntentFilter.class);
+        final WifiTrackerHub.Client client1 = createClient();
+        final WifiTrackerHub.Client client2 = createClient();
+        final IntentFilter rssiFilter = new IntentFilter(WifiManager.RSSI_CHANGED_ACTION);
+        when(client2.getIntentFilter()).thenReturn(rssiFilter);
+
+        mHub.attach(client1);
+        dispatchAll();
+        mHub.attach(client2);
+        dispatchAll();
+
+        verify(mMockContext, times(2)).registerReceiver(any(), filterCaptor.capture(), any(),
+                any());
+        assertThat(filterCaptor.getAllValues().get(0)
+                .hasAction(WifiManager.RSSI_CHANGED_ACTION)).isFalse();
+        assertThat(filterCaptor.getValue().hasAction(WifiManager.RSSI_CHANGED_ACTION)).isTrue();
+        assertThat(filterCaptor.getValue()
+                .hasAction(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION)).isTrue();
+
+        mHub.detach(client2);
+        dispatchAll();
+
+        verify(mMockContext, times(2)).unregisterReceiver(any());
+        verify(mMockContext, times(3)).registerReceiver(any(), filterCaptor.capture(), any(),
+                any());
+        assertThat(filterCaptor.getValue().hasAction(WifiManager.RSSI_CHANGED_ACTION)).isFalse();
+
+        // A client with a subset of the actions doesn't re-register.
+        mHub.attach(createClient());
+        dispatchAll();
+
+        verify(mMockContext, times(3)).registerReceiver(any(), any(), any(), any());
+    }
+
+    /**
+     * Verify that broadcasts are forwarded to every client that wants the action, and that scan
+     * results are fetched once for all clients.
+     */
+    @Test
+    public void testBroadcast_forwardedToAllClients() {
+        final List<ScanResult> scanResults =
+                Collections.singletonList(buildScanResult("ssid", "bssid", 0));
+        when(mMockWifiManager.getScanResults()).thenReturn(scanResults);
+        final WifiTrackerHub.Client client1 = createClient();
+        final WifiTrackerHub.Client client2 = createClient();
+        mHub.attach(client1);
+        mHub.attach(client2);
+        dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(), any(), any(),
+                any());
+
+        final Intent intent = new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION)
+                .putExtra(WifiManager.EXTRA_RESULTS_UPDATED, true);
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext, intent);
+        dispatchAll();
+
+        verify(client1.getBroadcastReceiver()).onReceive(any(), eq(intent));
+        verify(client2.getBroadcastReceiver()).onReceive(any(), eq(intent));
+        verify(mMockWifiManager, times(1)).getScanResults();
+        assertThat(mHub.getScanResults()).isEqualTo(scanResults);
+    }
+
+    /**
+     * Verify that a client attaching late is replayed the sticky Wi-Fi state and network state.
+     */
+    @Test
+    public void testAttach_lateClient_replaysStickyState() {
+        final WifiTrackerHub.Client client1 = createClient();
+        mHub.attach(client1);
+        dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(), any(), any(),
+                any());
+        verify(mMockConnectivityManager).registerNetworkCallback(any(),
+                mNetworkCallbackCaptor.capture(), any());
+        final Intent wifiStateIntent = new Intent(WifiManager.WIFI_STATE_CHANGED_ACTION)
+                .putExtra(WifiManager.EXTRA_WIFI_STATE, WifiManager.WIFI_STATE_ENABLED);
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext, wifiStateIntent);
+        final Network network = mock(Network.class);
+        final NetworkCapabilities capabilities = new NetworkCapabilities.Builder().build();
+        mNetworkCallbackCaptor.getValue().onCapabilitiesChanged(network, capabilities);
+        dispatchAll();
+
+        final WifiTrackerHub.Client client2 = createClient();
+        mHub.attach(client2);
+        dispatchAll();
+
+        verify(client2.getBroadcastReceiver()).onReceive(any(), eq(wifiStateIntent));
+        verify(client2.getNetworkCallback()).onCapabilitiesChanged(network, capabilities);
+    }
+
+    /**
+     * Verify that events are not forwarded to a client after it detaches.
+     */
+    @Test
+    public void testBroadcast_detachedClient_notForwarded() {
+        final WifiTrackerHub.Client client1 = createClient();
+        final WifiTrackerHub.Client client2 = createClient();
+        mHub.attach(client1);
+        mHub.attach(client2);
+        dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(), any(), any(),
+                any());
+
+        mHub.detach(client2);
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.WIFI_STATE_CHANGED_ACTION));
+        dispatchAll();
+
+        verify(client1.getBroadcastReceiver()).onReceive(any(), any());
+        verify(client2.getBroadcastReceiver(), never()).onReceive(any(), any());
+    }
+
+    /**
+     * Verify that detaching and immediately re-attaching the only client on the default hub thread
+     * unregisters before registering again, on the same thread.
+     */
+    @Test
+    public void testDetachAttach_defaultLooper_unregistersBeforeRegistering() throws Exception {
+        final WifiTrackerHub hub = new WifiTrackerHub(mMockContext, mMockWifiManager,
+                mMockConnectivityManager, mMockConnectivityDiagnosticsManager,
+                null /* looper */);
+        final WifiTrackerHub.Client client = createClient();
+
+        hub.attach(client);
+        final Looper looper = hub.getLooper();
+        hub.detach(client);
+        hub.attach(client);
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Handler(hub.getLooper()).post(latch::countDown);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(hub.getLooper()).isSameInstanceAs(looper);
+        final InOrder inOrder = inOrder(mMockConnectivityManager);
+        inOrder.verify(mMockConnectivityManager).registerNetworkCallback(any(), any(), any());
+        inOrder.verify(mMockConnectivityManager, times(2)).unregisterNetworkCallback(
+                any(ConnectivityManager.NetworkCallback.class));
+        inOrder.verify(mMockConnectivityManager).registerNetworkCallback(any(), any(), any());
+        hub.detach(client);
+    }
+
+    /**
+     * Verify that scan requests are throttled across clients.
+     */
+    @Test
+    public void testShouldRequestScan_recentScan_returnsFalse() {
+        assertThat(mHub.shouldRequestScan(10_000)).isTrue();
+        assertThat(mHub.shouldRequestScan(10_000)).isFalse();
+    }
+
+    /**
+     * Verify that a noted scan request throttles the scan requests of the other clients.
+     */
+    @Test
+    public void testShouldRequestScan_afterNoteScanRequested_returnsFalse() {
+        mHub.noteScanRequested();
+
+        assertThat(mHub.shouldRequestScan(10_000)).isFalse();
+    }
+}